@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@value #BATCH} random likes over HTTP, one PUT /films/{id}/like/{userId} each or a single PUT /films/likes.
+ * Scores are likes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchLikesBenchmark {
+    private static final int FILMS = 1000;
+    private static final int USERS = 10_000;
+    private static final int BATCH = 100;
+
+    @Param({"memory", "jdbc"})
+    private String storage;
+
+    private ServletWebServerApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private long[] filmIds;
+    private long[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // src/jmh/resources/logback-test.xml would take precedence otherwise
+        context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties("server.port=0", "spring.main.banner-mode=off")
+                .run("--logging.config=classpath:logback-spring.xml", "--logging.level.root=WARN",
+                        "--filmorate.storage.type=" + storage);
+        FilmService filmService = context.getBean(FilmService.class);
+        UserService userService = context.getBean(UserService.class);
+        filmIds = new long[FILMS];
+        for (int i = 0; i < FILMS; i++) {
+            filmIds[i] = filmService.addFilm(Fixtures.film(i)).getId();
+        }
+        userIds = new long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = userService.addUser(Fixtures.user(i)).getId();
+        }
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + context.getWebServer().getPort();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int single() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int status = 0;
+        for (int i = 0; i < BATCH; i++) {
+            URI uri = URI.create(baseUrl + "/films/" + filmIds[random.nextInt(FILMS)]
+                    + "/like/" + userIds[random.nextInt(USERS)]);
+            status += client.send(HttpRequest.newBuilder(uri).PUT(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+        return status;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public String batch() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < BATCH; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"filmId\":").append(filmIds[random.nextInt(FILMS)])
+                    .append(",\"userId\":").append(userIds[random.nextInt(USERS)]).append('}');
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/films/likes"))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body.append(']').toString()))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
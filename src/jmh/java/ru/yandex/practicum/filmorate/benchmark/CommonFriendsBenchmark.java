@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Common friends of two hub users, each with {@code friends} friends, half of them shared.
+ * {@code retainAll} is the previous implementation (on a copy, the original modified the friend set).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommonFriendsBenchmark {
+    @Param({"10000", "50000"})
+    private int friends;
+
+    private UserService userService;
+    private long hub1;
+    private long hub2;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        userService = Fixtures.services(new InMemoryFilmStorage(), userStorage).users();
+        hub1 = userService.addUser(Fixtures.user(-1)).getId();
+        hub2 = userService.addUser(Fixtures.user(-2)).getId();
+        int others = friends * 3 / 2;
+        for (int i = 0; i < others; i++) {
+            long id = userService.addUser(Fixtures.user(i)).getId();
+            if (i < friends) {
+                userService.addFriend(hub1, id);
+                userService.addFriend(id, hub1);
+            }
+            if (i >= friends / 2) {
+                userService.addFriend(hub2, id);
+                userService.addFriend(id, hub2);
+            }
+        }
+    }
+
+    @Benchmark
+    public Collection<User> getCommonFriends() {
+        return userService.getCommonFriends(hub1, hub2);
+    }
+
+    @Benchmark
+    public Collection<User> retainAll() {
+        Set<Long> ids = new HashSet<>(userService.getUserByID(hub1).getFriends());
+        ids.retainAll(userService.getUserByID(hub2).getFriends());
+        return ids.stream().map(userService::getUserByID).collect(Collectors.toSet());
+    }
+}
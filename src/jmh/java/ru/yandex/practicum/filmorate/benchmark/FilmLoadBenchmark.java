@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.BlockIdGenerator;
+import ru.yandex.practicum.filmorate.storage.IdGenerator;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.SequenceIdGenerator;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk load of 1M films into an empty storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class FilmLoadBenchmark {
+    private static final LocalDate RELEASE_DATE = LocalDate.of(2000, 1, 1);
+
+    @Param({"1000000"})
+    private int films;
+
+    @Param({"sequence", "block"})
+    private String ids;
+
+    @Benchmark
+    public InMemoryFilmStorage loadFilms() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(idGenerator());
+        for (int i = 0; i < films; i++) {
+            storage.addFilm(Film.builder().name("film" + i).description("desc")
+                    .releaseDate(RELEASE_DATE).duration(90).build());
+        }
+        return storage;
+    }
+
+    private IdGenerator idGenerator() {
+        if ("block".equals(ids)) {
+            SequenceIdGenerator backend = new SequenceIdGenerator();
+            return new BlockIdGenerator(backend::reserve, 1000);
+        }
+        return new SequenceIdGenerator();
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmServiceBenchmark {
+    private static final Duration DAY = Duration.ofHours(24);
+
+    @Param({"1000", "100000"})
+    private int films;
+
+    @Param({"10000"})
+    private int users;
+
+    @Param({"1", "20"})
+    private int likesPerUser;
+
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        Fixtures.Services services = Fixtures.services(new InMemoryFilmStorage(), userStorage);
+        filmService = services.films();
+        Fixtures.addUsers(services.users(), users);
+        Fixtures.addFilms(filmService, films);
+        Fixtures.addLikes(filmService, films, users, likesPerUser, new Random(42));
+    }
+
+    @Benchmark
+    public void like() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        filmService.like(1 + random.nextInt(films), 1 + random.nextInt(users));
+    }
+
+    @Benchmark
+    public List<Film> getMostLiked() {
+        return filmService.getMostLiked(10);
+    }
+
+    @Benchmark
+    public List<Film> getTrending() {
+        return filmService.getTrending(DAY, 10);
+    }
+
+    /**
+     * After warm-up the similar users of most users come from the cache.
+     */
+    @Benchmark
+    public List<Film> getRecommendedFilms() {
+        return filmService.getRecommendedFilms(1 + ThreadLocalRandom.current().nextInt(users), 10);
+    }
+
+    /**
+     * The like drops the user's cached similar users, so they are found anew.
+     */
+    @Benchmark
+    public List<Film> likeThenGetRecommendedFilms() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = 1 + random.nextInt(users);
+        filmService.like(1 + random.nextInt(films), userId);
+        return filmService.getRecommendedFilms(userId, 10);
+    }
+}
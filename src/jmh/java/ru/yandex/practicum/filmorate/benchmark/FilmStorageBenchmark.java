@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmStorageBenchmark {
+    @Param({"1000", "100000"})
+    private int films;
+
+    private InMemoryFilmStorage storage;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        storage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            storage.addFilm(Fixtures.film(i));
+        }
+    }
+
+    @Benchmark
+    public Film addFilm() {
+        return storage.addFilm(Fixtures.film(0));
+    }
+
+    @Benchmark
+    public Film getFilmById() {
+        return storage.getFilmById(1 + ThreadLocalRandom.current().nextInt(films));
+    }
+}
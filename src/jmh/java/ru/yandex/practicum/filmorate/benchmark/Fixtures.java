@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ChangeEvents;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.SimilarUsers;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Synthetic catalogs and social graphs for benchmarks.
+ */
+final class Fixtures {
+    private static final LocalDate DATE = LocalDate.of(2000, 1, 1);
+
+    private Fixtures() {
+    }
+
+    /**
+     * Both services over the storages, sharing versions and events as the application's beans do.
+     */
+    static Services services(FilmStorage filmStorage, UserStorage userStorage) {
+        ContentVersions versions = new ContentVersions();
+        ChangeEvents events = new ChangeEvents();
+        FilmService filmService = new FilmService(filmStorage, userStorage, new SimilarUsers(filmStorage), versions,
+                events);
+        return new Services(filmService, new UserService(userStorage, filmService, versions, events));
+    }
+
+    static Film film(int i) {
+        return Film.builder().name("film" + i).description("desc").releaseDate(DATE).duration(90).build();
+    }
+
+    static User user(int i) {
+        return User.builder().name("user" + i).email("user" + i + "@mail.ru").login("user" + i)
+                .birthday(DATE).build();
+    }
+
+    static void addFilms(FilmService filmService, int count) {
+        for (int i = 0; i < count; i++) {
+            filmService.addFilm(film(i));
+        }
+    }
+
+    static void addUsers(UserService userService, int count) {
+        for (int i = 0; i < count; i++) {
+            userService.addUser(user(i));
+        }
+    }
+
+    /**
+     * Each user gets about {@code friendsPerUser} random friends, ids are 1..users. Every request is confirmed.
+     */
+    static void addFriends(UserService userService, int users, int friendsPerUser, Random random) {
+        for (long id = 1; id <= users; id++) {
+            for (int i = 0; i < friendsPerUser / 2; i++) {
+                long friendId = 1 + random.nextInt(users);
+                if (friendId != id) {
+                    userService.addFriend(id, friendId);
+                    userService.addFriend(friendId, id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Each user likes {@code likesPerUser} random films, ids are 1..films and 1..users.
+     */
+    static void addLikes(FilmService filmService, int films, int users, int likesPerUser, Random random) {
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                filmService.like(1 + random.nextInt(films), userId);
+            }
+        }
+    }
+
+    record Services(FilmService films, UserService users) {
+    }
+}
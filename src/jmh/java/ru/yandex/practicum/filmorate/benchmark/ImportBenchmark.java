@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@value #RECORDS} films over HTTP, one POST /films each or a single POST /films/import as NDJSON or CSV.
+ * Scores are records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+    private static final int RECORDS = 1000;
+
+    @Param({"memory", "jdbc"})
+    private String storage;
+
+    private ServletWebServerApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String[] films;
+    private String ndjson;
+    private String csv;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // src/jmh/resources/logback-test.xml would take precedence otherwise
+        context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties("server.port=0", "spring.main.banner-mode=off")
+                .run("--logging.config=classpath:logback-spring.xml", "--logging.level.root=WARN",
+                        "--filmorate.storage.type=" + storage);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + context.getWebServer().getPort() + "/films";
+
+        films = new String[RECORDS];
+        StringBuilder lines = new StringBuilder();
+        StringBuilder rows = new StringBuilder("name,description,releaseDate,duration\n");
+        for (int i = 0; i < RECORDS; i++) {
+            films[i] = "{\"name\":\"film" + i + "\",\"description\":\"desc\",\"releaseDate\":\"2000-01-01\","
+                    + "\"duration\":90}";
+            lines.append(films[i]).append('\n');
+            rows.append("film").append(i).append(",desc,2000-01-01,90\n");
+        }
+        ndjson = lines.toString();
+        csv = rows.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int single() throws Exception {
+        int status = 0;
+        for (String film : films) {
+            status += send("", "application/json", film).statusCode();
+        }
+        return status;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public String ndjson() throws Exception {
+        return send("/import", "application/x-ndjson", ndjson).body();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public String csv() throws Exception {
+        return send("/import", "text/csv", csv).body();
+    }
+
+    private HttpResponse<String> send(String path, String contentType, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
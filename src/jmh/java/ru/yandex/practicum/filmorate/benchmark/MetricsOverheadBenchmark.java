@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service calls on the memory storage with @Timed on and off. A like passes three storage timers and a
+ * service timer, common friends two and one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+
+    @Param({"false", "true"})
+    private boolean timed;
+
+    // percentile histogram buckets of the timers, as in application.properties
+    @Param({"true"})
+    private boolean histogram;
+
+    private ConfigurableApplicationContext context;
+    private FilmService filmService;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // src/jmh/resources/logback-test.xml would take precedence otherwise
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off")
+                .run("--logging.config=classpath:logback-spring.xml", "--logging.level.root=WARN",
+                        "--filmorate.metrics.timed=" + timed,
+                        "--management.metrics.distribution.percentiles-histogram.filmorate=" + histogram);
+        filmService = context.getBean(FilmService.class);
+        userService = context.getBean(UserService.class);
+        Fixtures.addUsers(userService, USERS);
+        Fixtures.addFilms(filmService, FILMS);
+        Fixtures.addFriends(userService, USERS, 20, new Random(42));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void like() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        filmService.like(1 + random.nextInt(FILMS), 1 + random.nextInt(USERS));
+    }
+
+    @Benchmark
+    public List<Film> getMostLiked() {
+        return filmService.getMostLiked(10);
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return userService.getCommonFriends(1 + random.nextInt(USERS), 1 + random.nextInt(USERS));
+    }
+}
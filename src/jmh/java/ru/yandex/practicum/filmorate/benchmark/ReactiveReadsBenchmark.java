@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test: {@code clients} concurrent clients each send {@code requestsPerClient} reads to the servlet
+ * controllers on Tomcat or to the WebFlux handlers on Netty. Both are served by one application over the same
+ * storage, so they share the hardware and the data. One op is the whole wave, throughput is
+ * clients * requestsPerClient / score.
+ * <p>
+ * Needs the reactive profile: mvn -Pbenchmark,reactive test-compile exec:exec -Djmh.args=ReactiveReadsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReactiveReadsBenchmark {
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+    private static final int FRIENDS_PER_USER = 20;
+    private static final int PAGE = 100;
+
+    @Param({"servlet", "reactive"})
+    private String stack;
+
+    // a user's friends, or a page of films by keyset
+    @Param({"friends", "page"})
+    private String read;
+
+    @Param({"memory", "jdbc"})
+    private String storage;
+
+    @Param({"1000"})
+    private int clients;
+
+    @Param({"10"})
+    private int requestsPerClient;
+
+    private ServletWebServerApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        int reactivePort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            reactivePort = socket.getLocalPort();
+        }
+        // src/jmh/resources/logback-test.xml would take precedence otherwise; Logbook only hooks into Tomcat,
+        // so it's off for both stacks to measure them doing the same work. Tomcat's 200 threads queue for the 10
+        // pooled connections and give up after the default 5 s, the pool waits as long as a client does here
+        context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties("server.port=0", "spring.main.banner-mode=off")
+                .run("--logging.config=classpath:logback-spring.xml", "--logging.level.root=WARN",
+                        "--logging.level.org.zalando.logbook=OFF",
+                        "--spring.datasource.hikari.connection-timeout=" + Duration.ofMinutes(2).toMillis(),
+                        "--filmorate.storage.type=" + storage,
+                        "--server.tomcat.max-connections=" + (clients + 500),
+                        "--filmorate.reactive.enabled=true", "--filmorate.reactive.port=" + reactivePort);
+        Fixtures.addFilms(context.getBean(FilmService.class), FILMS);
+        UserService userService = context.getBean(UserService.class);
+        Fixtures.addUsers(userService, USERS);
+        Fixtures.addFriends(userService, USERS, FRIENDS_PER_USER, new Random(42));
+
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        baseUrl = "http://localhost:" + (stack.equals("servlet") ? context.getWebServer().getPort() : reactivePort);
+        try {
+            if (get().statusCode() != 200) {
+                throw new IllegalStateException("Reads of " + baseUrl + " fail");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Nothing at " + baseUrl + ", is the reactive profile on?", e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int wave() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                results.add(executor.submit(() -> {
+                    int ok = 0;
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        if (get().statusCode() == 200) {
+                            ok++;
+                        }
+                    }
+                    return ok;
+                }));
+            }
+            int ok = 0;
+            for (Future<Integer> result : results) {
+                ok += result.get();
+            }
+            if (ok != clients * requestsPerClient) {
+                throw new IllegalStateException((clients * requestsPerClient - ok) + " requests failed");
+            }
+            return ok;
+        }
+    }
+
+    private HttpResponse<Void> get() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String path = read.equals("friends")
+                ? "/users/" + (1 + random.nextInt(USERS)) + "/friends"
+                : "/films?limit=" + PAGE + "&after=" + random.nextInt(FILMS - PAGE);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(2))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend recommendations on a power-law graph: preferential attachment, each new user befriends
+ * {@code edgesPerUser} users picked with probability proportional to their degree. The first users become hubs
+ * with tens of thousands of friends, most users have a few. Needs about 4 GB of heap for a million users.
+ * <p>
+ * Sampled, so the result has the latency percentiles the README compares with the target, not only the mean.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class RecommendationsBenchmark {
+    @Param({"100000", "1000000"})
+    private int users;
+
+    @Param({"5"})
+    private int edgesPerUser;
+
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        userService = Fixtures.services(new InMemoryFilmStorage(), userStorage).users();
+        Fixtures.addUsers(userService, users);
+
+        Random random = new Random(42);
+        // every edge puts both ends here, so a uniform pick from it is a pick by degree
+        long[] ends = new long[2 * users * edgesPerUser];
+        int endCount = 0;
+        List<Friendship> batch = new ArrayList<>();
+        for (long id = 1; id <= users; id++) {
+            for (int i = 0; i < edgesPerUser && id > 1; i++) {
+                long friendId = endCount == 0 ? 1 : ends[random.nextInt(endCount)];
+                if (friendId != id) {
+                    // a request and its confirmation
+                    batch.add(new Friendship(id, friendId));
+                    batch.add(new Friendship(friendId, id));
+                    ends[endCount++] = id;
+                    ends[endCount++] = friendId;
+                }
+            }
+            if (batch.size() >= UserService.MAX_BATCH_SIZE - 2 * edgesPerUser) {
+                userService.addFriends(batch);
+                batch.clear();
+            }
+        }
+        userService.addFriends(batch);
+    }
+
+    @Benchmark
+    public List<FriendRecommendation> randomUser() {
+        return userService.getRecommendations(1 + ThreadLocalRandom.current().nextInt(users), 10);
+    }
+
+    @Benchmark
+    public List<FriendRecommendation> hub() {
+        // the first user, the one with the most friends
+        return userService.getRecommendations(1, 10);
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.Durability;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.SequenceIdGenerator;
+import ru.yandex.practicum.filmorate.storage.StoragePersistence;
+import ru.yandex.practicum.filmorate.storage.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup recovery of {@code films * likesPerFilm} likes (10M by default),
+ * either from a snapshot or from the write-ahead log alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecoveryBenchmark {
+    private static final int SEGMENT_SIZE = 256 << 20;
+
+    @Param({"snapshot", "log"})
+    private String source;
+
+    @Param({"10000"})
+    private int films;
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"1000"})
+    private int likesPerFilm;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("filmorate-recovery");
+        WriteAheadLog wal = new WriteAheadLog(dir, Durability.ASYNC, Duration.ofSeconds(1), SEGMENT_SIZE);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(new SequenceIdGenerator(), wal);
+        InMemoryUserStorage userStorage = new InMemoryUserStorage(new SequenceIdGenerator(), wal);
+        StoragePersistence persistence = new StoragePersistence(dir, wal, filmStorage, userStorage, Duration.ZERO);
+        persistence.start();
+
+        for (int i = 0; i < users; i++) {
+            userStorage.addUser(Fixtures.user(i));
+        }
+        for (int i = 0; i < films; i++) {
+            Film film = filmStorage.addFilm(Fixtures.film(i));
+            // a different run of users for every film
+            long first = (long) i * 7919 % users;
+            for (int like = 0; like < likesPerFilm; like++) {
+                filmStorage.like(film, 1 + (first + like) % users);
+            }
+        }
+        if (source.equals("snapshot")) {
+            persistence.snapshot();
+        }
+        wal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage recover() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(dir, Durability.ASYNC, Duration.ofSeconds(1), SEGMENT_SIZE);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(new SequenceIdGenerator(), wal);
+        InMemoryUserStorage userStorage = new InMemoryUserStorage(new SequenceIdGenerator(), wal);
+        new StoragePersistence(dir, wal, filmStorage, userStorage, Duration.ZERO).recover();
+        return filmStorage;
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PUT /films/{id}/like/{userId} over HTTP with the old logging setup (Logbook TRACE on every request,
+ * synchronous console appender, model logs on every like) and with the sampled async one from application.properties.
+ * Console output goes to target/request-logging-{mode}.log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class RequestLoggingBenchmark {
+    private static final int FILMS = 1000;
+    private static final int USERS = 1000;
+
+    @Param({"sync-trace", "async-sampled"})
+    private String logging;
+
+    private PrintStream stdout;
+    private ServletWebServerApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stdout = System.out;
+        System.setOut(new PrintStream(new FileOutputStream("target/request-logging-" + logging + ".log"), false));
+
+        String[] args;
+        if (logging.equals("sync-trace")) {
+            // command line args win over application.properties, lists are replaced as a whole
+            args = new String[] {"--logging.config=classpath:logback-sync.xml",
+                    "--logging.level.ru.yandex.practicum.filmorate.model=DEBUG",
+                    "--logbook.write.max-body-size=-1",
+                    "--logbook.predicate.exclude[0].path=/none",
+                    "--filmorate.request-logging.sampling[0].path=/**",
+                    "--filmorate.request-logging.sampling[0].rate=1.0"};
+        } else {
+            // src/jmh/resources/logback-test.xml would take precedence otherwise
+            args = new String[] {"--logging.config=classpath:logback-spring.xml"};
+        }
+        context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties("server.port=0", "spring.main.banner-mode=off")
+                .run(args);
+
+        FilmService filmService = context.getBean(FilmService.class);
+        Fixtures.addUsers(context.getBean(UserService.class), USERS);
+        Fixtures.addFilms(filmService, FILMS);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + context.getWebServer().getPort();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        System.out.close();
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public int like() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        URI uri = URI.create(baseUrl + "/films/" + (1 + random.nextInt(FILMS)) + "/like/" + (1 + random.nextInt(USERS)));
+        HttpRequest request = HttpRequest.newBuilder(uri).PUT(HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search over a catalog written in a synthetic language: words are made of Russian syllables and picked
+ * log-uniformly, so a few words are in most films and most words in a few, as in real text. Like counts are
+ * log-uniform up to {@link #MAX_LIKES} too; likes go straight into the films, users aren't created.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SearchBenchmark {
+    private static final String[] SYLLABLES = {"ка", "ро", "ми", "на", "ле", "то", "вы", "су", "бо", "зе", "ду",
+            "пи", "ша", "ге", "ню", "фо"};
+    private static final int VOCABULARY = 50_000;
+    private static final int MAX_LIKES = 100;
+
+    @Param({"100000", "1000000"})
+    private int films;
+
+    private final String[] words = new String[VOCABULARY];
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int n = i; ; n /= SYLLABLES.length) {
+                word.append(SYLLABLES[n % SYLLABLES.length]);
+                if (n < SYLLABLES.length) {
+                    break;
+                }
+            }
+            words[i] = word.toString();
+        }
+        filmService = Fixtures.services(new InMemoryFilmStorage(), new InMemoryUserStorage()).films();
+        for (int i = 0; i < films; i++) {
+            filmService.addFilm(Film.builder().name(text(random, 1 + random.nextInt(4)))
+                    .description(text(random, 5 + random.nextInt(16)))
+                    .releaseDate(LocalDate.of(2000, 1, 1)).duration(90)
+                    .likes(likes(random)).build());
+        }
+    }
+
+    @Benchmark
+    public List<Film> word() {
+        return filmService.search(word(ThreadLocalRandom.current()), 10);
+    }
+
+    @Benchmark
+    public List<Film> twoWords() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return filmService.search(word(random) + " " + word(random), 10);
+    }
+
+    /**
+     * The first four letters of a word, as typed into a search box.
+     */
+    @Benchmark
+    public List<Film> prefix() {
+        String word = word(ThreadLocalRandom.current());
+        return filmService.search(word.substring(0, Math.min(4, word.length())), 10);
+    }
+
+    private static Set<Long> likes(Random random) {
+        LongHashSet likes = new LongHashSet();
+        for (long userId = (long) Math.pow(MAX_LIKES + 1, random.nextDouble()) - 1; userId > 0; userId--) {
+            likes.add(userId);
+        }
+        return likes;
+    }
+
+    private String text(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(word(random)).append(' ');
+        }
+        return text.toString();
+    }
+
+    // log-uniform over the vocabulary: word i comes up about as often as 1 / (i + 1)
+    private String word(Random random) {
+        return words[(int) Math.pow(VOCABULARY, random.nextDouble()) - 1];
+    }
+}
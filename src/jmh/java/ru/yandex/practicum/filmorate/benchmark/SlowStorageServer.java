@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+/**
+ * Filmorate whose film storage sleeps before every call, the way a JDBC or remote storage blocks on I/O.
+ * Started as a separate process by {@link VirtualThreadsBenchmark}.
+ */
+public class SlowStorageServer {
+    static final int FILMS = 1000;
+
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class,
+                SlowStorageServer.class).run(args);
+        InMemoryFilmStorage storage = context.getBean(InMemoryFilmStorage.class);
+        for (int i = 0; i < FILMS; i++) {
+            storage.addFilm(Fixtures.film(i));
+        }
+    }
+
+    @Bean
+    @Primary
+    FilmStorage slowFilmStorage(InMemoryFilmStorage storage, @Value("${bench.storage-latency-ms}") long latencyMs) {
+        return (FilmStorage) Proxy.newProxyInstance(FilmStorage.class.getClassLoader(),
+                new Class<?>[] {FilmStorage.class}, (proxy, method, methodArgs) -> {
+                    Thread.sleep(latencyMs);
+                    try {
+                        return method.invoke(storage, methodArgs);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.JdbcUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common friends of two random users on the H2 storage, straight or through the read-through cache.
+ * The cache holds every user, so after warmup this is the hit path; a networked database widens the gap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageCacheBenchmark {
+    private static final int USERS = 10_000;
+    private static final int FRIENDS_PER_USER = 20;
+
+    @Param({"false", "true"})
+    private boolean cache;
+
+    private EmbeddedDatabase database;
+    private UserService userService;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true)
+                .addScript("schema.sql").build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        NamedParameterJdbcTemplate namedJdbc = new NamedParameterJdbcTemplate(database);
+        FilmStorage filmStorage = new JdbcFilmStorage(jdbc, namedJdbc);
+        UserStorage userStorage = new JdbcUserStorage(jdbc, namedJdbc);
+        if (cache) {
+            userStorage = new CachingUserStorage(userStorage, Caffeine.newBuilder()
+                    .maximumSize(USERS)
+                    .recordStats()
+                    .buildAsync());
+        }
+        userService = Fixtures.services(filmStorage, userStorage).users();
+
+        Random random = new Random(42);
+        ids = new long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            ids[i] = userService.addUser(Fixtures.user(i)).getId();
+        }
+        for (long id : ids) {
+            for (int i = 0; i < FRIENDS_PER_USER / 2; i++) {
+                long friendId = ids[random.nextInt(USERS)];
+                if (friendId != id) {
+                    userService.addFriend(id, friendId);
+                    userService.addFriend(friendId, id);
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return userService.getCommonFriends(ids[random.nextInt(USERS)], ids[random.nextInt(USERS)]);
+    }
+}
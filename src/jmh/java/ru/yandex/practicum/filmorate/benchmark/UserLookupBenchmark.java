@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding a user by login through the hash index against a scan of all users, the way it had to be done before,
+ * and the uniqueness check a new user pays for on insert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserLookupBenchmark {
+    @Param({"1000000"})
+    private int users;
+
+    private InMemoryUserStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new InMemoryUserStorage();
+        for (int i = 0; i < users; i++) {
+            storage.addUser(Fixtures.user(i));
+        }
+    }
+
+    @Benchmark
+    public User byLogin() {
+        return storage.getUserByLogin(randomLogin());
+    }
+
+    @Benchmark
+    public Optional<User> byLoginLinearScan() {
+        String login = randomLogin();
+        return storage.findAll().stream().filter(user -> login.equals(user.getLogin())).findFirst();
+    }
+
+    /**
+     * An insert refused for a taken login: both keys are checked and the email claim is given back.
+     */
+    @Benchmark
+    public ConflictException addUserWithTakenLogin() {
+        User user = Fixtures.user(-1);
+        user.setLogin(randomLogin());
+        try {
+            storage.addUser(user);
+            throw new IllegalStateException("Login " + user.getLogin() + " is free");
+        } catch (ConflictException e) {
+            return e;
+        }
+    }
+
+    private String randomLogin() {
+        return Fixtures.user(ThreadLocalRandom.current().nextInt(users)).getLogin();
+    }
+}
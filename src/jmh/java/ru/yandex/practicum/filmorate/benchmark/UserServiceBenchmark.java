@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Graph {
+        @Param({"10000", "100000"})
+        int users;
+
+        @Param({"10", "200"})
+        int friendsPerUser;
+
+        @Param({"1000"})
+        int films;
+
+        UserService userService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            build();
+        }
+
+        void build() {
+            InMemoryUserStorage userStorage = new InMemoryUserStorage();
+            Fixtures.Services services = Fixtures.services(new InMemoryFilmStorage(), userStorage);
+            FilmService filmService = services.films();
+            userService = services.users();
+            Random random = new Random(42);
+            Fixtures.addUsers(userService, users);
+            Fixtures.addFilms(filmService, films);
+            Fixtures.addFriends(userService, users, friendsPerUser, random);
+            Fixtures.addLikes(filmService, films, users, 5, random);
+        }
+
+        long randomUser() {
+            return 1 + ThreadLocalRandom.current().nextInt(users);
+        }
+    }
+
+    /**
+     * Graph is rebuilt every iteration because deletion consumes users.
+     */
+    @State(Scope.Benchmark)
+    public static class ShrinkingGraph extends Graph {
+        long nextVictim;
+
+        @Setup(Level.Iteration)
+        public void rebuild() {
+            build();
+            nextVictim = 1;
+        }
+    }
+
+    @Benchmark
+    public Collection<User> getCommonFriends(Graph graph) {
+        return graph.userService.getCommonFriends(graph.randomUser(), graph.randomUser());
+    }
+
+    @Benchmark
+    public Collection<User> getFriends(Graph graph) {
+        return graph.userService.getFriends(graph.randomUser());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 5, batchSize = 1000)
+    @Warmup(iterations = 2, batchSize = 1000)
+    public void deleteUser(ShrinkingGraph graph) {
+        User user = graph.userService.getUserByID(graph.nextVictim++);
+        graph.userService.deleteUser(user);
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test: {@code clients} concurrent clients each send {@code requestsPerClient} single-film page reads
+ * to a {@link SlowStorageServer} served by platform or virtual threads. One op is the whole wave,
+ * so throughput is clients * requestsPerClient / score.
+ * The server runs in its own JVM: 10k sockets on each side wouldn't fit one process's file limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"10000"})
+    private int clients;
+
+    @Param({"5"})
+    private int requestsPerClient;
+
+    @Param({"100"})
+    private int storageLatencyMs;
+
+    private Process server;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        String java = ProcessHandle.current().info().command().orElse("java");
+        server = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "-Djdk.tracePinnedThreads=short",
+                SlowStorageServer.class.getName(),
+                "--server.port=" + port,
+                "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                "--server.tomcat.max-connections=" + (clients + 500),
+                "--server.tomcat.accept-count=1000",
+                "--bench.storage-latency-ms=" + storageLatencyMs,
+                "--logging.config=classpath:logback-spring.xml")
+                .redirectErrorStream(true)
+                .redirectOutput(new File("target/load-test-server-" + threads + ".log"))
+                .start();
+
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        baseUrl = "http://localhost:" + port;
+        awaitStarted();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        server.destroy();
+        server.waitFor(30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public int wave() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                results.add(executor.submit(() -> {
+                    int ok = 0;
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        if (getFilm().statusCode() == 200) {
+                            ok++;
+                        }
+                    }
+                    return ok;
+                }));
+            }
+            int ok = 0;
+            for (Future<Integer> result : results) {
+                ok += result.get();
+            }
+            if (ok != clients * requestsPerClient) {
+                throw new IllegalStateException((clients * requestsPerClient - ok) + " requests failed");
+            }
+            return ok;
+        }
+    }
+
+    private HttpResponse<Void> getFilm() throws IOException, InterruptedException {
+        long after = ThreadLocalRandom.current().nextInt(SlowStorageServer.FILMS);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/films?limit=1&after=" + after))
+                .timeout(Duration.ofMinutes(2))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private void awaitStarted() throws InterruptedException {
+        // films are added after the context is up, the page after the last but one is empty until then
+        URI last = URI.create(baseUrl + "/films?limit=1&after=" + (SlowStorageServer.FILMS - 1));
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("Server exited with " + server.exitValue());
+            }
+            try {
+                HttpResponse<String> page = client.send(HttpRequest.newBuilder(last).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                if (page.statusCode() == 200 && !page.body().equals("[]")) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Server didn't start in time");
+    }
+}
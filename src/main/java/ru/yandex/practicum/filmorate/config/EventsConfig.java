@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The bus itself is the ChangeEvents component, the properties are read by the events controller.
+ */
+@Configuration
+@EnableConfigurationProperties(EventsProperties.class)
+public class EventsConfig {
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Subscriptions of GET /events, see filmorate.events.* in application.properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.events")
+public class EventsProperties {
+    /**
+     * Events buffered for a subscriber that reads slower than they come, more are dropped.
+     */
+    private int bufferSize = 256;
+
+    /**
+     * How long a subscription lasts before the stream is closed and the client reconnects.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+
+    /**
+     * Topics one subscription may ask for.
+     */
+    private int maxTopics = 100;
+}
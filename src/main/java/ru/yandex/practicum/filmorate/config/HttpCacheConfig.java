@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.controller.SerializedResponses;
+
+@Configuration
+@EnableConfigurationProperties(HttpCacheProperties.class)
+public class HttpCacheConfig {
+
+    /**
+     * GET /films/popular bodies by count.
+     */
+    @Bean
+    public SerializedResponses<Integer> popularResponses(HttpCacheProperties properties) {
+        return new SerializedResponses<>(properties.getPopularTtl(), properties.getPopularMaximumSize());
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Serialized GET /films/popular responses, see filmorate.http-cache.* in application.properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.http-cache")
+public class HttpCacheProperties {
+    /**
+     * How long a serialized response is still served after the films changed, zero for never.
+     */
+    private Duration popularTtl = Duration.ofSeconds(1);
+
+    /**
+     * Distinct values of count kept.
+     */
+    private long popularMaximumSize = 100;
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+/**
+ * Timers of @Timed service and storage methods and catalog gauges.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "filmorate.metrics.timed", havingValue = "true", matchIfMissing = true)
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /**
+     * Gauges are read on every scrape, not on the request path.
+     */
+    @Bean
+    public MeterBinder catalogMetrics(FilmStorage filmStorage, UserStorage userStorage) {
+        return registry -> {
+            Gauge.builder("filmorate.films", filmStorage, FilmStorage::countFilms)
+                    .description("Films in the catalog")
+                    .register(registry);
+            Gauge.builder("filmorate.likes", filmStorage, FilmStorage::countLikes)
+                    .description("Likes of all films")
+                    .register(registry);
+            Gauge.builder("filmorate.users", userStorage, UserStorage::countUsers)
+                    .description("Registered users")
+                    .register(registry);
+            Gauge.builder("filmorate.friends.average", userStorage, MetricsConfig::averageFriends)
+                    .description("Average number of friends per user")
+                    .register(registry);
+        };
+    }
+
+    private static double averageFriends(UserStorage userStorage) {
+        long users = userStorage.countUsers();
+        return users == 0 ? 0 : (double) userStorage.countFriends() / users;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.StoragePersistence;
+import ru.yandex.practicum.filmorate.storage.WriteAheadLog;
+
+@Configuration
+@EnableConfigurationProperties(PersistenceProperties.class)
+@ConditionalOnExpression("${filmorate.persistence.enabled:false} and '${filmorate.storage.type:memory}' == 'memory'")
+public class PersistenceConfig {
+
+    /**
+     * Picked up by the in-memory storages as their MutationLog.
+     */
+    @Bean
+    public WriteAheadLog writeAheadLog(PersistenceProperties properties) {
+        return new WriteAheadLog(properties.getDir(), properties.getDurability(), properties.getFlushInterval(),
+                Math.toIntExact(properties.getSegmentSize().toBytes()));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StoragePersistence storagePersistence(PersistenceProperties properties, WriteAheadLog writeAheadLog,
+                                                 InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage) {
+        return new StoragePersistence(properties.getDir(), writeAheadLog, filmStorage, userStorage,
+                properties.getSnapshotInterval());
+    }
+}
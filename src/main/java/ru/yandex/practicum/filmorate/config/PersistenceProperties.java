@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.storage.Durability;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Write-ahead log and snapshots of the in-memory storages, see filmorate.persistence.* in application.properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.persistence")
+public class PersistenceProperties {
+    private boolean enabled;
+
+    /**
+     * Directory for log segments and snapshots.
+     */
+    private Path dir = Path.of("data");
+
+    private Durability durability = Durability.GROUP;
+
+    /**
+     * How often the background flusher forces the log in GROUP and ASYNC modes.
+     */
+    private Duration flushInterval = Duration.ofMillis(5);
+
+    /**
+     * Size of a log segment file, a larger record gets a segment of its own size.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 0 takes snapshots only on shutdown.
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.function.Predicate;
+
+@Configuration
+@EnableConfigurationProperties(RequestLoggingProperties.class)
+public class RequestLoggingConfig {
+
+    /**
+     * Replaces Logbook's default condition, logbook.predicate.exclude paths are still applied on top of it.
+     */
+    @Bean
+    public Predicate<HttpRequest> requestCondition(RequestLoggingProperties properties) {
+        return new SampledRequestCondition(properties);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sampling of HTTP request logging, see filmorate.request-logging.* in application.properties.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "filmorate.request-logging")
+public class RequestLoggingProperties {
+    /**
+     * Share of requests logged when no rule matches, from 0 to 1.
+     */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double defaultRate = 1.0;
+
+    /**
+     * Checked in order, the first rule matching the request wins.
+     */
+    @Valid
+    private List<SamplingRule> sampling = new ArrayList<>();
+
+    @Data
+    public static class SamplingRule {
+        /**
+         * Ant-style path pattern, e.g. /films/{@literal *}/like/{@literal *}.
+         */
+        @NotBlank
+        private String path;
+
+        /**
+         * HTTP methods the rule applies to, all methods if empty.
+         */
+        private List<String> methods = new ArrayList<>();
+
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double rate;
+    }
+}
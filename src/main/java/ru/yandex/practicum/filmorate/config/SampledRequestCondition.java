@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Logbook condition that logs only a sampled share of requests.
+ * Requests that aren't sampled skip body buffering as well, not only the log write.
+ */
+public class SampledRequestCondition implements Predicate<HttpRequest> {
+    private final PathMatcher matcher = new AntPathMatcher();
+    private final List<RequestLoggingProperties.SamplingRule> rules;
+    private final double defaultRate;
+
+    public SampledRequestCondition(RequestLoggingProperties properties) {
+        this.rules = List.copyOf(properties.getSampling());
+        this.defaultRate = properties.getDefaultRate();
+    }
+
+    @Override
+    public boolean test(HttpRequest request) {
+        double rate = rateFor(request.getMethod(), request.getPath());
+        return rate >= 1.0 || rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    double rateFor(String method, String path) {
+        for (RequestLoggingProperties.SamplingRule rule : rules) {
+            if ((rule.getMethods().isEmpty() || rule.getMethods().stream().anyMatch(method::equalsIgnoreCase))
+                    && matcher.match(rule.getPath(), path)) {
+                return rule.getRate();
+            }
+        }
+        return defaultRate;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.SimilarUsers;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+@Configuration
+@EnableConfigurationProperties(SimilarUsersProperties.class)
+public class SimilarUsersConfig {
+
+    /**
+     * Over the primary film storage, the caching one when filmorate.cache.enabled is on.
+     */
+    @Bean
+    public SimilarUsers similarUsers(FilmStorage filmStorage, SimilarUsersProperties properties) {
+        return new SimilarUsers(filmStorage, properties.getMaximumSize(), properties.getExpireAfterWrite());
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.yandex.practicum.filmorate.service.SimilarUsers;
+
+import java.time.Duration;
+
+/**
+ * Cache of the users most similar to a user, see filmorate.similar-users.* in application.properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.similar-users")
+public class SimilarUsersProperties {
+    /**
+     * Max number of users whose neighbours are kept.
+     */
+    private long maximumSize = SimilarUsers.DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * Upper bound on how long other users' likes take to reach a user's neighbours, their own likes drop the entry.
+     */
+    private Duration expireAfterWrite = SimilarUsers.DEFAULT_EXPIRE_AFTER_WRITE;
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Wraps the storage selected by filmorate.storage.type into a caching one, services get the wrapper as primary bean.
+ */
+@Configuration
+@EnableConfigurationProperties(StorageCacheProperties.class)
+@ConditionalOnProperty(name = "filmorate.cache.enabled", havingValue = "true")
+public class StorageCacheConfig {
+    // a load may wait on the database, a virtual thread per load keeps that off the common pool
+    private final ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * The parameter resolves to the underlying storage, a bean is never injected into itself.
+     */
+    @Bean
+    @Primary
+    public CachingFilmStorage cachingFilmStorage(FilmStorage filmStorage, StorageCacheProperties properties,
+                                                 MeterRegistry registry) {
+        return new CachingFilmStorage(filmStorage, CaffeineCacheMetrics.monitor(registry,
+                cache(properties.getFilms(), (Long id, Film film) -> 1 + film.getLikesCount()), "films"));
+    }
+
+    @Bean
+    @Primary
+    public CachingUserStorage cachingUserStorage(UserStorage userStorage, StorageCacheProperties properties,
+                                                 MeterRegistry registry) {
+        return new CachingUserStorage(userStorage, CaffeineCacheMetrics.monitor(registry,
+                cache(properties.getUsers(), (Long id, User user) -> 1 + user.getFriends().size()), "users"));
+    }
+
+    /**
+     * Loads still running are interrupted, their callers get the failure.
+     */
+    @PreDestroy
+    public void shutdownLoaders() {
+        loaders.shutdownNow();
+    }
+
+    // Caffeine evicts with W-TinyLFU whether the bound is a size or a weight
+    private <V> AsyncCache<Long, V> cache(StorageCacheProperties.Spec spec, Weigher<Long, V> weigher) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .executor(loaders)
+                .recordStats();
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getMaximumWeight() != null) {
+            return builder.maximumWeight(spec.getMaximumWeight()).weigher(weigher).buildAsync();
+        }
+        return builder.maximumSize(spec.getMaximumSize()).buildAsync();
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Read-through caches in front of the storages, see filmorate.cache.* in application.properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.cache")
+public class StorageCacheProperties {
+    private boolean enabled;
+
+    private Spec films = new Spec();
+
+    private Spec users = new Spec();
+
+    @Data
+    public static class Spec {
+        /**
+         * Max number of entities, ignored when maximum-weight is set.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Max total weight, an entity weighs 1 plus the size of its likes or friends set.
+         */
+        private Long maximumWeight;
+
+        /**
+         * Upper bound on staleness for changes made past this application, e.g. directly in the database.
+         */
+        private Duration expireAfterWrite;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.TrendingIndex;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(TrendingProperties.class)
+public class TrendingConfig {
+
+    /**
+     * Picked up by the in-memory film storage, the JDBC one ranks by the like times in the database.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
+    public TrendingIndex trendingIndex(TrendingProperties properties) {
+        return new TrendingIndex(Clock.systemUTC(), properties.getBucket(), properties.getMaxWindow(),
+                properties.getHalfLife());
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.yandex.practicum.filmorate.storage.TrendingIndex;
+
+import java.time.Duration;
+
+/**
+ * Trending films of the in-memory storage, see filmorate.trending.* in application.properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.trending")
+public class TrendingProperties {
+    /**
+     * Likes are counted per bucket, a window is rounded up to whole buckets.
+     */
+    private Duration bucket = TrendingIndex.DEFAULT_BUCKET;
+
+    /**
+     * Longest window that can be asked for, each recently liked film keeps a counter per bucket of it.
+     */
+    private Duration maxWindow = TrendingIndex.DEFAULT_MAX_WINDOW;
+
+    /**
+     * Age at which a like weighs half as much as a new one, used by the JDBC storage too.
+     */
+    private Duration halfLife = TrendingIndex.DEFAULT_HALF_LIFE;
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.service.CsvFormats;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Writes entities as CSV with a header line, reading them page by page like {@link NdjsonStream}.
+ */
+public final class CsvStream {
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+    private CsvStream() {
+    }
+
+    public static <T> StreamingResponseBody of(CsvSchema schema, NdjsonStream.PageLoader<T> pages,
+                                               ToLongFunction<T> id) {
+        return out -> {
+            try (SequenceWriter rows = CsvFormats.MAPPER.writer(schema).writeValues(out)) {
+                long after = 0;
+                List<T> page = pages.load(after, NdjsonStream.PAGE_SIZE);
+                while (!page.isEmpty()) {
+                    for (T entity : page) {
+                        rows.write(entity);
+                    }
+                    rows.flush();
+                    after = id.applyAsLong(page.getLast());
+                    page = pages.load(after, NdjsonStream.PAGE_SIZE);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.config.EventsProperties;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+import ru.yandex.practicum.filmorate.service.ChangeEvents;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events of {@link ChangeEvents}: GET /events?topics=popular,user:42. The stream opens with a
+ * {@code subscribed} event, then each change is an event named by its type with the {@link ChangeEvent} as JSON;
+ * a {@code dropped} event tells the client it missed some for reading too slowly and should read everything again.
+ */
+@RestController
+@RequestMapping("/events")
+public class EventController {
+    private ChangeEvents events;
+    private UserService userService;
+    private EventsProperties properties;
+
+    @Autowired
+    public EventController(ChangeEvents events, UserService userService, EventsProperties properties) {
+        this.events = events;
+        this.userService = userService;
+        this.properties = properties;
+    }
+
+    @GetMapping
+    public SseEmitter subscribe(@RequestParam List<String> topics) throws IOException {
+        Set<String> subscribed = new LinkedHashSet<>(topics);
+        if (subscribed.isEmpty() || subscribed.size() > properties.getMaxTopics()) {
+            throw new ValidationException("Число тем должно быть от 1 до " + properties.getMaxTopics());
+        }
+        subscribed.forEach(this::checkTopic);
+
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        // sent before subscribing, so it never races a delivery; the client reading it is subscribed
+        emitter.send(SseEmitter.event().name("subscribed").data(subscribed, MediaType.APPLICATION_JSON));
+        AtomicLong ids = new AtomicLong();
+        ChangeEvents.Subscription subscription = events.subscribe(subscribed, properties.getBufferSize(),
+                (batch, dropped) -> {
+                    try {
+                        if (dropped > 0) {
+                            emitter.send(SseEmitter.event().name("dropped")
+                                    .data(Map.of("dropped", dropped), MediaType.APPLICATION_JSON));
+                        }
+                        for (ChangeEvent event : batch) {
+                            emitter.send(SseEmitter.event().id(Long.toString(ids.incrementAndGet()))
+                                    .name(event.getType()).data(event, MediaType.APPLICATION_JSON));
+                        }
+                    } catch (IOException e) {
+                        emitter.completeWithError(e);
+                        throw e;
+                    }
+                });
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscription.close());
+        return emitter;
+    }
+
+    private void checkTopic(String topic) {
+        if (topic.equals(ChangeEvent.POPULAR)) {
+            return;
+        }
+        if (topic.startsWith(ChangeEvent.USER)) {
+            try {
+                userService.getUserByID(Long.parseLong(topic.substring(ChangeEvent.USER.length())));
+                return;
+            } catch (NumberFormatException e) {
+                // falls through to the error below
+            }
+        }
+        throw new ValidationException("Неизвестная тема: " + topic);
+    }
+}
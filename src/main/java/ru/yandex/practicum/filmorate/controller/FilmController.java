@@ -1,17 +1,36 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+import ru.yandex.practicum.filmorate.service.CsvFormats;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ImportService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 
 /**
- * Controller for films
+ * Controller for films. GET /films, /films/{id} and /films/popular answer with an ETag from {@link ContentVersions}
+ * and with 304 to a matching If-None-Match before anything is loaded or serialized.
  */
 
 @Slf4j
@@ -19,17 +38,66 @@ import java.util.List;
 @RequestMapping("/films")
 public class FilmController {
     private FilmService filmService;
+    private ObjectMapper objectMapper;
+    private ImportService importService;
+    private ContentVersions versions;
+    private SerializedResponses<Integer> popularResponses;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper, ImportService importService,
+                          ContentVersions versions, SerializedResponses<Integer> popularResponses) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
+        this.importService = importService;
+        this.versions = versions;
+        this.popularResponses = popularResponses;
     }
 
     @GetMapping
-    public Collection<Film> findAll() {
+    public Collection<Film> findAll(WebRequest request) {
+        if (request.checkNotModified(versions.films())) {
+            return null;
+        }
         return filmService.findAll();
     }
 
+    @GetMapping("/{id}")
+    public Film getFilm(@PathVariable("id") long id, WebRequest request) {
+        if (request.checkNotModified(versions.film(id))) {
+            return null;
+        }
+        return filmService.getFilmById(id);
+    }
+
+    @GetMapping(params = "limit")
+    public List<Film> findPage(@RequestParam(defaultValue = "0") long after, @RequestParam int limit) {
+        return filmService.findPage(after, limit);
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonStream.APPLICATION_NDJSON)
+                .body(NdjsonStream.of(objectMapper, filmService::findPage, Film::getId));
+    }
+
+    @GetMapping(value = "/stream", params = "format=csv")
+    public ResponseEntity<StreamingResponseBody> streamCsv() {
+        return ResponseEntity.ok()
+                .contentType(CsvStream.TEXT_CSV)
+                .body(CsvStream.of(CsvFormats.FILMS, filmService::findPage, Film::getId));
+    }
+
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ImportReport importNdjson(InputStream body) throws IOException {
+        return importService.importFilms(body, ImportService.Format.NDJSON);
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportReport importCsv(InputStream body) throws IOException {
+        return importService.importFilms(body, ImportService.Format.CSV);
+    }
+
     @PostMapping
     public Film create(@Valid @RequestBody Film film) {
         return filmService.addFilm(film);
@@ -55,8 +123,47 @@ public class FilmController {
         filmService.unLike(id, userId);
     }
 
+    @PutMapping("/likes")
+    public List<BatchItemResult<Like>> addLikes(@RequestBody List<Like> likes) {
+        return filmService.addLikes(likes);
+    }
+
+    /**
+     * Served from {@link SerializedResponses}, so the ETag is that of the cached body.
+     */
     @GetMapping("/popular")
-    public List<Film> getPopular(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getMostLiked(count);
+    public ResponseEntity<byte[]> getPopular(@RequestParam(defaultValue = "10") int count, WebRequest request) {
+        SerializedResponses.Body popular = popularResponses.get(count, versions.films(),
+                () -> toJson(filmService.getMostLiked(count)));
+        if (request.checkNotModified(popular.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(popular.bytes());
+    }
+
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam String q, @RequestParam(defaultValue = "10") int count) {
+        return filmService.search(q, count);
+    }
+
+    @GetMapping(value = "/popular", params = "window")
+    public List<Film> getTrending(@RequestParam String window, @RequestParam(defaultValue = "10") int count) {
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Окно должно быть задано как 24h, 30m или PT24H");
+        }
+        return filmService.getTrending(duration, count);
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Writes entities as newline delimited JSON, reading them page by page,
+ * so the whole collection is never held in memory or in a single buffer.
+ */
+public final class NdjsonStream {
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final int PAGE_SIZE = 500;
+
+    private NdjsonStream() {
+    }
+
+    public interface PageLoader<T> {
+        List<T> load(long afterId, int limit);
+    }
+
+    public static <T> StreamingResponseBody of(ObjectMapper mapper, PageLoader<T> pages, ToLongFunction<T> id) {
+        ObjectWriter writer = mapper.writer();
+        return out -> {
+            long after = 0;
+            List<T> page = pages.load(after, PAGE_SIZE);
+            while (!page.isEmpty()) {
+                for (T entity : page) {
+                    out.write(writer.writeValueAsBytes(entity));
+                    out.write('\n');
+                }
+                out.flush();
+                after = id.applyAsLong(page.getLast());
+                page = pages.load(after, PAGE_SIZE);
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Serialized response bodies by request parameters, each with the ETag of the version it was computed at.
+ * A body is served while its ETag is current, and for up to {@code ttl} after it isn't, so under a steady stream
+ * of changes each body is computed and serialized at most once per ttl instead of on every request.
+ * <p>
+ * A body is computed outside the cache, its supplier may read the database: concurrent requests for a missing or
+ * outdated body each compute it, and the cache keeps the one started last, so the latest ETag read wins.
+ */
+public class SerializedResponses<K> {
+    private final Cache<K, Body> cache;
+    private final long ttlNanos;
+
+    public SerializedResponses(Duration ttl, long maximumSize) {
+        this.cache = Caffeine.newBuilder().maximumSize(maximumSize).build();
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * @param etag ETag of the current version, read before anything the body is computed from
+     */
+    public Body get(K key, String etag, Supplier<byte[]> body) {
+        Body cached = cache.getIfPresent(key);
+        if (cached != null && cached.isFresh(etag, ttlNanos)) {
+            return cached;
+        }
+        long started = System.nanoTime();
+        return cache.asMap().merge(key, new Body(etag, body.get(), started),
+                (current, fresh) -> current.createdNanos() - fresh.createdNanos() > 0 ? current : fresh);
+    }
+
+    /**
+     * @param createdNanos when the computation of the body started, after its ETag was read
+     */
+    public record Body(String etag, byte[] bytes, long createdNanos) {
+
+        private boolean isFresh(String currentEtag, long ttlNanos) {
+            return etag.equals(currentEtag) || System.nanoTime() - createdNanos < ttlNanos;
+        }
+    }
+}
@@ -1,23 +1,49 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportReport;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+import ru.yandex.practicum.filmorate.service.CsvFormats;
+import ru.yandex.practicum.filmorate.service.ImportService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.List;
 
+/**
+ * Controller for users. GET /users/{id}/friends answers with an ETag from {@link ContentVersions} and with 304
+ * to a matching If-None-Match before anything is loaded or serialized.
+ */
 @Slf4j
 @RestController
 @RequestMapping("/users")
 public class UserController {
     private UserService userService;
+    private ObjectMapper objectMapper;
+    private ImportService importService;
+    private ContentVersions versions;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ObjectMapper objectMapper, ImportService importService,
+                          ContentVersions versions) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.importService = importService;
+        this.versions = versions;
     }
 
     @GetMapping
@@ -25,6 +51,35 @@ public class UserController {
         return userService.findAll();
     }
 
+    @GetMapping(params = "limit")
+    public List<User> findPage(@RequestParam(defaultValue = "0") long after, @RequestParam int limit) {
+        return userService.findPage(after, limit);
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonStream.APPLICATION_NDJSON)
+                .body(NdjsonStream.of(objectMapper, userService::findPage, User::getId));
+    }
+
+    @GetMapping(value = "/stream", params = "format=csv")
+    public ResponseEntity<StreamingResponseBody> streamCsv() {
+        return ResponseEntity.ok()
+                .contentType(CsvStream.TEXT_CSV)
+                .body(CsvStream.of(CsvFormats.USERS, userService::findPage, User::getId));
+    }
+
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ImportReport importNdjson(InputStream body) throws IOException {
+        return importService.importUsers(body, ImportService.Format.NDJSON);
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportReport importCsv(InputStream body) throws IOException {
+        return importService.importUsers(body, ImportService.Format.CSV);
+    }
+
     @PostMapping
     public User create(@Valid @RequestBody User user) {
         return userService.addUser(user);
@@ -40,26 +95,58 @@ public class UserController {
         userService.deleteUser(deletedUser);
     }
 
+    @GetMapping("/by-login/{login}")
+    public User getByLogin(@PathVariable("login") String login) {
+        return userService.getUserByLogin(login);
+    }
+
     @PutMapping("/{userId}/friends/{friendId}")
     public void addFriend(@PathVariable("userId") long userId, @PathVariable("friendId") long friendId) {
         userService.addFriend(userId, friendId);
     }
 
+    @PutMapping("/friends")
+    public List<BatchItemResult<Friendship>> addFriends(@RequestBody List<Friendship> friendships) {
+        return userService.addFriends(friendships);
+    }
+
     @DeleteMapping("/{userId}/friends/{friendId}")
     public void deleteFriend(@PathVariable("userId") long userId, @PathVariable("friendId") long friendId) {
         userService.deleteFriend(userId, friendId);
     }
 
     @GetMapping("/{userId}/friends")
-    public Collection<User> getFriends(@PathVariable("userId") long userId) {
+    public Collection<User> getFriends(@PathVariable("userId") long userId, WebRequest request) {
+        if (request.checkNotModified(versions.friends(userId))) {
+            return null;
+        }
         return userService.getFriends(userId);
     }
 
+    @GetMapping("/{userId}/friends/requests")
+    public Collection<User> getFriendRequests(@PathVariable("userId") long userId) {
+        return userService.getFriendRequests(userId);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public Collection<User> getCommonFriends(@PathVariable("id") long id, @PathVariable("otherId") long otherId) {
         return userService.getCommonFriends(id, otherId);
     }
 
+    @GetMapping("/{userId}/recommendations")
+    public List<FriendRecommendation> getRecommendations(@PathVariable("userId") long userId,
+                                                         @RequestParam(defaultValue = "10") int count) {
+        return userService.getRecommendations(userId, count);
+    }
 
+    @GetMapping("/{userId}/recommended-films")
+    public List<Film> getRecommendedFilms(@PathVariable("userId") long userId,
+                                          @RequestParam(defaultValue = "10") int count) {
+        return userService.getRecommendedFilms(userId, count);
+    }
 
+    @GetMapping("/{userId}/likes")
+    public Collection<Film> getLikedFilms(@PathVariable("userId") long userId) {
+        return userService.getLikedFilms(userId);
+    }
 }
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a batch request: HTTP status the single-item endpoint would answer with,
+ * and the error message unless it succeeded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult<T> {
+    private T item;
+    private int status;
+    private String error;
+
+    public static <T> BatchItemResult<T> ok(T item) {
+        return new BatchItemResult<>(item, 200, null);
+    }
+
+    public static <T> BatchItemResult<T> failed(T item, int status, String error) {
+        return new BatchItemResult<>(item, status, error);
+    }
+}
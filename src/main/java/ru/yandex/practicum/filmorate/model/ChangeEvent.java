@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Notice that something a client may show has changed, sent over GET /events. It carries no state, the client
+ * reads the changed data again, so two equal events pending for a subscriber say no more than one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+    public static final String POPULAR = "popular";
+    public static final String USER = "user:";
+
+    /**
+     * Likes of the film {@code id} changed, on topic {@link #POPULAR}.
+     */
+    public static final String LIKES = "likes";
+    /**
+     * A friendship or friend request between the user of the topic and the user {@code id} changed.
+     */
+    public static final String FRIENDS = "friends";
+    /**
+     * The user of the topic, {@code id}, was deleted.
+     */
+    public static final String DELETED = "deleted";
+
+    private String topic;
+    private String type;
+    private long id;
+
+    public static String userTopic(long userId) {
+        return USER + userId;
+    }
+}
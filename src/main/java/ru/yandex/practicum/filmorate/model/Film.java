@@ -7,9 +7,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import ru.yandex.practicum.filmorate.controller.ReleaseDateConstraint;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -18,7 +18,6 @@ import java.util.Set;
  *
  */
 @Data
-@Builder
 @Slf4j
 public class Film {
     private long id;
@@ -36,8 +35,20 @@ public class Film {
     @Positive
     private int duration;
 
-    @Builder.Default
-    private Set<Long> likes = new HashSet<>();
+    private Set<Long> likes;
+
+    /**
+     * Behind {@link #builder()}: likes are stored the way {@link #setLikes} stores them, none if not given.
+     */
+    @Builder
+    Film(long id, String name, String description, LocalDate releaseDate, int duration, Set<Long> likes) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.releaseDate = releaseDate;
+        this.duration = duration;
+        setLikes(likes);
+    }
 
     public int getLikesCount() {
         return likes.size();
@@ -47,25 +58,31 @@ public class Film {
         return likes;
     }
 
-    public void like(long userId) {
-        if (isLiked(userId)) {
-            log.warn("User with id {} already liked film with id {}", userId, id);
-        } else {
-            likes.add(userId);
-            log.info("Added like to film with id {} from user with id {}", id, userId);
-        }
+    public void setLikes(Set<Long> likes) {
+        this.likes = likes instanceof LongHashSet ? likes : LongHashSet.copyOf(likes);
     }
 
-    public void unLike(long userId) {
-        if (!isLiked(userId)) {
-            log.warn("User with id {} aren't liked film with id {}, can't unlike", userId, id);
-        } else {
-            likes.remove(userId);
-            log.info("User with id {} unliked film with id {}", userId, id);
+    /**
+     * @return false if the user already liked the film
+     */
+    public boolean like(long userId) {
+        if (likes.add(userId)) {
+            log.debug("Added like to film with id {} from user with id {}", id, userId);
+            return true;
         }
+        log.debug("User with id {} already liked film with id {}", userId, id);
+        return false;
     }
 
-    private boolean isLiked(long userId) {
-        return likes.contains(userId);
+    /**
+     * @return false if the user didn't like the film
+     */
+    public boolean unLike(long userId) {
+        if (likes.remove(userId)) {
+            log.debug("User with id {} unliked film with id {}", userId, id);
+            return true;
+        }
+        log.debug("User with id {} aren't liked film with id {}, can't unlike", userId, id);
+        return false;
     }
 }
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A friend of the user's friends with the number of friends they have in common.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendRecommendation {
+    private User user;
+    private int mutualFriends;
+}
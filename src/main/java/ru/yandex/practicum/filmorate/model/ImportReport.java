@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: counts, throughput and the first rejected lines with reasons.
+ */
+@Data
+public class ImportReport {
+    public static final int MAX_ERRORS = 100;
+
+    private long imported;
+    private long rejected;
+    private double seconds;
+    private long recordsPerSecond;
+    private List<LineError> errors = new ArrayList<>();
+
+    public void reject(long line, String message) {
+        rejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new LineError(line, message));
+        }
+    }
+
+    public void finish(long nanos) {
+        seconds = nanos / 1e9;
+        recordsPerSecond = nanos == 0 ? 0 : Math.round((imported + rejected) / seconds);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+}
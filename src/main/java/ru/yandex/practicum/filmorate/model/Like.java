@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Like of a film by a user, an item of a batch request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Like {
+    private long filmId;
+    private long userId;
+}
@@ -6,17 +6,15 @@ import jakarta.validation.constraints.Pattern;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
- * User
- * @TODO add field confirmedFriend (bool)
+ * User. {@code friends} holds confirmed friends only, pending requests are kept by the storage.
  */
 @Data
-@Builder
 @Slf4j
 public class User {
     private long id;
@@ -34,32 +32,47 @@ public class User {
     @PastOrPresent
     private LocalDate birthday;
 
-    @Builder.Default
-    private Set<Long> friends = new HashSet<>();
+    private Set<Long> friends;
+
+    /**
+     * Behind {@link #builder()}: friends are stored the way {@link #setFriends} stores them, none if not given.
+     */
+    @Builder
+    User(long id, String email, String login, String password, String name, LocalDate birthday, Set<Long> friends) {
+        this.id = id;
+        this.email = email;
+        this.login = login;
+        this.password = password;
+        this.name = name;
+        this.birthday = birthday;
+        setFriends(friends);
+    }
 
     public Set<Long> getFriends() {
         return friends;
     }
 
+    public void setFriends(Set<Long> friends) {
+        this.friends = friends instanceof LongHashSet ? friends : LongHashSet.copyOf(friends);
+    }
+
     public boolean hasFriend(long friendId) {
         return friends.contains(friendId);
     }
 
     public void addFriend(long friendId) {
-        if (hasFriend(friendId)) {
-            log.warn("User with ID = {} already has friend with ID = {}", this.getId(), friendId);
+        if (friends.add(friendId)) {
+            log.debug("Added friend with ID = {} to user with ID = {}", friendId, this.getId());
         } else {
-            friends.add(friendId);
-            log.info("Added friend with ID = {} to user with ID = {}", friendId, this.getId());
+            log.debug("User with ID = {} already has friend with ID = {}", this.getId(), friendId);
         }
     }
 
     public void deleteFriend(long friendId) {
-        if (!hasFriend(friendId)) {
-            log.warn("User with ID = {} doesn't have friend with ID = {}", this.getId(), friendId);
+        if (friends.remove(friendId)) {
+            log.debug("Deleted friend with ID = {} from user with ID = {}", friendId, this.getId());
         } else {
-            friends.remove(friendId);
-            log.info("Deleted friend with ID = {} from user with ID = {}", friendId, this.getId());
+            log.debug("User with ID = {} doesn't have friend with ID = {}", this.getId(), friendId);
         }
     }
 }
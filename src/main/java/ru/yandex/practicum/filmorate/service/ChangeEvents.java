@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process bus of {@link ChangeEvent}s by topic. The services publish after a change has reached the storage,
+ * GET /events subscribes.
+ * <p>
+ * Publishing never waits for a subscriber. A subscription buffers up to its capacity of events and hands them to
+ * its listener in batches, one batch at a time, on a virtual thread; while the listener writes to a slow client
+ * the events wait in the buffer, where an event equal to a pending one is coalesced into it. An event that finds
+ * the buffer full is dropped and counted, and the next batch carries the count, so the client knows to read
+ * everything again instead of missing a change unnoticed.
+ */
+@Slf4j
+@Component
+public class ChangeEvents {
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    // a listener blocks on the client's socket, a virtual thread per delivery keeps that off any pool
+    private final ExecutorService deliveries = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param capacity events buffered for the subscriber before new ones are dropped
+     */
+    public Subscription subscribe(Collection<String> topics, int capacity, Listener listener) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        Subscription subscription = new Subscription(Set.copyOf(topics), capacity, listener);
+        for (String topic : subscription.topics) {
+            // added inside the compute, so a set emptied and removed by a closing subscription isn't added to
+            subscriptions.compute(topic, (t, subscribers) -> {
+                Set<Subscription> result = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+                result.add(subscription);
+                return result;
+            });
+        }
+        return subscription;
+    }
+
+    void likesChanged(long filmId) {
+        publish(new ChangeEvent(ChangeEvent.POPULAR, ChangeEvent.LIKES, filmId));
+    }
+
+    void friendsChanged(long userId, long otherId) {
+        publish(new ChangeEvent(ChangeEvent.userTopic(userId), ChangeEvent.FRIENDS, otherId));
+        publish(new ChangeEvent(ChangeEvent.userTopic(otherId), ChangeEvent.FRIENDS, userId));
+    }
+
+    void userDeleted(long userId, Collection<Long> friends) {
+        publish(new ChangeEvent(ChangeEvent.userTopic(userId), ChangeEvent.DELETED, userId));
+        for (long friendId : friends) {
+            publish(new ChangeEvent(ChangeEvent.userTopic(friendId), ChangeEvent.FRIENDS, userId));
+        }
+    }
+
+    void publish(ChangeEvent event) {
+        Set<Subscription> subscribers = subscriptions.get(event.getTopic());
+        if (subscribers != null) {
+            for (Subscription subscription : subscribers) {
+                subscription.offer(event);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called for one batch at a time; an exception closes the subscription.
+         *
+         * @param dropped events dropped for the full buffer since the previous batch
+         */
+        void deliver(List<ChangeEvent> events, long dropped) throws IOException;
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final Set<String> topics;
+        private final int capacity;
+        private final Listener listener;
+        // guarded by this
+        private final LinkedHashSet<ChangeEvent> buffer = new LinkedHashSet<>();
+        private long dropped;
+        private boolean delivering;
+        private boolean closed;
+
+        private Subscription(Set<String> topics, int capacity, Listener listener) {
+            this.topics = topics;
+            this.capacity = capacity;
+            this.listener = listener;
+        }
+
+        private void offer(ChangeEvent event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() < capacity || buffer.contains(event)) {
+                    buffer.add(event);
+                } else {
+                    dropped++;
+                }
+                if (delivering) {
+                    return;
+                }
+                delivering = true;
+            }
+            deliveries.execute(this::deliver);
+        }
+
+        private void deliver() {
+            while (true) {
+                List<ChangeEvent> events;
+                long lost;
+                synchronized (this) {
+                    if (closed || buffer.isEmpty() && dropped == 0) {
+                        delivering = false;
+                        return;
+                    }
+                    events = List.copyOf(buffer);
+                    lost = dropped;
+                    buffer.clear();
+                    dropped = 0;
+                }
+                try {
+                    listener.deliver(events, lost);
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Subscription to {} closed on delivery: {}", topics, e.toString());
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                buffer.clear();
+            }
+            for (String topic : topics) {
+                subscriptions.computeIfPresent(topic, (t, subscribers) -> {
+                    subscribers.remove(this);
+                    return subscribers.isEmpty() ? null : subscribers;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters of what the read endpoints return, made into ETags: a counter per collection and one per entity.
+ * The services bump them after a change has reached the storage, so a response computed after reading a version is
+ * never older than it, and an ETag that still matches means the response would be the same.
+ * <p>
+ * Entities share {@link #SLOTS} counters by id, a change of one entity also changes the ETags of the others in its
+ * slot; that costs them a full response, never a stale one. Counters start from zero on every start, so ETags carry
+ * a random epoch too. Changes made around the application, to the database directly, aren't seen.
+ */
+@Component
+public class ContentVersions {
+    static final int SLOTS = 1 << 12;
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    // films, their likes included, as GET /films and /films/popular show them
+    private final AtomicLong films = new AtomicLong();
+    // likes removed in bulk, from films not known by id
+    private final AtomicLong filmsBulk = new AtomicLong();
+    private final AtomicLongArray filmSlots = new AtomicLongArray(SLOTS);
+    // users as they show up in friend lists
+    private final AtomicLong users = new AtomicLong();
+    // friends of a user
+    private final AtomicLongArray friendSlots = new AtomicLongArray(SLOTS);
+
+    public String films() {
+        return epoch + "-" + films.get();
+    }
+
+    public String film(long filmId) {
+        return epoch + "-" + filmsBulk.get() + "." + filmSlots.get(slot(filmId));
+    }
+
+    public String friends(long userId) {
+        return epoch + "-" + users.get() + "." + friendSlots.get(slot(userId));
+    }
+
+    void filmChanged(long filmId) {
+        filmSlots.incrementAndGet(slot(filmId));
+        films.incrementAndGet();
+    }
+
+    void likesRemoved() {
+        filmsBulk.incrementAndGet();
+        films.incrementAndGet();
+    }
+
+    void userChanged() {
+        users.incrementAndGet();
+    }
+
+    void friendsChanged(long userId) {
+        friendSlots.incrementAndGet(slot(userId));
+    }
+
+    private static int slot(long id) {
+        // top 12 bits of a Fibonacci hash
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 52);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+/**
+ * CSV layout of films and users for bulk import and export, one entity per row with a header.
+ * Likes and friends are not part of it. Not a bean: a second ObjectMapper bean would replace the JSON one.
+ */
+public final class CsvFormats {
+    public static final CsvMapper MAPPER = CsvMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .enable(JsonGenerator.Feature.IGNORE_UNKNOWN)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .build();
+
+    public static final CsvSchema FILMS = CsvSchema.builder()
+            .addColumn("id")
+            .addColumn("name")
+            .addColumn("description")
+            .addColumn("releaseDate")
+            .addColumn("duration")
+            .build()
+            .withHeader();
+
+    public static final CsvSchema USERS = CsvSchema.builder()
+            .addColumn("id")
+            .addColumn("email")
+            .addColumn("login")
+            .addColumn("name")
+            .addColumn("birthday")
+            .build()
+            .withHeader();
+
+    /**
+     * Columns are taken from the header line, in any order.
+     */
+    public static final CsvSchema FROM_HEADER = CsvSchema.emptySchema().withHeader();
+
+    private CsvFormats() {
+    }
+}
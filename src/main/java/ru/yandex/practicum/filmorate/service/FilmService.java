@@ -1,71 +1,240 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class FilmService {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private FilmStorage filmStorage;
     private UserStorage userStorage;
+    private SimilarUsers similarUsers;
+    private ContentVersions versions;
+    private ChangeEvents events;
 
-    @Autowired
-    public FilmService(FilmStorage filmStorage, UserStorage userStorage) {
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, SimilarUsers similarUsers,
+                       ContentVersions versions, ChangeEvents events) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.similarUsers = similarUsers;
+        this.versions = versions;
+        this.events = events;
     }
 
     public Film addFilm(Film film) {
-        return filmStorage.addFilm(film);
+        Film added = filmStorage.addFilm(film);
+        // the id may have been asked for before, its 404 came with an ETag too
+        versions.filmChanged(added.getId());
+        return added;
+    }
+
+    public List<Film> addFilms(List<Film> films) {
+        List<Film> added = filmStorage.addFilms(films);
+        added.forEach(film -> versions.filmChanged(film.getId()));
+        return added;
     }
 
     public Film updateFilm(Film film) {
-        return filmStorage.updateFilm(film);
+        Film updated = filmStorage.updateFilm(film);
+        versions.filmChanged(film.getId());
+        return updated;
     }
 
     public void deleteFilm(Film film) {
         filmStorage.deleteFilm(film);
+        versions.filmChanged(film.getId());
     }
 
     public Collection<Film> findAll() {
         return filmStorage.findAll();
     }
 
+    public List<Film> findPage(long afterId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return filmStorage.findPage(afterId, limit);
+    }
+
+    @Timed(value = "filmorate.service", description = "Service calls")
     public void like(long filmId, long userId) {
         User liker = userStorage.getUserById(userId);
         Film liked = getFilmById(filmId);
-        liked.like(liker.getId());
+        filmStorage.like(liked, liker.getId());
+        takeBackIfDeleted(liked, userId);
+        similarUsers.invalidate(userId);
+        versions.filmChanged(filmId);
+        events.likesChanged(filmId);
     }
 
+    @Timed(value = "filmorate.service", description = "Service calls")
     public void unLike(long filmId, long userId) {
         User unliker = userStorage.getUserById(userId);
         Film unliked = getFilmById(filmId);
-            unliked.unLike(unliker.getId());
+        filmStorage.unLike(unliked, unliker.getId());
+        similarUsers.invalidate(userId);
+        versions.filmChanged(filmId);
+        events.likesChanged(filmId);
     }
 
+    /**
+     * Looks up all films and users of the batch at once and hands the valid likes to storage in one call.
+     * Results go in the order of the request.
+     */
+    public List<BatchItemResult<Like>> addLikes(List<Like> likes) {
+        if (likes.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("В пакете должно быть не больше " + MAX_BATCH_SIZE + " элементов");
+        }
+        Set<Long> films = filmStorage.getFilmsByIds(likes.stream().filter(Objects::nonNull)
+                        .mapToLong(Like::getFilmId).distinct().toArray()).stream()
+                .map(Film::getId)
+                .collect(Collectors.toSet());
+        Set<Long> users = userStorage.getUsersByIds(likes.stream().filter(Objects::nonNull)
+                        .mapToLong(Like::getUserId).distinct().toArray()).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        List<BatchItemResult<Like>> results = new ArrayList<>(likes.size());
+        List<Like> valid = new ArrayList<>(likes.size());
+        for (Like like : likes) {
+            if (like == null) {
+                results.add(BatchItemResult.failed(null, 400, "Пустой элемент пакета"));
+            } else if (!films.contains(like.getFilmId())) {
+                results.add(BatchItemResult.failed(like, 404, "Фильм с ID = " + like.getFilmId() + " не найден"));
+            } else if (!users.contains(like.getUserId())) {
+                results.add(BatchItemResult.failed(like, 404,
+                        "Пользователь с ID = " + like.getUserId() + " не найден"));
+            } else {
+                valid.add(like);
+                results.add(BatchItemResult.ok(like));
+            }
+        }
+        filmStorage.addLikes(valid);
+        long[] likers = valid.stream().mapToLong(Like::getUserId).distinct().toArray();
+        Set<Long> stillThere = userStorage.getUsersByIds(likers).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        // likes of users deleted meanwhile, see takeBackIfDeleted
+        Arrays.stream(likers).filter(userId -> !stillThere.contains(userId)).forEach(filmStorage::removeUserLikes);
+        Arrays.stream(likers).forEach(similarUsers::invalidate);
+        valid.stream().mapToLong(Like::getFilmId).distinct().forEach(filmId -> {
+            versions.filmChanged(filmId);
+            events.likesChanged(filmId);
+        });
+        return results;
+    }
+
+    @Timed(value = "filmorate.service", description = "Service calls")
     public List<Film> getMostLiked(int count) {
-        return filmStorage.findAll().stream()
-                .sorted(Comparator.comparingInt(Film::getLikesCount).reversed())
-                .limit(count)
-                .collect(Collectors.toList());
+        return filmStorage.getMostLiked(count);
+    }
+
+    @Timed(value = "filmorate.service", description = "Service calls")
+    public List<Film> getTrending(Duration window, int count) {
+        if (window.isNegative() || window.isZero()) {
+            throw new ValidationException("Окно должно быть больше нуля");
+        }
+        if (count < 1 || count > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр count должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return filmStorage.getTrending(window, count);
     }
 
+    @Timed(value = "filmorate.service", description = "Service calls")
+    public List<Film> search(String query, int count) {
+        if (FilmSearchIndex.terms(query).length == 0) {
+            throw new ValidationException("Запрос должен содержать буквы или цифры");
+        }
+        if (count < 1 || count > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр count должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return filmStorage.search(query, count);
+    }
+
+    /**
+     * Removes a like whose user was deleted after the like had checked them: {@link UserService#deleteUser} sweeps
+     * the user's likes once more after deleting the user, so a like stored before the deletion is swept and one
+     * stored after it finds the user gone here.
+     */
+    private void takeBackIfDeleted(Film film, long userId) {
+        try {
+            userStorage.getUserById(userId);
+        } catch (NotFoundException e) {
+            filmStorage.unLike(film, userId);
+            throw e;
+        }
+    }
+
+    @Timed(value = "filmorate.service", description = "Service calls")
     public void removeAllUserLikes(long userId) {
-        for (Film film : findAll()) {
-            film.unLike(userId);
+        long[] liked = filmStorage.getLikedFilmIds(new long[]{userId}).getOrDefault(userId, new long[0]);
+        filmStorage.removeUserLikes(userId);
+        similarUsers.invalidate(userId);
+        versions.likesRemoved();
+        for (long filmId : liked) {
+            events.likesChanged(filmId);
         }
     }
 
+    public List<Film> getLikedFilms(long userId) {
+        userStorage.getUserById(userId);
+        return filmStorage.getLikedFilms(userId);
+    }
+
+    /**
+     * Films liked by the users most similar to this one (see {@link SimilarUsers}) but not by the user,
+     * each scored by the sum of the similarities of the users who liked it. Ties go to the lower id.
+     * Users are expected to be checked by the caller.
+     */
+    @Timed(value = "filmorate.service", description = "Service calls")
+    public List<Film> getRecommendedFilms(long userId, int count) {
+        long[] liked = filmStorage.getLikedFilmIds(new long[]{userId}).get(userId);
+        if (liked == null) {
+            return List.of();
+        }
+        List<SimilarUsers.Similar> similar = similarUsers.of(userId, liked);
+        Map<Long, long[]> theirs = filmStorage.getLikedFilmIds(similar.stream()
+                .mapToLong(SimilarUsers.Similar::userId).toArray());
+        Map<Long, Double> scores = new HashMap<>();
+        for (SimilarUsers.Similar user : similar) {
+            for (long filmId : theirs.getOrDefault(user.userId(), new long[0])) {
+                // liked is sorted
+                if (Arrays.binarySearch(liked, filmId) < 0) {
+                    scores.merge(filmId, user.jaccard(), Double::sum);
+                }
+            }
+        }
+        return filmStorage.getFilmsByIds(scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(count)
+                .mapToLong(Map.Entry::getKey)
+                .toArray());
+    }
+
     public Film getFilmById(long id) {
         return filmStorage.getFilmById(id);
     }
@@ -0,0 +1,212 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of films and users from NDJSON or CSV. The upload is read record by record and stored
+ * {@link #BATCH_SIZE} records at a time, so memory doesn't depend on its size.
+ * Records are validated with the same constraints as POST /films and POST /users; ids are assigned anew,
+ * likes and friends are dropped since they refer to ids of the source. A user whose email or login is taken is
+ * rejected with its line.
+ */
+@Slf4j
+@Service
+public class ImportService {
+    public static final int BATCH_SIZE = 1000;
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Autowired
+    public ImportService(FilmService filmService, UserService userService, ObjectMapper objectMapper,
+                         Validator validator) {
+        this.filmService = filmService;
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    public ImportReport importFilms(InputStream body, Format format) throws IOException {
+        return importRecords(body, format, Film.class, film -> film.setLikes(new LongHashSet()),
+                filmService::addFilms);
+    }
+
+    public ImportReport importUsers(InputStream body, Format format) throws IOException {
+        return importRecords(body, format, User.class, user -> user.setFriends(new LongHashSet()),
+                userService::addUsers);
+    }
+
+    private <T> ImportReport importRecords(InputStream body, Format format, Class<T> type, Consumer<T> prepare,
+                                           Consumer<List<T>> sink) throws IOException {
+        long started = System.nanoTime();
+        ImportReport report = new ImportReport();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Records<T> records = format == Format.CSV ? new CsvRecords<>(reader, type) : new NdjsonRecords<>(reader,
+                objectMapper.readerFor(type));
+        List<T> batch = new ArrayList<>(BATCH_SIZE);
+        List<Long> lines = new ArrayList<>(BATCH_SIZE);
+        for (Parsed<T> record = records.next(); record != null; record = records.next()) {
+            String error = record.error() != null ? record.error() : validate(record.value());
+            if (error != null) {
+                report.reject(record.line(), error);
+                continue;
+            }
+            prepare.accept(record.value());
+            batch.add(record.value());
+            lines.add(record.line());
+            if (batch.size() == BATCH_SIZE) {
+                store(batch, lines, sink, report);
+                batch = new ArrayList<>(BATCH_SIZE);
+                lines = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            store(batch, lines, sink, report);
+        }
+        report.finish(System.nanoTime() - started);
+        log.info("Imported {} {} records from {}, rejected {}, {} records/s", report.getImported(),
+                type.getSimpleName(), format, report.getRejected(), report.getRecordsPerSecond());
+        return report;
+    }
+
+    /**
+     * Stores the batch in one call. A batch refused for a taken key is stored record by record,
+     * so only the records that clash are rejected.
+     */
+    private <T> void store(List<T> batch, List<Long> lines, Consumer<List<T>> sink, ImportReport report) {
+        try {
+            sink.accept(batch);
+            report.setImported(report.getImported() + batch.size());
+        } catch (ConflictException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    sink.accept(List.of(batch.get(i)));
+                    report.setImported(report.getImported() + 1);
+                } catch (ConflictException conflict) {
+                    report.reject(lines.get(i), conflict.getMessage());
+                }
+            }
+        }
+    }
+
+    private <T> String validate(T value) {
+        try {
+            Set<ConstraintViolation<T>> violations = validator.validate(value);
+            if (violations.isEmpty()) {
+                return null;
+            }
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        } catch (jakarta.validation.ValidationException e) {
+            // a validator that fails on a missing value, e.g. the release date one
+            return e.getMessage();
+        }
+    }
+
+    private record Parsed<T>(long line, T value, String error) {
+    }
+
+    private interface Records<T> {
+        /**
+         * Next record or null at the end of the upload.
+         */
+        Parsed<T> next() throws IOException;
+    }
+
+    private static class NdjsonRecords<T> implements Records<T> {
+        private final BufferedReader reader;
+        private final ObjectReader json;
+        private long line;
+
+        NdjsonRecords(BufferedReader reader, ObjectReader json) {
+            this.reader = reader;
+            this.json = json;
+        }
+
+        @Override
+        public Parsed<T> next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                T value = json.readValue(text);
+                // a literal null parses fine and would fail the validator for the whole upload
+                return value == null
+                        ? new Parsed<>(line, null, "Запись должна быть объектом, а не null")
+                        : new Parsed<>(line, value, null);
+            } catch (JsonProcessingException e) {
+                return new Parsed<>(line, null, e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static class CsvRecords<T> implements Records<T> {
+        private final MappingIterator<T> rows;
+        private boolean broken;
+
+        CsvRecords(BufferedReader reader, Class<T> type) throws IOException {
+            rows = CsvFormats.MAPPER.readerFor(type).with(CsvFormats.FROM_HEADER).readValues(reader);
+        }
+
+        @Override
+        public Parsed<T> next() {
+            if (broken) {
+                return null;
+            }
+            long line = rows.getCurrentLocation().getLineNr();
+            try {
+                if (!rows.hasNextValue()) {
+                    return null;
+                }
+                line = rows.getCurrentLocation().getLineNr();
+                return new Parsed<>(line, rows.nextValue(), null);
+            } catch (JsonMappingException e) {
+                // a bad value fails only its row, the iterator skips to the next one
+                return new Parsed<>(line, null, e.getOriginalMessage());
+            } catch (IOException e) {
+                // broken quoting, the rest of the upload can't be split into rows
+                broken = true;
+                return new Parsed<>(line, null, e.getMessage());
+            }
+        }
+    }
+}
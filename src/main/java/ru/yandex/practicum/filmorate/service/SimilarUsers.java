@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.util.LongSets;
+import ru.yandex.practicum.filmorate.util.SecondDegree;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Users whose likes overlap the most with a user's, by Jaccard index of the two like sets.
+ * <p>
+ * Only users who liked at least one of the user's films can overlap, so candidates are the likers of those films,
+ * counted by {@link SecondDegree}: the count of each candidate is the size of the intersection. Films and their
+ * likers are sampled down to {@link #FAN_OUT} each, and only the {@link #CANDIDATES} candidates with the largest
+ * intersection get their like sets loaded for the union size.
+ * <p>
+ * Results are cached per user. A like or unlike of the user drops their entry, so an entry is recomputed only
+ * for users whose own likes changed; changes of the other users' likes reach it within the cache's
+ * expire-after-write, see filmorate.similar-users.* in application.properties.
+ */
+public class SimilarUsers {
+    static final int FAN_OUT = 1000;
+    static final int CANDIDATES = 200;
+    static final int NEIGHBOURS = 30;
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    public static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+    private static final Comparator<Similar> MOST_SIMILAR = Comparator.comparingDouble(Similar::jaccard).reversed()
+            .thenComparingLong(Similar::userId);
+
+    private final FilmStorage filmStorage;
+    private final Cache<Long, List<Similar>> cache;
+
+    public SimilarUsers(FilmStorage filmStorage) {
+        this(filmStorage, DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_WRITE);
+    }
+
+    public SimilarUsers(FilmStorage filmStorage, long maximumSize, Duration expireAfterWrite) {
+        this.filmStorage = filmStorage;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * Up to {@link #NEIGHBOURS} users most similar to the user, given the sorted ids of the films they liked.
+     */
+    List<Similar> of(long userId, long[] liked) {
+        List<Similar> cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        // computed outside of the cache so storage calls don't run under its locks; a concurrent invalidation
+        // may be overwritten by an older result, expiry bounds that too
+        List<Similar> similar = compute(userId, liked);
+        cache.put(userId, similar);
+        return similar;
+    }
+
+    void invalidate(long userId) {
+        cache.invalidate(userId);
+    }
+
+    private List<Similar> compute(long userId, long[] liked) {
+        List<Film> films = filmStorage.getFilmsByIds(LongSets.sample(liked, FAN_OUT));
+        long[][] likers = new long[films.size()][];
+        for (int i = 0; i < likers.length; i++) {
+            likers[i] = LongSets.sample(films.get(i).getLikes(), FAN_OUT);
+        }
+        List<SecondDegree.Candidate> candidates = SecondDegree.rank(userId, Set.of(), likers, CANDIDATES);
+        Map<Long, long[]> theirs = filmStorage.getLikedFilmIds(candidates.stream()
+                .mapToLong(SecondDegree.Candidate::id).toArray());
+        return candidates.stream()
+                .filter(candidate -> theirs.containsKey(candidate.id()))
+                .map(candidate -> {
+                    int union = liked.length + theirs.get(candidate.id()).length - candidate.shared();
+                    // likes may have changed between the reads
+                    return new Similar(candidate.id(), Math.min(1, (double) candidate.shared() / Math.max(1, union)));
+                })
+                .sorted(MOST_SIMILAR)
+                .limit(NEIGHBOURS)
+                .toList();
+    }
+
+    record Similar(long userId, double jaccard) {
+    }
+}
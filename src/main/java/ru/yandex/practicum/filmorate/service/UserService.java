@@ -1,77 +1,224 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendRecommendation;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongSets;
+import ru.yandex.practicum.filmorate.util.SecondDegree;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 @Service
 @Slf4j
 public class UserService {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final int MAX_RECOMMENDATIONS = 100;
+    /**
+     * Friends of the user, and friends of each of them, taken into account for recommendations.
+     */
+    public static final int RECOMMENDATION_FAN_OUT = 1000;
+
     private UserStorage userStorage;
     private FilmService filmService;
+    private ContentVersions versions;
+    private ChangeEvents events;
 
-    @Autowired
-    public UserService(UserStorage userStorage, FilmService filmService) {
+    public UserService(UserStorage userStorage, FilmService filmService, ContentVersions versions,
+                       ChangeEvents events) {
         this.userStorage = userStorage;
         this.filmService = filmService;
+        this.versions = versions;
+        this.events = events;
     }
 
     public User addUser(User user) {
-        return userStorage.addUser(user);
+        User added = userStorage.addUser(user);
+        // the friends of the id may have been asked for before, their 404 came with an ETag too
+        versions.friendsChanged(added.getId());
+        return added;
+    }
+
+    public List<User> addUsers(List<User> users) {
+        List<User> added = userStorage.addUsers(users);
+        added.forEach(user -> versions.friendsChanged(user.getId()));
+        return added;
     }
 
     public User updateUser(User user) {
-        return userStorage.updateUser(user);
+        User updated = userStorage.updateUser(user);
+        versions.userChanged();
+        return updated;
     }
 
+    /**
+     * Likes are removed before the user, so the JDBC storage's cascade leaves nothing for caches and events to miss,
+     * and once more after: a like that checked the user before the deletion but was stored after the first sweep
+     * is caught by the second, a later one by {@link FilmService#like} itself.
+     */
+    @Timed(value = "filmorate.service", description = "Service calls")
     public void deleteUser(User user) {
-        //iterate over all users and remove deleted user from friends
-        for (User usr : userStorage.findAll()) {
-            usr.deleteFriend(user.getId());
-        }
+        Set<Long> friends = Set.copyOf(getUserByID(user.getId()).getFriends());
         filmService.removeAllUserLikes(user.getId());
         userStorage.deleteUser(user);
+        filmService.removeAllUserLikes(user.getId());
+        versions.userChanged();
+        events.userDeleted(user.getId(), friends);
     }
 
     public Collection<User> findAll() {
         return userStorage.findAll();
     }
 
+    public List<User> findPage(long afterId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return userStorage.findPage(afterId, limit);
+    }
+
+    /**
+     * Sends a friend request from the first user to the second, or confirms the second user's request.
+     */
+    @Timed(value = "filmorate.service", description = "Service calls")
     public void addFriend(long id1, long id2) throws NotFoundException {
+        if (id1 == id2) {
+            throw new ValidationException("Нельзя добавить в друзья самого себя");
+        }
         User user1 = getUserByID(id1);
         User user2 = getUserByID(id2);
-        user1.addFriend(id2);
-        user2.addFriend(id1);
+        userStorage.addFriend(user1, user2);
+        versions.friendsChanged(id1);
+        versions.friendsChanged(id2);
+        events.friendsChanged(id1, id2);
+    }
+
+    /**
+     * Looks up all users of the batch at once and hands the valid friendships to storage in one call.
+     * Results go in the order of the request.
+     */
+    public List<BatchItemResult<Friendship>> addFriends(List<Friendship> friendships) {
+        if (friendships.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("В пакете должно быть не больше " + MAX_BATCH_SIZE + " элементов");
+        }
+        Set<Long> users = userStorage.getUsersByIds(friendships.stream().filter(Objects::nonNull)
+                        .flatMapToLong(f -> LongStream.of(f.getUserId(), f.getFriendId())).distinct().toArray())
+                .stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        List<BatchItemResult<Friendship>> results = new ArrayList<>(friendships.size());
+        List<Friendship> valid = new ArrayList<>(friendships.size());
+        for (Friendship friendship : friendships) {
+            if (friendship == null) {
+                results.add(BatchItemResult.failed(null, 400, "Пустой элемент пакета"));
+            } else if (friendship.getUserId() == friendship.getFriendId()) {
+                results.add(BatchItemResult.failed(friendship, 400, "Нельзя добавить в друзья самого себя"));
+            } else if (!users.contains(friendship.getUserId())) {
+                results.add(BatchItemResult.failed(friendship, 404,
+                        "Пользователь с ID = " + friendship.getUserId() + " не найден"));
+            } else if (!users.contains(friendship.getFriendId())) {
+                results.add(BatchItemResult.failed(friendship, 404,
+                        "Пользователь с ID = " + friendship.getFriendId() + " не найден"));
+            } else {
+                valid.add(friendship);
+                results.add(BatchItemResult.ok(friendship));
+            }
+        }
+        userStorage.addFriends(valid);
+        valid.stream().flatMapToLong(f -> LongStream.of(f.getUserId(), f.getFriendId())).distinct()
+                .forEach(versions::friendsChanged);
+        valid.forEach(f -> events.friendsChanged(f.getUserId(), f.getFriendId()));
+        return results;
     }
 
     public void deleteFriend(long id1, long id2) throws NotFoundException {
         User user1 = getUserByID(id1);
         User user2 = getUserByID(id2);
-        user1.deleteFriend(id2);
-        user2.deleteFriend(id1);
+        userStorage.deleteFriend(user1, user2);
+        versions.friendsChanged(id1);
+        versions.friendsChanged(id2);
+        events.friendsChanged(id1, id2);
     }
 
-    public Set<User> getCommonFriends(long id1, long id2) throws NotFoundException {
+    @Timed(value = "filmorate.service", description = "Service calls")
+    public List<User> getCommonFriends(long id1, long id2) throws NotFoundException {
         User user1 = getUserByID(id1);
         User user2 = getUserByID(id2);
-        Set<Long> ids = user1.getFriends();
-        ids.retainAll(user2.getFriends());
-        return ids.stream().map(this::getUserByID).collect(Collectors.toSet());
+        return userStorage.getUsersByIds(LongSets.intersect(user1.getFriends(), user2.getFriends()));
     }
 
-    public Set<User> getFriends(long id) throws NotFoundException {
+    /**
+     * Friends of friends by the number of mutual friends. A user with more than {@link #RECOMMENDATION_FAN_OUT}
+     * friends is looked at through a sample of them, and so is each friend, so a hub costs at most
+     * FAN_OUT² ids to count.
+     */
+    @Timed(value = "filmorate.service", description = "Service calls")
+    public List<FriendRecommendation> getRecommendations(long id, int count) throws NotFoundException {
+        if (count < 1 || count > MAX_RECOMMENDATIONS) {
+            throw new ValidationException("Параметр count должен быть от 1 до " + MAX_RECOMMENDATIONS);
+        }
         User user = getUserByID(id);
-        return user.getFriends().stream().map(this::getUserByID).collect(Collectors.toSet());
+        List<User> friends = userStorage.getUsersByIds(LongSets.sample(user.getFriends(), RECOMMENDATION_FAN_OUT));
+        long[][] adjacency = new long[friends.size()][];
+        for (int i = 0; i < adjacency.length; i++) {
+            adjacency[i] = LongSets.sample(friends.get(i).getFriends(), RECOMMENDATION_FAN_OUT);
+        }
+        List<SecondDegree.Candidate> candidates = SecondDegree.rank(id, user.getFriends(), adjacency, count);
+        Map<Long, User> users = userStorage.getUsersByIds(candidates.stream()
+                        .mapToLong(SecondDegree.Candidate::id).toArray()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return candidates.stream()
+                .filter(candidate -> users.containsKey(candidate.id()))
+                .map(candidate -> new FriendRecommendation(users.get(candidate.id()), candidate.shared()))
+                .toList();
+    }
+
+    @Timed(value = "filmorate.service", description = "Service calls")
+    public List<Film> getRecommendedFilms(long id, int count) throws NotFoundException {
+        if (count < 1 || count > MAX_RECOMMENDATIONS) {
+            throw new ValidationException("Параметр count должен быть от 1 до " + MAX_RECOMMENDATIONS);
+        }
+        getUserByID(id);
+        return filmService.getRecommendedFilms(id, count);
+    }
+
+    public List<User> getFriends(long id) throws NotFoundException {
+        User user = getUserByID(id);
+        return userStorage.getUsersByIds(LongSets.toSortedArray(user.getFriends()));
+    }
+
+    /**
+     * Users whose friend requests to the user wait for confirmation, by id.
+     */
+    public List<User> getFriendRequests(long id) throws NotFoundException {
+        return userStorage.getUsersByIds(userStorage.getFriendRequests(id));
+    }
+
+    public List<Film> getLikedFilms(long id) throws NotFoundException {
+        return filmService.getLikedFilms(id);
     }
 
     public User getUserByID(long id) {
         return userStorage.getUserById(id);
     }
+
+    public User getUserByLogin(String login) {
+        return userStorage.getUserByLogin(login);
+    }
 }
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Binary form of films and users shared by the write-ahead log and snapshots.
+ * Id sets are sorted and stored as varint deltas, a like usually takes one or two bytes.
+ */
+final class BinaryRecords {
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private BinaryRecords() {
+    }
+
+    static void writeFilm(DataOutput out, Film film) throws IOException {
+        out.writeLong(film.getId());
+        writeString(out, film.getName());
+        writeString(out, film.getDescription());
+        writeDate(out, film.getReleaseDate());
+        out.writeInt(film.getDuration());
+        writeIds(out, film.getLikes());
+    }
+
+    static Film readFilm(ByteBuffer in) {
+        return Film.builder()
+                .id(in.getLong())
+                .name(readString(in))
+                .description(readString(in))
+                .releaseDate(readDate(in))
+                .duration(in.getInt())
+                .likes(readIds(in))
+                .build();
+    }
+
+    static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeLong(user.getId());
+        writeString(out, user.getEmail());
+        writeString(out, user.getLogin());
+        writeString(out, user.getPassword());
+        writeString(out, user.getName());
+        writeDate(out, user.getBirthday());
+        writeIds(out, user.getFriends());
+    }
+
+    static User readUser(ByteBuffer in) {
+        return User.builder()
+                .id(in.getLong())
+                .email(readString(in))
+                .login(readString(in))
+                .password(readString(in))
+                .name(readString(in))
+                .birthday(readDate(in))
+                .friends(readIds(in))
+                .build();
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(ByteBuffer in) {
+        long epochDay = in.getLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static void writeIds(DataOutput out, Set<Long> ids) throws IOException {
+        long[] sorted = ids instanceof LongHashSet set ? set.toLongArray()
+                : ids.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        writeVarLong(out, sorted.length);
+        long previous = 0;
+        for (long id : sorted) {
+            // unsigned difference, wraps back on read
+            writeVarLong(out, id - previous);
+            previous = id;
+        }
+    }
+
+    private static LongHashSet readIds(ByteBuffer in) {
+        int size = (int) readVarLong(in);
+        LongHashSet ids = new LongHashSet(size);
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += readVarLong(in);
+            ids.add(previous);
+        }
+        return ids;
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
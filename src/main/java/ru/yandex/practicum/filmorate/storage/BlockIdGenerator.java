@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Hands out ids from blocks reserved in advance, so a persistent backend
+ * is asked for a new range once per {@code blockSize} inserts.
+ * Ids are unique but not strictly ordered between threads.
+ */
+public class BlockIdGenerator implements IdGenerator {
+    private final IntToLongFunction reserve;
+    private final int blockSize;
+    private final ReentrantLock refill = new ReentrantLock();
+    private volatile Block block = new Block(0, 0);
+    // ids up to floor are taken by restored entities, guarded by refill
+    private long floor;
+
+    /**
+     * @param reserve   reserves {@code blockSize} consecutive ids and returns the first one
+     * @param blockSize number of ids taken from {@code reserve} at once
+     */
+    public BlockIdGenerator(IntToLongFunction reserve, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.reserve = reserve;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return id;
+            }
+            refill.lock();
+            try {
+                if (block == current) {
+                    long first = reserve.applyAsLong(blockSize);
+                    block = new Block(Math.max(first, floor + 1), first + blockSize);
+                }
+            } finally {
+                refill.unlock();
+            }
+        }
+    }
+
+    /**
+     * Moves the current block past {@code id}; blocks reserved later start after it too, a block
+     * wholly below it is dropped and the next one reserved.
+     */
+    @Override
+    public void skipTo(long id) {
+        refill.lock();
+        try {
+            floor = Math.max(floor, id);
+            block.next.accumulateAndGet(id + 1, Math::max);
+        } finally {
+            refill.unlock();
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+final class CacheLoads {
+    private CacheLoads() {
+    }
+
+    /**
+     * Waits for a cache load and rethrows its failure as is, e.g. NotFoundException of a missing entity.
+     */
+    static <T> T join(CompletableFuture<T> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.annotation.Timed;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of films by id in front of another storage.
+ * Every write goes to the storage first and then drops the touched entries, the next read loads them again.
+ * Loads run on the cache's executor, so an invalidation never waits for a load and a load that started
+ * before the write can't put its stale result back.
+ */
+@Timed(value = "filmorate.storage", description = "Storage calls")
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmStorage delegate;
+    private final AsyncCache<Long, Film> films;
+
+    public CachingFilmStorage(FilmStorage delegate, AsyncCache<Long, Film> films) {
+        this.delegate = delegate;
+        this.films = films;
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        Film added = delegate.addFilm(film);
+        films.put(added.getId(), CompletableFuture.completedFuture(added));
+        return added;
+    }
+
+    // not cached, a bulk import would push the hot entries out
+    @Override
+    public List<Film> addFilms(List<Film> batch) {
+        return delegate.addFilms(batch);
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        try {
+            return delegate.updateFilm(film);
+        } finally {
+            films.synchronous().invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public void deleteFilm(Film film) {
+        try {
+            delegate.deleteFilm(film);
+        } finally {
+            films.synchronous().invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public Film getFilmById(long id) {
+        return CacheLoads.join(films.get(id, (key, executor) ->
+                CompletableFuture.supplyAsync(() -> delegate.getFilmById(key), executor)));
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(long[] ids) {
+        Map<Long, Film> found = CacheLoads.join(films.getAll(Arrays.stream(ids).boxed().toList(),
+                (missing, executor) -> CompletableFuture.supplyAsync(() -> delegate
+                        .getFilmsByIds(missing.stream().mapToLong(Long::longValue).toArray()).stream()
+                        .collect(Collectors.toMap(Film::getId, Function.identity())), executor)));
+        List<Film> result = new ArrayList<>(found.size());
+        for (long id : ids) {
+            Film film = found.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public long countFilms() {
+        return delegate.countFilms();
+    }
+
+    @Override
+    public long countLikes() {
+        return delegate.countLikes();
+    }
+
+    @Override
+    public void like(Film film, long userId) {
+        try {
+            delegate.like(film, userId);
+        } finally {
+            films.synchronous().invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public void unLike(Film film, long userId) {
+        try {
+            delegate.unLike(film, userId);
+        } finally {
+            films.synchronous().invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public void addLikes(Collection<Like> likes) {
+        try {
+            delegate.addLikes(likes);
+        } finally {
+            films.synchronous().invalidateAll(likes.stream().map(Like::getFilmId).distinct().toList());
+        }
+    }
+
+    @Override
+    public List<Film> getMostLiked(int count) {
+        return delegate.getMostLiked(count);
+    }
+
+    @Override
+    public List<Film> getTrending(Duration window, int count) {
+        return delegate.getTrending(window, count);
+    }
+
+    @Override
+    public List<Film> search(String query, int count) {
+        return delegate.search(query, count);
+    }
+
+    @Override
+    public List<Film> getLikedFilms(long userId) {
+        return delegate.getLikedFilms(userId);
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIds(long[] userIds) {
+        return delegate.getLikedFilmIds(userIds);
+    }
+
+    @Override
+    public void removeUserLikes(long userId) {
+        List<Long> liked = delegate.getLikedFilms(userId).stream().map(Film::getId).toList();
+        try {
+            delegate.removeUserLikes(userId);
+        } finally {
+            films.synchronous().invalidateAll(liked);
+        }
+    }
+
+    public CacheStats stats() {
+        return films.synchronous().stats();
+    }
+
+    public long estimatedSize() {
+        return films.synchronous().estimatedSize();
+    }
+}
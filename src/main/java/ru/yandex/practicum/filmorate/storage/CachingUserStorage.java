@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.annotation.Timed;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache of users by id in front of another storage, works the same way as {@link CachingFilmStorage}.
+ * A friendship change drops both users, deleting a user also drops everyone who had them as a friend.
+ */
+@Timed(value = "filmorate.storage", description = "Storage calls")
+public class CachingUserStorage implements UserStorage {
+    private final UserStorage delegate;
+    private final AsyncCache<Long, User> users;
+
+    public CachingUserStorage(UserStorage delegate, AsyncCache<Long, User> users) {
+        this.delegate = delegate;
+        this.users = users;
+    }
+
+    @Override
+    public User addUser(User user) {
+        User added = delegate.addUser(user);
+        users.put(added.getId(), CompletableFuture.completedFuture(added));
+        return added;
+    }
+
+    // not cached, a bulk import would push the hot entries out
+    @Override
+    public List<User> addUsers(List<User> batch) {
+        return delegate.addUsers(batch);
+    }
+
+    @Override
+    public User updateUser(User user) {
+        try {
+            return delegate.updateUser(user);
+        } finally {
+            users.synchronous().invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public void deleteUser(User user) {
+        List<Long> touched = new ArrayList<>(delegate.getUserById(user.getId()).getFriends());
+        touched.add(user.getId());
+        try {
+            delegate.deleteUser(user);
+        } finally {
+            users.synchronous().invalidateAll(touched);
+        }
+    }
+
+    @Override
+    public User getUserById(long id) {
+        return CacheLoads.join(users.get(id, (key, executor) ->
+                CompletableFuture.supplyAsync(() -> delegate.getUserById(key), executor)));
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return delegate.getUserByEmail(email);
+    }
+
+    @Override
+    public User getUserByLogin(String login) {
+        return delegate.getUserByLogin(login);
+    }
+
+    /**
+     * Cached users are taken as is, the rest are loaded with one call to the storage.
+     */
+    @Override
+    public List<User> getUsersByIds(long[] ids) {
+        Map<Long, User> found = CacheLoads.join(users.getAll(Arrays.stream(ids).boxed().toList(),
+                (missing, executor) -> CompletableFuture.supplyAsync(() -> delegate
+                        .getUsersByIds(missing.stream().mapToLong(Long::longValue).toArray()).stream()
+                        .collect(Collectors.toMap(User::getId, Function.identity())), executor)));
+        List<User> result = new ArrayList<>(found.size());
+        for (long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public long countUsers() {
+        return delegate.countUsers();
+    }
+
+    @Override
+    public long countFriends() {
+        return delegate.countFriends();
+    }
+
+    // requests aren't part of the cached user
+    @Override
+    public long[] getFriendRequests(long userId) {
+        return delegate.getFriendRequests(userId);
+    }
+
+    @Override
+    public void addFriend(User user, User friend) {
+        try {
+            delegate.addFriend(user, friend);
+        } finally {
+            users.synchronous().invalidateAll(List.of(user.getId(), friend.getId()));
+        }
+    }
+
+    @Override
+    public void addFriends(Collection<Friendship> requests) {
+        try {
+            delegate.addFriends(requests);
+        } finally {
+            users.synchronous().invalidateAll(requests.stream()
+                    .flatMap(f -> Stream.of(f.getUserId(), f.getFriendId()))
+                    .distinct()
+                    .toList());
+        }
+    }
+
+    @Override
+    public void deleteFriend(User user, User friend) {
+        try {
+            delegate.deleteFriend(user, friend);
+        } finally {
+            users.synchronous().invalidateAll(List.of(user.getId(), friend.getId()));
+        }
+    }
+
+    public CacheStats stats() {
+        return users.synchronous().stats();
+    }
+
+    public long estimatedSize() {
+        return users.synchronous().estimatedSize();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * When a mutation is acknowledged relative to the write-ahead log reaching the disk.
+ */
+public enum Durability {
+    /**
+     * Every writer forces the log itself, concurrent writers share a force when they can.
+     */
+    SYNC,
+    /**
+     * Writers wait for the background flusher, which forces the log once per flush interval.
+     */
+    GROUP,
+    /**
+     * Writers don't wait, the flusher forces the log once per flush interval:
+     * a crash can lose the last interval of mutations.
+     */
+    ASYNC
+}
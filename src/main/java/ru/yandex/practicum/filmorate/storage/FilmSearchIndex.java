@@ -0,0 +1,350 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Inverted index over film names and descriptions, for search by words and word prefixes.
+ * <p>
+ * Text is split into terms, lower-cased runs of letters and digits of any script with ё folded into е, so Russian
+ * and English need no separate rules. Terms are sorted, so the terms starting with a prefix are one range of the
+ * map. Each film keeps its own terms and like count: candidates are scored against them, and an update or delete
+ * takes exactly them out of the postings.
+ * <p>
+ * A query matches films having every query word as a term, or as a prefix of a term when the word is at least
+ * {@link #MIN_PREFIX} long. Candidates come from the rarest word only and are checked against the film's terms for
+ * the others. Postings of a term are split by field and by likes tier, {@link #TIERS_PER_DOUBLING} tiers each
+ * time likes double, and each such bucket has an upper bound of the score of its films. Buckets are read in order
+ * of the bound until it drops to the k-th best score found, the way {@link TrendingIndex} walks its ranking;
+ * the bound depends only on the field, the tier and whether the term is the word itself, so the buckets of all
+ * terms with a prefix are grouped by those rather than sorted one by one. At most {@link #MAX_CANDIDATES} films are scored per query.
+ */
+public class FilmSearchIndex {
+    public static final int MIN_PREFIX = 3;
+    public static final int MAX_QUERY_WORDS = 10;
+    public static final int MAX_CANDIDATES = 100_000;
+
+    // a word found in the name counts this many times more than in the description
+    static final double NAME_WEIGHT = 3;
+    // a word found as a prefix of a term counts this much of an exact match
+    static final double PREFIX_WEIGHT = 0.5;
+    // relevance of an exact match in the description equals this much per e-fold of likes
+    static final double LIKES_WEIGHT = 0.25;
+    // finer tiers mean fewer films read in the top bucket and more moves between buckets as likes grow
+    static final int TIERS_PER_DOUBLING = 4;
+
+    private static final int NAME = 0;
+    private static final int DESCRIPTION = 1;
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score)
+            .thenComparing(Comparator.comparingLong(Scored::filmId).reversed());
+
+    private final NavigableMap<String, Term> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+    // guards the buckets of a term, by the term's hash
+    private final StripedLock locks = new StripedLock(64);
+
+    /**
+     * Distinct terms of the text in order of appearance, none for null.
+     */
+    public static String[] terms(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int c = text.codePointAt(i);
+            i += Character.charCount(c);
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                term.appendCodePoint(c == 'ё' ? 'е' : c);
+            } else if (!term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (!term.isEmpty()) {
+            terms.add(term.toString());
+        }
+        return terms.toArray(String[]::new);
+    }
+
+    /**
+     * Relevance of a film with the given name and description terms, 0 unless every word of the query matches.
+     */
+    static double relevance(String[] name, String[] description, String[] query) {
+        double relevance = 0;
+        for (String word : query) {
+            double best = Math.max(NAME_WEIGHT * match(name, word), match(description, word));
+            if (best == 0) {
+                return 0;
+            }
+            relevance += best;
+        }
+        return relevance;
+    }
+
+    static double score(double relevance, int likes) {
+        return relevance + LIKES_WEIGHT * Math.log1p(likes);
+    }
+
+    /**
+     * Query terms used for matching, at most {@link #MAX_QUERY_WORDS}.
+     */
+    static String[] words(String query) {
+        String[] words = terms(query);
+        return words.length <= MAX_QUERY_WORDS ? words : Arrays.copyOf(words, MAX_QUERY_WORDS);
+    }
+
+    /**
+     * Indexes a film anew, replacing its previous text. Calls for one film must not overlap,
+     * the storage makes them under the film's lock.
+     */
+    public void index(long filmId, String name, String description, int likes) {
+        Doc doc = new Doc(terms(name), terms(description), likes);
+        Doc old = docs.put(filmId, doc);
+        post(filmId, doc);
+        if (old != null) {
+            unpost(filmId, old, doc);
+        }
+    }
+
+    /**
+     * Updates the like count of an indexed film, under the same rule as {@link #index}.
+     */
+    public void likes(long filmId, int likes) {
+        Doc old = docs.get(filmId);
+        if (old == null || old.likes() == likes) {
+            return;
+        }
+        Doc doc = new Doc(old.name(), old.description(), likes);
+        docs.put(filmId, doc);
+        if (tier(likes) != tier(old.likes())) {
+            post(filmId, doc);
+            unpost(filmId, old, doc);
+        }
+    }
+
+    public void remove(long filmId) {
+        Doc old = docs.remove(filmId);
+        if (old != null) {
+            unpost(filmId, old, null);
+        }
+    }
+
+    /**
+     * Ids of up to {@code count} films matching all words of the query, by relevance plus
+     * {@link #LIKES_WEIGHT} times log(1 + likes). Films scoring the same go to the lower id among those read,
+     * so of the films tied with the last one returned, any may be left out.
+     */
+    public List<Long> search(String query, int count) {
+        String[] words = words(query);
+        if (words.length == 0 || count <= 0) {
+            return List.of();
+        }
+        String driver = null;
+        List<Map.Entry<String, Term>> rarest = null;
+        long rarestSize = Long.MAX_VALUE;
+        for (String word : words) {
+            List<Map.Entry<String, Term>> matching = matching(word);
+            long size = 0;
+            for (Map.Entry<String, Term> term : matching) {
+                size += term.getValue().size();
+            }
+            if (size < rarestSize) {
+                driver = word;
+                rarest = matching;
+                rarestSize = size;
+            }
+        }
+
+        // the driver's share of the score is known per bucket, every other word adds at most a name match
+        double others = NAME_WEIGHT * (words.length - 1);
+        // buckets of the word itself go to even classes, of longer terms to odd ones
+        List<List<LongHashSet>> classes = new ArrayList<>();
+        for (Map.Entry<String, Term> term : rarest) {
+            int prefix = term.getKey().equals(driver) ? 0 : 1;
+            LongHashSet[] sets = term.getValue().buckets;
+            for (int i = 0; i < sets.length; i++) {
+                if (sets[i] != null && !sets[i].isEmpty()) {
+                    while (classes.size() <= 2 * i + prefix) {
+                        classes.add(new ArrayList<>());
+                    }
+                    classes.get(2 * i + prefix).add(sets[i]);
+                }
+            }
+        }
+        List<Bucket> buckets = new ArrayList<>();
+        for (int c = 0; c < classes.size(); c++) {
+            if (!classes.get(c).isEmpty()) {
+                int i = c / 2;
+                double match = c % 2 == 0 ? 1 : PREFIX_WEIGHT;
+                double bound = match * (i % 2 == NAME ? NAME_WEIGHT : 1) + others + likesBound(i / 2);
+                buckets.add(new Bucket(bound, classes.get(c)));
+            }
+        }
+        buckets.sort(Comparator.comparingDouble(Bucket::bound).reversed());
+
+        PriorityQueue<Scored> best = new PriorityQueue<>(WORST_FIRST);
+        // a film is in several buckets when the word is in both fields or it matches several terms
+        LongHashSet seen = new LongHashSet();
+        int scored = 0;
+        scan:
+        for (Bucket bucket : buckets) {
+            for (LongHashSet films : bucket.films()) {
+                for (long filmId : films.toLongArray()) {
+                    if (scored == MAX_CANDIDATES
+                            || best.size() == count && bucket.bound() <= best.peek().score()) {
+                        break scan;
+                    }
+                    if (!seen.add(filmId)) {
+                        continue;
+                    }
+                    scored++;
+                    Doc doc = docs.get(filmId);
+                    double relevance = doc == null ? 0 : relevance(doc.name(), doc.description(), words);
+                    if (relevance == 0) {
+                        continue;
+                    }
+                    Scored film = new Scored(filmId, score(relevance, doc.likes()));
+                    if (best.size() < count) {
+                        best.add(film);
+                    } else if (WORST_FIRST.compare(film, best.peek()) > 0) {
+                        best.poll();
+                        best.add(film);
+                    }
+                }
+            }
+        }
+        List<Long> result = new ArrayList<>(best.size());
+        best.stream().sorted(WORST_FIRST.reversed()).forEach(film -> result.add(film.filmId()));
+        return result;
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    private List<Map.Entry<String, Term>> matching(String word) {
+        if (word.length() < MIN_PREFIX) {
+            Term term = postings.get(word);
+            return term == null ? List.of() : List.of(Map.entry(word, term));
+        }
+        return new ArrayList<>(postings.subMap(word, true, word + Character.MAX_VALUE, false).entrySet());
+    }
+
+    private void post(long filmId, Doc doc) {
+        int tier = tier(doc.likes());
+        for (String term : doc.name()) {
+            try (StripedLock.Unlocker ignored = locks.lock(term.hashCode())) {
+                postings.computeIfAbsent(term, t -> new Term()).add(NAME, tier, filmId);
+            }
+        }
+        for (String term : doc.description()) {
+            try (StripedLock.Unlocker ignored = locks.lock(term.hashCode())) {
+                postings.computeIfAbsent(term, t -> new Term()).add(DESCRIPTION, tier, filmId);
+            }
+        }
+    }
+
+    // takes out the postings of old that current, if any, doesn't have
+    private void unpost(long filmId, Doc old, Doc current) {
+        boolean sameTier = current != null && tier(current.likes()) == tier(old.likes());
+        Set<String> name = sameTier ? Set.of(current.name()) : Set.of();
+        Set<String> description = sameTier ? Set.of(current.description()) : Set.of();
+        for (String term : old.name()) {
+            if (!name.contains(term)) {
+                unpost(term, NAME, tier(old.likes()), filmId);
+            }
+        }
+        for (String term : old.description()) {
+            if (!description.contains(term)) {
+                unpost(term, DESCRIPTION, tier(old.likes()), filmId);
+            }
+        }
+    }
+
+    private void unpost(String term, int field, int tier, long filmId) {
+        try (StripedLock.Unlocker ignored = locks.lock(term.hashCode())) {
+            Term films = postings.get(term);
+            if (films != null && films.remove(field, tier, filmId) && films.size() == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static int tier(int likes) {
+        return (int) (TIERS_PER_DOUBLING * Math.log1p(likes) / Math.log(2));
+    }
+
+    // likes of tier t are below 2^((t + 1) / TIERS_PER_DOUBLING), and none in tier 0
+    private static double likesBound(int tier) {
+        return tier == 0 ? 0 : LIKES_WEIGHT * Math.log(2) * (tier + 1) / TIERS_PER_DOUBLING;
+    }
+
+    private static double match(String[] terms, String word) {
+        double match = 0;
+        for (String term : terms) {
+            if (term.equals(word)) {
+                return 1;
+            }
+            if (word.length() >= MIN_PREFIX && term.startsWith(word)) {
+                match = PREFIX_WEIGHT;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Films of a term, bucket 2 * tier + field. Changed under the term's stripe, read without locks.
+     */
+    private static final class Term {
+        volatile LongHashSet[] buckets = new LongHashSet[2];
+
+        void add(int field, int tier, long filmId) {
+            int bucket = 2 * tier + field;
+            if (bucket >= buckets.length || buckets[bucket] == null) {
+                // a new array, so readers get the set through the volatile write
+                LongHashSet[] grown = Arrays.copyOf(buckets, Math.max(buckets.length, bucket + 2 - field));
+                grown[bucket] = new LongHashSet();
+                buckets = grown;
+            }
+            buckets[bucket].add(filmId);
+        }
+
+        boolean remove(int field, int tier, long filmId) {
+            int bucket = 2 * tier + field;
+            return bucket < buckets.length && buckets[bucket] != null && buckets[bucket].remove(filmId);
+        }
+
+        long size() {
+            long size = 0;
+            for (LongHashSet films : buckets) {
+                if (films != null) {
+                    size += films.size();
+                }
+            }
+            return size;
+        }
+    }
+
+    private record Bucket(double bound, List<LongHashSet> films) {
+    }
+
+    private record Doc(String[] name, String[] description, int likes) {
+    }
+
+    private record Scored(long filmId, double score) {
+    }
+}
@@ -1,17 +1,76 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface FilmStorage {
     Film addFilm(Film film);
 
+    /**
+     * Adds films in one batch, each gets a new id as in {@link #addFilm}.
+     */
+    List<Film> addFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
     void deleteFilm(Film film);
 
     Film getFilmById(long id);
 
+    /**
+     * Films with given ids in the same order, ids of missing films are skipped.
+     */
+    List<Film> getFilmsByIds(long[] ids);
+
     Collection<Film> findAll();
+
+    /**
+     * Up to {@code limit} entities with id greater than {@code afterId}, ordered by id.
+     */
+    List<Film> findPage(long afterId, int limit);
+
+    long countFilms();
+
+    /**
+     * Likes of all films together.
+     */
+    long countLikes();
+
+    void like(Film film, long userId);
+
+    void unLike(Film film, long userId);
+
+    /**
+     * Adds likes in one pass, grouped by film. Likes already present and likes of films deleted in the meantime
+     * are skipped; users are expected to be checked by the caller.
+     */
+    void addLikes(Collection<Like> likes);
+
+    List<Film> getMostLiked(int count);
+
+    /**
+     * Up to {@code count} films liked within the last {@code window}, ranked by likes whose weight halves every
+     * half-life; films without likes in the window are left out.
+     */
+    List<Film> getTrending(Duration window, int count);
+
+    /**
+     * Up to {@code count} films whose name or description has every word of the query as a word or word prefix,
+     * by relevance blended with likes as {@link FilmSearchIndex} ranks them.
+     */
+    List<Film> search(String query, int count);
+
+    List<Film> getLikedFilms(long userId);
+
+    /**
+     * Ids of films liked by each of the users, sorted; users without likes are left out.
+     */
+    Map<Long, long[]> getLikedFilmIds(long[] userIds);
+
+    void removeUserLikes(long userId);
 }
@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.util.LongByteHashMap;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Friendships and friend requests of {@link InMemoryUserStorage}, one entry per pair of users as in the friends
+ * table (see README): the ids ordered and packed into a long, and a status byte. The friends of a user
+ * ({@code User.friends}) and the users it has a pending request with are indexes over the entries, so neither
+ * has to be found by a scan, the way friends_user_id_2 indexes the table.
+ * <p>
+ * A pair changes under the locks of both users, the storage takes them; reads need no locks.
+ */
+final class FriendEdges {
+    static final byte REQ_U1 = 1;
+    static final byte REQ_U2 = 2;
+    static final byte FRIENDS = 3;
+
+    private final LongByteHashMap edges = new LongByteHashMap();
+    // users each user has a pending request with, sent or received
+    private final Map<Long, LongHashSet> pending = new ConcurrentHashMap<>();
+    // pairs of friends, so the metrics gauge doesn't walk the users
+    private final LongAdder friendships = new LongAdder();
+
+    /**
+     * Whether the id can be half of a key; the storage checks the ids of users it adds.
+     */
+    static boolean fits(long userId) {
+        return userId >= 0 && userId >>> 32 == 0;
+    }
+
+    /**
+     * Status of a request sent by {@code from} to {@code to}.
+     */
+    static byte requestBy(long from, long to) {
+        return from < to ? REQ_U1 : REQ_U2;
+    }
+
+    byte status(long userId, long otherId) {
+        return edges.get(key(userId, otherId));
+    }
+
+    void request(long from, long to) {
+        edges.put(key(from, to), requestBy(from, to));
+        pending.computeIfAbsent(from, id -> new LongHashSet()).add(to);
+        pending.computeIfAbsent(to, id -> new LongHashSet()).add(from);
+    }
+
+    /**
+     * Makes the pair friends, whatever it was before; the caller updates {@code User.friends}.
+     */
+    void befriend(long userId, long otherId) {
+        if (edges.put(key(userId, otherId), FRIENDS) != FRIENDS) {
+            friendships.increment();
+        }
+        unpend(userId, otherId);
+    }
+
+    /**
+     * @return status the pair had, 0 if none
+     */
+    byte remove(long userId, long otherId) {
+        byte status = edges.remove(key(userId, otherId));
+        if (status == FRIENDS) {
+            friendships.decrement();
+        }
+        unpend(userId, otherId);
+        return status;
+    }
+
+    /**
+     * Users with a pending request to or from the user, by id.
+     */
+    long[] pendingOf(long userId) {
+        LongHashSet ids = pending.get(userId);
+        if (ids == null) {
+            return new long[0];
+        }
+        long[] result = ids.toLongArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Users whose requests to the user are pending, by id.
+     */
+    long[] requestsTo(long userId) {
+        return Arrays.stream(pendingOf(userId))
+                .filter(id -> status(id, userId) == requestBy(id, userId))
+                .toArray();
+    }
+
+    /**
+     * Pending requests, each once, for a snapshot; the sender is {@code userId}.
+     */
+    Stream<Friendship> requests() {
+        return pending.keySet().stream()
+                .flatMap(userId -> Arrays.stream(pendingOf(userId))
+                        .filter(id -> id > userId)
+                        .mapToObj(id -> switch (status(userId, id)) {
+                            case REQ_U1 -> new Friendship(userId, id);
+                            case REQ_U2 -> new Friendship(id, userId);
+                            default -> null;
+                        })
+                        .filter(Objects::nonNull));
+    }
+
+    int size() {
+        return edges.size();
+    }
+
+    /**
+     * Pairs of friends, each once.
+     */
+    long friendships() {
+        return friendships.sum();
+    }
+
+    private void unpend(long userId, long otherId) {
+        unpend(pending.get(userId), userId, otherId);
+        unpend(pending.get(otherId), otherId, userId);
+    }
+
+    private void unpend(LongHashSet ids, long userId, long otherId) {
+        if (ids != null && ids.remove(otherId) && ids.isEmpty()) {
+            pending.remove(userId, ids);
+        }
+    }
+
+    private static long key(long userId, long otherId) {
+        long id1 = Math.min(userId, otherId);
+        long id2 = Math.max(userId, otherId);
+        if (!fits(id1) || !fits(id2)) {
+            throw new IllegalArgumentException("User ids don't fit in 32 bits: " + id1 + ", " + id2);
+        }
+        return id1 << 32 | id2;
+    }
+}
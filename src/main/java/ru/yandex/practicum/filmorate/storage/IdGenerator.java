@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Allocates ids for new entities.
+ */
+public interface IdGenerator {
+    long nextId();
+
+    /**
+     * Makes sure ids up to {@code id} are never handed out, used when entities are restored with their ids.
+     */
+    void skipTo(long id);
+}
@@ -1,53 +1,139 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
+@Timed(value = "filmorate.storage", description = "Storage calls")
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
+    // ordered by id for cursor pagination
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    private final PopularityIndex popularity = new PopularityIndex();
+    private final UserLikesIndex userLikes = new UserLikesIndex();
+    private final FilmSearchIndex search = new FilmSearchIndex();
+    private final StripedLock locks = new StripedLock(64);
+    private final IdGenerator ids;
+    private final MutationLog mutations;
+    private final TrendingIndex trending;
+
+    public InMemoryFilmStorage() {
+        this(new SequenceIdGenerator(), MutationLog.NONE);
+    }
+
+    public InMemoryFilmStorage(IdGenerator ids) {
+        this(ids, MutationLog.NONE);
+    }
+
+    @Autowired
+    public InMemoryFilmStorage(Optional<MutationLog> mutations, TrendingIndex trending) {
+        this(new SequenceIdGenerator(), mutations.orElse(MutationLog.NONE), trending);
+    }
+
+    public InMemoryFilmStorage(IdGenerator ids, MutationLog mutations) {
+        this(ids, mutations, new TrendingIndex());
+    }
+
+    public InMemoryFilmStorage(IdGenerator ids, MutationLog mutations, TrendingIndex trending) {
+        this.ids = ids;
+        this.mutations = mutations;
+        this.trending = trending;
+    }
 
     @Override
     public Film addFilm(Film film) {
-        film.setId(getNextId());
-        if (film.getLikes() == null) {
-            film.setLikes(new HashSet<>());
+        film.setId(ids.nextId());
+        film.setLikes(LongHashSet.copyOf(film.getLikes()));
+        long position;
+        try (StripedLock.Unlocker ignored = locks.lock(film.getId())) {
+            put(film);
+            position = mutations.filmSaved(film);
         }
-        films.put(film.getId(), film);
+        mutations.awaitDurable(position);
         log.info("Added film {}", film);
         return film;
     }
 
     @Override
-    public Film updateFilm(Film film) {
-        if (!films.containsKey(film.getId())) {
-            log.error("Film with id = {} not found", film.getId());
-            throw new NotFoundException("Фильм с ID = " + film.getId() + " не найден");
+    public List<Film> addFilms(List<Film> batch) {
+        long position = 0;
+        for (Film film : batch) {
+            film.setId(ids.nextId());
+            film.setLikes(LongHashSet.copyOf(film.getLikes()));
+            try (StripedLock.Unlocker ignored = locks.lock(film.getId())) {
+                put(film);
+                position = mutations.filmSaved(film);
+            }
         }
-        if (film.getLikes() == null) {
-            film.setLikes(new HashSet<>());
+        mutations.awaitDurable(position);
+        log.info("Added batch of {} films", batch.size());
+        return batch;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        film.setLikes(LongHashSet.copyOf(film.getLikes()));
+        long position;
+        try (StripedLock.Unlocker ignored = locks.lock(film.getId())) {
+            getFilmById(film.getId());
+            put(film);
+            position = mutations.filmSaved(film);
         }
+        mutations.awaitDurable(position);
         log.info("Updated film {}", film);
-        films.put(film.getId(), film);
         return film;
     }
 
+    /**
+     * Puts a film with its own id, as it comes from a snapshot or the write-ahead log.
+     * The film and its likes set are taken over, not copied; its likes trend as new ones.
+     */
+    public void restore(Film film) {
+        try (StripedLock.Unlocker ignored = locks.lock(film.getId())) {
+            put(film);
+            trending.restored(film.getId(), film.getLikesCount());
+        }
+        ids.skipTo(film.getId());
+    }
+
     @Override
     public void deleteFilm(Film film) {
-        if (!films.containsKey(film.getId())) {
-            log.error("Film with id = {} not found", film.getId());
-            throw new NotFoundException("Фильм с ID = " + film.getId() + " не найден");
+        long position;
+        try (StripedLock.Unlocker ignored = locks.lock(film.getId())) {
+            Film removed = films.remove(film.getId());
+            if (removed == null) {
+                log.error("Film with id = {} not found", film.getId());
+                throw new NotFoundException("Фильм с ID = " + film.getId() + " не найден");
+            }
+            popularity.remove(film.getId());
+            trending.remove(film.getId());
+            search.remove(film.getId());
+            removed.getLikes().forEach(userId -> userLikes.remove(userId, film.getId()));
+            position = mutations.filmDeleted(film.getId());
         }
+        mutations.awaitDurable(position);
         log.info("Deleted film {}", film);
-        films.remove(film.getId());
     }
 
     @Override
@@ -55,20 +141,181 @@ public class InMemoryFilmStorage implements FilmStorage {
         return films.values();
     }
 
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    // both walk the catalog, fine for a metrics scrape but not for a request
+    @Override
+    public long countFilms() {
+        return films.size();
+    }
+
+    @Override
+    public long countLikes() {
+        long likes = 0;
+        for (Film film : films.values()) {
+            likes += film.getLikesCount();
+        }
+        return likes;
+    }
+
+    @Override
     public Film getFilmById(long id) {
-        if (!films.containsKey(id)) {
+        Film film = films.get(id);
+        if (film == null) {
             log.error("Film with id = {} not found", id);
             throw new NotFoundException("Фильм с ID = " + id + " не найден");
         }
-        return films.get(id);
+        return film;
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(long[] ids) {
+        return Arrays.stream(ids)
+                .mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public void like(Film film, long userId) {
+        long position = 0;
+        try (StripedLock.Unlocker ignored = locks.lock(film.getId())) {
+            Film current = getFilmById(film.getId());
+            // a repeated like changes nothing and isn't logged
+            if (current.like(userId)) {
+                trending.liked(current.getId(), 1);
+                popularity.update(current.getId(), current.getLikesCount());
+                search.likes(current.getId(), current.getLikesCount());
+                userLikes.add(userId, current.getId());
+                position = mutations.liked(current.getId(), userId);
+            }
+        }
+        mutations.awaitDurable(position);
     }
 
-    private long getNextId() {
-        long currentMaxId = films.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    @Override
+    public void unLike(Film film, long userId) {
+        long position = 0;
+        try (StripedLock.Unlocker ignored = locks.lock(film.getId())) {
+            Film current = getFilmById(film.getId());
+            if (current.unLike(userId)) {
+                trending.unliked(current.getId());
+                popularity.update(current.getId(), current.getLikesCount());
+                search.likes(current.getId(), current.getLikesCount());
+                userLikes.remove(userId, current.getId());
+                position = mutations.unliked(current.getId(), userId);
+            }
+        }
+        mutations.awaitDurable(position);
+    }
+
+    /**
+     * Each film is locked once for all of its likes and re-ranked once; the batch waits for durability once.
+     */
+    @Override
+    public void addLikes(Collection<Like> likes) {
+        Map<Long, List<Long>> byFilm = likes.stream().collect(Collectors.groupingBy(Like::getFilmId,
+                LinkedHashMap::new, Collectors.mapping(Like::getUserId, Collectors.toList())));
+        long position = 0;
+        for (Map.Entry<Long, List<Long>> group : byFilm.entrySet()) {
+            long filmId = group.getKey();
+            try (StripedLock.Unlocker ignored = locks.lock(filmId)) {
+                Film film = films.get(filmId);
+                if (film == null) {
+                    continue;
+                }
+                int added = 0;
+                for (long userId : group.getValue()) {
+                    if (film.getLikes().add(userId)) {
+                        userLikes.add(userId, filmId);
+                        position = mutations.liked(filmId, userId);
+                        added++;
+                    }
+                }
+                popularity.update(filmId, film.getLikesCount());
+                search.likes(filmId, film.getLikesCount());
+                if (added > 0) {
+                    trending.liked(filmId, added);
+                }
+            }
+        }
+        mutations.awaitDurable(position);
+        log.debug("Added batch of {} likes to {} films", likes.size(), byFilm.size());
+    }
+
+    @Override
+    public List<Film> getMostLiked(int count) {
+        return popularity.top(count).stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Film> getTrending(Duration window, int count) {
+        return trending.top(window, count).stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Film> search(String query, int count) {
+        return getFilmsByIds(search.search(query, count).stream().mapToLong(Long::longValue).toArray());
+    }
+
+    @Override
+    public List<Film> getLikedFilms(long userId) {
+        return Arrays.stream(userLikes.filmsOf(userId))
+                .mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIds(long[] userIds) {
+        Map<Long, long[]> result = new HashMap<>();
+        for (long userId : userIds) {
+            long[] liked = userLikes.filmsOf(userId);
+            if (liked.length > 0) {
+                Arrays.sort(liked);
+                result.put(userId, liked);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void removeUserLikes(long userId) {
+        long position = 0;
+        for (long filmId : userLikes.filmsOf(userId)) {
+            try (StripedLock.Unlocker ignored = locks.lock(filmId)) {
+                Film film = films.get(filmId);
+                if (film != null && film.unLike(userId)) {
+                    trending.unliked(filmId);
+                    popularity.update(filmId, film.getLikesCount());
+                    search.likes(filmId, film.getLikesCount());
+                    position = mutations.unliked(filmId, userId);
+                }
+                userLikes.remove(userId, filmId);
+            }
+        }
+        mutations.awaitDurable(position);
+    }
+
+    // called under the film's stripe
+    private void put(Film film) {
+        Film old = films.put(film.getId(), film);
+        if (old != null) {
+            old.getLikes().forEach(userId -> userLikes.remove(userId, film.getId()));
+        }
+        popularity.update(film.getId(), film.getLikesCount());
+        film.getLikes().forEach(userId -> userLikes.add(userId, film.getId()));
+        search.index(film.getId(), film.getName(), film.getDescription(), film.getLikesCount());
     }
 }
@@ -1,60 +1,232 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+/**
+ * Users by id, with hash indexes of ids by email and by login. A user's email and login are claimed in the indexes
+ * with putIfAbsent before the user is stored, which is what keeps them unique, and the keys of the previous version
+ * are released after it is replaced. A lookup checks the key against the user it finds, so it never returns a user
+ * by a key that is being taken or released.
+ * <p>
+ * Friendships and friend requests are kept once per pair in {@link FriendEdges}, {@code User.friends} indexes them.
+ */
 @Slf4j
 @Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
+@Timed(value = "filmorate.storage", description = "Storage calls")
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
+    // ordered by id for cursor pagination
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> emails = new ConcurrentHashMap<>();
+    private final Map<String, Long> logins = new ConcurrentHashMap<>();
+    private final FriendEdges friendships = new FriendEdges();
+    private final StripedLock locks = new StripedLock(64);
+    private final IdGenerator ids;
+    private final MutationLog mutations;
+
+    public InMemoryUserStorage() {
+        this(new SequenceIdGenerator(), MutationLog.NONE);
+    }
+
+    public InMemoryUserStorage(IdGenerator ids) {
+        this(ids, MutationLog.NONE);
+    }
+
+    @Autowired
+    public InMemoryUserStorage(Optional<MutationLog> mutations) {
+        this(new SequenceIdGenerator(), mutations.orElse(MutationLog.NONE));
+    }
+
+    public InMemoryUserStorage(IdGenerator ids, MutationLog mutations) {
+        this.ids = ids;
+        this.mutations = mutations;
+    }
 
     @Override
     public User addUser(User user) {
-        user.setId(getNextId());
+        user.setId(checkId(ids.nextId()));
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
         }
-
-        if (user.getFriends() == null) {
-            user.setFriends(new HashSet<>());
+        // friends are made only by requests
+        user.setFriends(new LongHashSet());
+        claim(List.of(user));
+        long position;
+        try (StripedLock.Unlocker ignored = locks.lock(user.getId())) {
+            users.put(user.getId(), user);
+            position = mutations.userSaved(user);
         }
-        users.put(user.getId(), user);
+        mutations.awaitDurable(position);
         log.info("Added user {}", user);
         return user;
     }
 
     @Override
-    public User updateUser(User user) {
-        if (!users.containsKey(user.getId())) {
-            log.error("User wih id = {} not found", user.getId());
-            throw new NotFoundException("Пользователь с ID = " + user.getId() + " не найден");
+    public List<User> addUsers(List<User> batch) {
+        long position = 0;
+        for (User user : batch) {
+            user.setId(checkId(ids.nextId()));
+            if (user.getName() == null || user.getName().isBlank()) {
+                user.setName(user.getLogin());
+            }
+            user.setFriends(new LongHashSet());
+        }
+        claim(batch);
+        for (User user : batch) {
+            try (StripedLock.Unlocker ignored = locks.lock(user.getId())) {
+                users.put(user.getId(), user);
+                position = mutations.userSaved(user);
+            }
         }
+        mutations.awaitDurable(position);
+        log.info("Added batch of {} users", batch.size());
+        return batch;
+    }
+
+    @Override
+    public User updateUser(User user) {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
         }
-        if (user.getFriends() == null) {
-            user.setFriends(new HashSet<>());
+        long position;
+        try (StripedLock.Unlocker ignored = locks.lock(user.getId())) {
+            User old = users.get(user.getId());
+            if (old == null) {
+                log.error("User wih id = {} not found", user.getId());
+                throw new NotFoundException("Пользователь с ID = " + user.getId() + " не найден");
+            }
+            // friends change only through requests, the stored set carries over
+            user.setFriends(old.getFriends());
+            claim(List.of(user));
+            users.put(user.getId(), user);
+            position = mutations.userSaved(user);
+            release(old, user);
         }
+        mutations.awaitDurable(position);
         log.info("Updated user {}", user);
-        users.put(user.getId(), user);
         return user;
     }
 
+    /**
+     * Puts a user with its own id, as it comes from a snapshot or the write-ahead log.
+     * The user and its friends set are taken over, not copied, and its friendships are stored.
+     */
+    public void restore(User user) {
+        try (StripedLock.Unlocker ignored = locks.lock(user.getId())) {
+            User old = users.put(user.getId(), user);
+            for (long friendId : user.getFriends()) {
+                friendships.befriend(user.getId(), friendId);
+            }
+            if (user.getEmail() != null) {
+                emails.put(user.getEmail(), user.getId());
+            }
+            if (user.getLogin() != null) {
+                logins.put(user.getLogin(), user.getId());
+            }
+            if (old != null) {
+                release(old, user);
+            }
+        }
+        ids.skipTo(user.getId());
+    }
+
+    /**
+     * Makes the users friends at once, as a friendship comes from the write-ahead log.
+     */
+    public void restoreFriendship(long userId, long friendId) {
+        try (StripedLock.Unlocker ignored = locks.lock(userId, friendId)) {
+            User user = getUserById(userId);
+            User friend = getUserById(friendId);
+            friendships.befriend(userId, friendId);
+            user.addFriend(friendId);
+            friend.addFriend(userId);
+        }
+    }
+
+    /**
+     * Stores a pending request as it comes from a snapshot or the write-ahead log.
+     */
+    public void restoreFriendRequest(Friendship request) {
+        try (StripedLock.Unlocker ignored = locks.lock(request.getUserId(), request.getFriendId())) {
+            getUserById(request.getUserId());
+            getUserById(request.getFriendId());
+            friendships.request(request.getUserId(), request.getFriendId());
+        }
+    }
+
+    /**
+     * Pending friend requests of all users, for a snapshot.
+     */
+    Stream<Friendship> friendRequests() {
+        return friendships.requests();
+    }
+
+    /**
+     * Removes user with its friendships and requests.
+     * Friends and requests of a user change only under the user's stripe, so they are stable once the stripe is
+     * held; if they changed before we got the locks we retry with the fresh ones.
+     */
     @Override
     public void deleteUser(User user) {
-        if (!users.containsKey(user.getId())) {
-            log.error("User wih id = {} not found", user.getId());
-            throw new NotFoundException("Пользователь с ID = " + user.getId() + " не найден");
+        long id = user.getId();
+        while (true) {
+            Set<Long> friends = Set.copyOf(getUserById(id).getFriends());
+            long[] requests = friendships.pendingOf(id);
+            long[] ids = new long[friends.size() + requests.length + 1];
+            ids[0] = id;
+            int i = 1;
+            for (long friendId : friends) {
+                ids[i++] = friendId;
+            }
+            System.arraycopy(requests, 0, ids, i, requests.length);
+            long position;
+            try (StripedLock.Unlocker ignored = locks.lock(ids)) {
+                User current = getUserById(id);
+                if (!current.getFriends().equals(friends) || !Arrays.equals(friendships.pendingOf(id), requests)) {
+                    continue;
+                }
+                for (long friendId : friends) {
+                    User friend = users.get(friendId);
+                    if (friend != null) {
+                        friend.deleteFriend(id);
+                    }
+                    friendships.remove(id, friendId);
+                }
+                for (long otherId : requests) {
+                    friendships.remove(id, otherId);
+                }
+                users.remove(id);
+                release(current, null);
+                position = mutations.userDeleted(id);
+                log.info("Deleted user {}", current);
+            }
+            mutations.awaitDurable(position);
+            return;
         }
-        log.info("Deleted user {}", user);
-        users.remove(user.getId());
     }
 
     @Override
@@ -62,22 +234,209 @@ public class InMemoryUserStorage implements UserStorage {
         return users.values();
     }
 
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    // the size walks all users, fine for a metrics scrape but not for a request
+    @Override
+    public long countUsers() {
+        return users.size();
+    }
+
+    @Override
+    public long countFriends() {
+        return 2 * friendships.friendships();
+    }
+
     @Override
     public User getUserById(long id) {
-        if (users.containsKey(id)) {
-            return users.get(id);
-        } else {
+        User user = users.get(id);
+        if (user == null) {
             log.error("User wih id = {} not found", id);
             throw new NotFoundException("Пользователь с ID = " + id + " не найден");
         }
+        return user;
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return getUserByKey(emails, User::getEmail, email, "email");
     }
 
-    private long getNextId() {
-        long currentMaxId = users.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    @Override
+    public User getUserByLogin(String login) {
+        return getUserByKey(logins, User::getLogin, login, "логином");
+    }
+
+    @Override
+    public List<User> getUsersByIds(long[] ids) {
+        List<User> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getFriendRequests(long userId) {
+        getUserById(userId);
+        return friendships.requestsTo(userId);
+    }
+
+    @Override
+    public void addFriend(User user, User friend) {
+        long position;
+        try (StripedLock.Unlocker ignored = locks.lock(user.getId(), friend.getId())) {
+            position = link(getUserById(user.getId()), getUserById(friend.getId()));
+        }
+        mutations.awaitDurable(position);
+    }
+
+    /**
+     * Each pair is linked under its own locks like in addFriend, the batch waits for durability once.
+     */
+    @Override
+    public void addFriends(Collection<Friendship> requests) {
+        long position = 0;
+        for (Friendship request : requests) {
+            if (request.getUserId() == request.getFriendId()) {
+                continue;
+            }
+            try (StripedLock.Unlocker ignored = locks.lock(request.getUserId(), request.getFriendId())) {
+                User user = users.get(request.getUserId());
+                User friend = users.get(request.getFriendId());
+                if (user != null && friend != null) {
+                    position = Math.max(position, link(user, friend));
+                }
+            }
+        }
+        mutations.awaitDurable(position);
+        log.debug("Added batch of {} friend requests", requests.size());
+    }
+
+    @Override
+    public void deleteFriend(User user, User friend) {
+        long position = 0;
+        try (StripedLock.Unlocker ignored = locks.lock(user.getId(), friend.getId())) {
+            User current = getUserById(user.getId());
+            User currentFriend = getUserById(friend.getId());
+            byte status = friendships.remove(current.getId(), currentFriend.getId());
+            if (status == FriendEdges.FRIENDS) {
+                current.deleteFriend(currentFriend.getId());
+                currentFriend.deleteFriend(current.getId());
+            }
+            if (status != 0) {
+                position = mutations.friendDeleted(current.getId(), currentFriend.getId());
+            }
+        }
+        mutations.awaitDurable(position);
+    }
+
+    /**
+     * Sends a request from the user to the friend, or confirms the one the friend has sent; called under the
+     * stripes of both. A repeated request, an existing friendship or a request to oneself is left as it is.
+     *
+     * @return log position of the change, 0 if nothing changed
+     */
+    private long link(User user, User friend) {
+        if (user.getId() == friend.getId()) {
+            return 0;
+        }
+        byte status = friendships.status(user.getId(), friend.getId());
+        if (status == 0) {
+            friendships.request(user.getId(), friend.getId());
+            log.debug("User with ID = {} sent a friend request to user with ID = {}", user.getId(), friend.getId());
+            return mutations.friendRequested(user.getId(), friend.getId());
+        }
+        if (status == FriendEdges.requestBy(friend.getId(), user.getId())) {
+            friendships.befriend(user.getId(), friend.getId());
+            user.addFriend(friend.getId());
+            friend.addFriend(user.getId());
+            return mutations.friendAdded(user.getId(), friend.getId());
+        }
+        return 0;
+    }
+
+    private User getUserByKey(Map<String, Long> index, Function<User, String> field, String key, String name) {
+        Long id = index.get(key);
+        User user = id == null ? null : users.get(id);
+        if (user == null || !key.equals(field.apply(user))) {
+            log.error("User with key {} not found", key);
+            throw new NotFoundException("Пользователь с " + name + " " + key + " не найден");
+        }
+        return user;
+    }
+
+    // friendships are keyed by both ids packed into a long, a user that doesn't fit is refused before it's stored
+    private static long checkId(long id) {
+        if (!FriendEdges.fits(id)) {
+            throw new ValidationException("Id пользователя " + id + " не помещается в хранилище в памяти");
+        }
+        return id;
+    }
+
+    /**
+     * Takes the emails and logins of the users for their ids. If one is held by another id, the keys taken
+     * by this call are given back and none of the users may be stored.
+     */
+    private void claim(List<User> batch) {
+        List<User> claimed = new ArrayList<>(batch.size());
+        try {
+            for (User user : batch) {
+                claimed.add(user);
+                claim(emails, user.getEmail(), user.getId(), "Email ");
+                claim(logins, user.getLogin(), user.getId(), "Логин ");
+            }
+        } catch (ConflictException e) {
+            for (User user : claimed) {
+                unclaim(user);
+            }
+            throw e;
+        }
+    }
+
+    private static void claim(Map<String, Long> index, String key, long id, String name) {
+        if (key == null) {
+            return;
+        }
+        Long owner = index.putIfAbsent(key, id);
+        if (owner != null && owner != id) {
+            log.warn("{} is taken by user with id = {}", key, owner);
+            throw new ConflictException(name + key + " уже занят");
+        }
+    }
+
+    // gives back the keys the user holds but its stored version, if any, doesn't
+    private void unclaim(User user) {
+        User stored = users.get(user.getId());
+        if (stored == null || !Objects.equals(stored.getEmail(), user.getEmail())) {
+            release(emails, user.getEmail(), user.getId());
+        }
+        if (stored == null || !Objects.equals(stored.getLogin(), user.getLogin())) {
+            release(logins, user.getLogin(), user.getId());
+        }
+    }
+
+    // releases the keys of the old version of a user that the current one, if any, doesn't have
+    private void release(User old, User current) {
+        if (current == null || !Objects.equals(old.getEmail(), current.getEmail())) {
+            release(emails, old.getEmail(), old.getId());
+        }
+        if (current == null || !Objects.equals(old.getLogin(), current.getLogin())) {
+            release(logins, old.getLogin(), old.getId());
+        }
+    }
+
+    private static void release(Map<String, Long> index, String key, long id) {
+        if (key != null) {
+            index.remove(key, id);
+        }
     }
 }
@@ -0,0 +1,444 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.util.LongSets;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "jdbc")
+@Timed(value = "filmorate.storage", description = "Storage calls")
+public class JdbcFilmStorage implements FilmStorage {
+    static final int BATCH_SIZE = 500;
+
+    private static final String FILM_COLUMNS = "f.id, f.name, f.description, f.release_date, f.duration";
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final IdGenerator ids;
+    private final Duration halfLife;
+
+    public JdbcFilmStorage(JdbcTemplate jdbc, NamedParameterJdbcTemplate namedJdbc) {
+        this(jdbc, namedJdbc, TrendingIndex.DEFAULT_HALF_LIFE);
+    }
+
+    @Autowired
+    public JdbcFilmStorage(JdbcTemplate jdbc, NamedParameterJdbcTemplate namedJdbc,
+                           @Value("${filmorate.trending.half-life:24h}") Duration halfLife) {
+        this.jdbc = jdbc;
+        this.namedJdbc = namedJdbc;
+        this.halfLife = halfLife;
+        this.ids = sequenceIds(jdbc, "film_ids");
+    }
+
+    /**
+     * Ids from blocks of a sequence: every value starts a block as long as the sequence's increment, read from
+     * the database, so schema.sql is the only place the block size is set.
+     */
+    static IdGenerator sequenceIds(JdbcTemplate jdbc, String sequence) {
+        Integer increment = jdbc.queryForObject("SELECT CAST(increment AS INT) FROM information_schema.sequences "
+                + "WHERE UPPER(sequence_name) = UPPER(?)", Integer.class, sequence);
+        return new BlockIdGenerator(size -> jdbc.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class),
+                increment);
+    }
+
+    @Override
+    @Transactional
+    public Film addFilm(Film film) {
+        film.setId(ids.nextId());
+        film.setLikes(LongHashSet.copyOf(film.getLikes()));
+        jdbc.update("INSERT INTO films (id, name, description, release_date, duration) VALUES (?, ?, ?, ?, ?)",
+                film.getId(), film.getName(), film.getDescription(), toDate(film), film.getDuration());
+        insertLikes(film);
+        log.info("Added film {}", film);
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public List<Film> addFilms(List<Film> films) {
+        for (Film film : films) {
+            film.setId(ids.nextId());
+            film.setLikes(LongHashSet.copyOf(film.getLikes()));
+        }
+        jdbc.batchUpdate("INSERT INTO films (id, name, description, release_date, duration) VALUES (?, ?, ?, ?, ?)",
+                films, BATCH_SIZE, (ps, film) -> {
+                    ps.setLong(1, film.getId());
+                    ps.setString(2, film.getName());
+                    ps.setString(3, film.getDescription());
+                    ps.setDate(4, toDate(film));
+                    ps.setInt(5, film.getDuration());
+                });
+        films.forEach(this::insertLikes);
+        log.info("Added batch of {} films", films.size());
+        return films;
+    }
+
+    @Override
+    @Transactional
+    public Film updateFilm(Film film) {
+        film.setLikes(LongHashSet.copyOf(film.getLikes()));
+        int updated = jdbc.update("UPDATE films SET name = ?, description = ?, release_date = ?, duration = ? "
+                + "WHERE id = ?", film.getName(), film.getDescription(), toDate(film), film.getDuration(), film.getId());
+        if (updated == 0) {
+            log.error("Film with id = {} not found", film.getId());
+            throw new NotFoundException("Фильм с ID = " + film.getId() + " не найден");
+        }
+        // only the difference is written, so likes that stay keep their time
+        Set<Long> old = LongHashSet.copyOf(jdbc.queryForList("SELECT user_id FROM likes WHERE film_id = ?",
+                Long.class, film.getId()));
+        List<Long> removed = old.stream().filter(userId -> !film.getLikes().contains(userId)).toList();
+        List<Long> added = film.getLikes().stream().filter(userId -> !old.contains(userId)).toList();
+        jdbc.batchUpdate("DELETE FROM likes WHERE film_id = ? AND user_id = ?", removed, BATCH_SIZE,
+                (ps, userId) -> {
+                    ps.setLong(1, film.getId());
+                    ps.setLong(2, userId);
+                });
+        insertLikes(film.getId(), added);
+        log.info("Updated film {}", film);
+        return film;
+    }
+
+    @Override
+    public void deleteFilm(Film film) {
+        if (jdbc.update("DELETE FROM films WHERE id = ?", film.getId()) == 0) {
+            log.error("Film with id = {} not found", film.getId());
+            throw new NotFoundException("Фильм с ID = " + film.getId() + " не найден");
+        }
+        log.info("Deleted film {}", film);
+    }
+
+    @Override
+    public Film getFilmById(long id) {
+        List<Film> found = jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id = ?", this::mapFilm, id);
+        if (found.isEmpty()) {
+            log.error("Film with id = {} not found", id);
+            throw new NotFoundException("Фильм с ID = " + id + " не найден");
+        }
+        Film film = found.getFirst();
+        film.getLikes().addAll(jdbc.queryForList("SELECT user_id FROM likes WHERE film_id = ?", Long.class, id));
+        return film;
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(long[] ids) {
+        Map<Long, Film> found = new HashMap<>();
+        for (int from = 0; from < ids.length; from += BATCH_SIZE) {
+            List<Long> chunk = Arrays.stream(ids, from, Math.min(ids.length, from + BATCH_SIZE)).boxed().toList();
+            Map<Long, Film> films = new HashMap<>();
+            namedJdbc.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id IN (:ids)",
+                    new MapSqlParameterSource("ids", chunk), rs -> {
+                        Film film = mapFilm(rs, 0);
+                        films.put(film.getId(), film);
+                    });
+            loadLikes(films);
+            found.putAll(films);
+        }
+        List<Film> result = new ArrayList<>(found.size());
+        for (long id : ids) {
+            Film film = found.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        Map<Long, Film> films = new LinkedHashMap<>();
+        jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f ORDER BY f.id", rs -> {
+            Film film = mapFilm(rs, 0);
+            films.put(film.getId(), film);
+        });
+        jdbc.query("SELECT film_id, user_id FROM likes", rs -> {
+            Film film = films.get(rs.getLong("film_id"));
+            if (film != null) {
+                film.getLikes().add(rs.getLong("user_id"));
+            }
+        });
+        return films.values();
+    }
+
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        Map<Long, Film> films = new LinkedHashMap<>();
+        jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id > ? ORDER BY f.id LIMIT ?", rs -> {
+            Film film = mapFilm(rs, 0);
+            films.put(film.getId(), film);
+        }, afterId, limit);
+        loadLikes(films);
+        return new ArrayList<>(films.values());
+    }
+
+    @Override
+    public long countFilms() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM films", Long.class);
+    }
+
+    @Override
+    public long countLikes() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM likes", Long.class);
+    }
+
+    @Override
+    public void like(Film film, long userId) {
+        try {
+            int inserted = jdbc.update("INSERT INTO likes (film_id, user_id) SELECT ?, ? "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)",
+                    film.getId(), userId, film.getId(), userId);
+            if (inserted == 0) {
+                log.warn("User with id {} already liked film with id {}", userId, film.getId());
+                return;
+            }
+        } catch (DuplicateKeyException e) {
+            log.warn("User with id {} already liked film with id {}", userId, film.getId());
+            return;
+        } catch (DataIntegrityViolationException e) {
+            // the film or the user was deleted after the service had read them
+            throw new NotFoundException("Фильм с ID = " + film.getId() + " или пользователь с ID = " + userId
+                    + " не найден");
+        }
+        film.getLikes().add(userId);
+        log.info("Added like to film with id {} from user with id {}", film.getId(), userId);
+    }
+
+    @Override
+    public void unLike(Film film, long userId) {
+        if (jdbc.update("DELETE FROM likes WHERE film_id = ? AND user_id = ?", film.getId(), userId) == 0) {
+            log.warn("User with id {} aren't liked film with id {}, can't unlike", userId, film.getId());
+            return;
+        }
+        film.getLikes().remove(userId);
+        log.info("User with id {} unliked film with id {}", userId, film.getId());
+    }
+
+    /**
+     * One multi-row statement per {@link #BATCH_SIZE} likes, sorted by film. The statement itself skips likes
+     * that already exist and likes of films or users deleted in the meantime.
+     */
+    @Override
+    public void addLikes(Collection<Like> likes) {
+        List<Like> sorted = likes.stream()
+                .distinct()
+                .sorted(Comparator.comparingLong(Like::getFilmId).thenComparingLong(Like::getUserId))
+                .toList();
+        int inserted = 0;
+        for (int from = 0; from < sorted.size(); from += BATCH_SIZE) {
+            List<Like> chunk = sorted.subList(from, Math.min(sorted.size(), from + BATCH_SIZE));
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[2 * i] = chunk.get(i).getFilmId();
+                args[2 * i + 1] = chunk.get(i).getUserId();
+            }
+            inserted += insertIgnoringRaces(jdbc, "INSERT INTO likes (film_id, user_id) SELECT v.film_id, v.user_id "
+                    + "FROM (VALUES " + valueRows(chunk.size()) + ") AS v (film_id, user_id) "
+                    + "WHERE EXISTS (SELECT 1 FROM films WHERE id = v.film_id) "
+                    + "AND EXISTS (SELECT 1 FROM users WHERE id = v.user_id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM likes l WHERE l.film_id = v.film_id AND l.user_id = v.user_id)",
+                    args);
+        }
+        log.info("Added {} of {} likes in a batch", inserted, likes.size());
+    }
+
+    /**
+     * {@code (?, ?), (?, ?), ...} of {@code rows} pairs of ids for a VALUES table.
+     */
+    static String valueRows(int rows) {
+        return String.join(", ", Collections.nCopies(rows, "(CAST(? AS BIGINT), CAST(? AS BIGINT))"));
+    }
+
+    /**
+     * Runs an INSERT ... WHERE NOT EXISTS once more if a concurrent insert of the same row won the race,
+     * the second time NOT EXISTS sees that row.
+     */
+    static int insertIgnoringRaces(JdbcTemplate jdbc, String sql, Object... args) {
+        try {
+            return jdbc.update(sql, args);
+        } catch (DuplicateKeyException e) {
+            return jdbc.update(sql, args);
+        }
+    }
+
+    /**
+     * Ranking is a single aggregate over the likes primary key, likes are then loaded for the top films only.
+     */
+    @Override
+    public List<Film> getMostLiked(int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        Map<Long, Film> films = new LinkedHashMap<>();
+        jdbc.query("SELECT " + FILM_COLUMNS + ", COUNT(l.user_id) AS likes_count FROM films f "
+                + "LEFT JOIN likes l ON l.film_id = f.id "
+                + "GROUP BY " + FILM_COLUMNS + " ORDER BY likes_count DESC, f.id LIMIT ?", rs -> {
+                    Film film = mapFilm(rs, 0);
+                    films.put(film.getId(), film);
+                }, count);
+        loadLikes(films);
+        return new ArrayList<>(films.values());
+    }
+
+    /**
+     * Reads only the likes of the window through the liked_at index; the database clock is used for both
+     * writing and reading like times.
+     */
+    @Override
+    public List<Film> getTrending(Duration window, int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        Map<Long, Film> films = new LinkedHashMap<>();
+        jdbc.query("SELECT " + FILM_COLUMNS + ", "
+                + "SUM(POWER(0.5, DATEDIFF('MILLISECOND', l.liked_at, LOCALTIMESTAMP) "
+                + "/ CAST(? AS DOUBLE PRECISION))) AS score "
+                + "FROM likes l JOIN films f ON f.id = l.film_id "
+                + "WHERE l.liked_at > DATEADD('MILLISECOND', ?, LOCALTIMESTAMP) "
+                + "GROUP BY " + FILM_COLUMNS + " ORDER BY score DESC, f.id LIMIT ?", rs -> {
+                    Film film = mapFilm(rs, 0);
+                    films.put(film.getId(), film);
+                }, (double) halfLife.toMillis(), -window.toMillis(), count);
+        loadLikes(films);
+        return new ArrayList<>(films.values());
+    }
+
+    /**
+     * Finds candidates with one regular expression per word over the whole table and ranks them with the scoring
+     * of {@link FilmSearchIndex}; there is no index behind it, so it reads every film.
+     */
+    @Override
+    public List<Film> search(String query, int count) {
+        String[] words = FilmSearchIndex.words(query);
+        if (words.length == 0 || count <= 0) {
+            return List.of();
+        }
+        List<String> patterns = new ArrayList<>(words.length);
+        for (String word : words) {
+            // word is letters and digits only, as the index splits text
+            patterns.add("(^|[^\\p{L}\\p{Nd}])" + word
+                    + (word.length() < FilmSearchIndex.MIN_PREFIX ? "($|[^\\p{L}\\p{Nd}])" : ""));
+        }
+        String matches = "REGEXP_LIKE(REPLACE(LOWER(f.name || ' ' || COALESCE(f.description, '')), 'ё', 'е'), ?)";
+        Map<Long, Double> scores = new HashMap<>();
+        jdbc.query("SELECT f.id, f.name, f.description, "
+                + "(SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id) AS likes_count FROM films f WHERE "
+                + String.join(" AND ", Collections.nCopies(words.length, matches)), rs -> {
+                    double relevance = FilmSearchIndex.relevance(FilmSearchIndex.terms(rs.getString("name")),
+                            FilmSearchIndex.terms(rs.getString("description")), words);
+                    if (relevance > 0) {
+                        scores.put(rs.getLong("id"), FilmSearchIndex.score(relevance, rs.getInt("likes_count")));
+                    }
+                }, patterns.toArray());
+        return getFilmsByIds(scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(count)
+                .mapToLong(Map.Entry::getKey)
+                .toArray());
+    }
+
+    @Override
+    public List<Film> getLikedFilms(long userId) {
+        Map<Long, Film> films = new LinkedHashMap<>();
+        jdbc.query("SELECT " + FILM_COLUMNS + " FROM films f JOIN likes l ON l.film_id = f.id "
+                + "WHERE l.user_id = ? ORDER BY f.id", rs -> {
+                    Film film = mapFilm(rs, 0);
+                    films.put(film.getId(), film);
+                }, userId);
+        loadLikes(films);
+        return new ArrayList<>(films.values());
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIds(long[] userIds) {
+        Map<Long, LongHashSet> liked = new HashMap<>();
+        for (int from = 0; from < userIds.length; from += BATCH_SIZE) {
+            List<Long> chunk = Arrays.stream(userIds, from, Math.min(userIds.length, from + BATCH_SIZE))
+                    .boxed().toList();
+            namedJdbc.query("SELECT user_id, film_id FROM likes WHERE user_id IN (:ids)",
+                    new MapSqlParameterSource("ids", chunk), rs -> {
+                        liked.computeIfAbsent(rs.getLong("user_id"), id -> new LongHashSet())
+                                .add(rs.getLong("film_id"));
+                    });
+        }
+        Map<Long, long[]> result = new HashMap<>(liked.size());
+        liked.forEach((userId, films) -> result.put(userId, LongSets.toSortedArray(films)));
+        return result;
+    }
+
+    @Override
+    public void removeUserLikes(long userId) {
+        int removed = jdbc.update("DELETE FROM likes WHERE user_id = ?", userId);
+        log.info("Removed {} likes of user with id {}", removed, userId);
+    }
+
+    private void loadLikes(Map<Long, Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        namedJdbc.query("SELECT film_id, user_id FROM likes WHERE film_id IN (:ids)",
+                new MapSqlParameterSource("ids", films.keySet()),
+                rs -> {
+                    films.get(rs.getLong("film_id")).getLikes().add(rs.getLong("user_id"));
+                });
+    }
+
+    private void insertLikes(Film film) {
+        insertLikes(film.getId(), film.getLikes());
+    }
+
+    private void insertLikes(long filmId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", userIds,
+                BATCH_SIZE, (ps, userId) -> {
+                    ps.setLong(1, filmId);
+                    ps.setLong(2, userId);
+                });
+    }
+
+    private Film mapFilm(ResultSet rs, int rowNum) throws SQLException {
+        Date releaseDate = rs.getDate("release_date");
+        return Film.builder()
+                .id(rs.getLong("id"))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .releaseDate(releaseDate == null ? null : releaseDate.toLocalDate())
+                .duration(rs.getInt("duration"))
+                .build();
+    }
+
+    private Date toDate(Film film) {
+        return film.getReleaseDate() == null ? null : Date.valueOf(film.getReleaseDate());
+    }
+}
@@ -0,0 +1,395 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Friendship is stored once per pair in the friends table with user_id_1 < user_id_2, see README:
+ * a request has the REQ_U1 or REQ_U2 status of its sender and becomes FRIENDS once confirmed.
+ * Emails and logins are kept unique by the users_email and users_login indexes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "jdbc")
+@Timed(value = "filmorate.storage", description = "Storage calls")
+public class JdbcUserStorage implements UserStorage {
+    static final String FRIENDS = "FRIENDS";
+    static final String REQ_U1 = "REQ_U1";
+    static final String REQ_U2 = "REQ_U2";
+
+    private static final String USER_COLUMNS = "id, email, login, password, name, birthday";
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final IdGenerator ids;
+
+    @Autowired
+    public JdbcUserStorage(JdbcTemplate jdbc, NamedParameterJdbcTemplate namedJdbc) {
+        this.jdbc = jdbc;
+        this.namedJdbc = namedJdbc;
+        this.ids = JdbcFilmStorage.sequenceIds(jdbc, "user_ids");
+    }
+
+    @Override
+    @Transactional
+    public User addUser(User user) {
+        user.setId(ids.nextId());
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+        }
+        user.setFriends(new LongHashSet());
+        try {
+            jdbc.update("INSERT INTO users (" + USER_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)",
+                    user.getId(), user.getEmail(), user.getLogin(), user.getPassword(), user.getName(), toDate(user));
+        } catch (DuplicateKeyException e) {
+            throw conflict(e, user);
+        }
+        log.info("Added user {}", user);
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public List<User> addUsers(List<User> users) {
+        for (User user : users) {
+            user.setId(ids.nextId());
+            if (user.getName() == null || user.getName().isBlank()) {
+                user.setName(user.getLogin());
+            }
+            user.setFriends(new LongHashSet());
+        }
+        try {
+            jdbc.batchUpdate("INSERT INTO users (" + USER_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)",
+                    users, JdbcFilmStorage.BATCH_SIZE, (ps, user) -> {
+                        ps.setLong(1, user.getId());
+                        ps.setString(2, user.getEmail());
+                        ps.setString(3, user.getLogin());
+                        ps.setString(4, user.getPassword());
+                        ps.setString(5, user.getName());
+                        ps.setDate(6, toDate(user));
+                    });
+        } catch (DuplicateKeyException e) {
+            throw conflict(e, null);
+        }
+        log.info("Added batch of {} users", users.size());
+        return users;
+    }
+
+    @Override
+    @Transactional
+    public User updateUser(User user) {
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+        }
+        int updated;
+        try {
+            updated = jdbc.update("UPDATE users SET email = ?, login = ?, password = ?, name = ?, birthday = ? "
+                    + "WHERE id = ?", user.getEmail(), user.getLogin(), user.getPassword(), user.getName(),
+                    toDate(user), user.getId());
+        } catch (DuplicateKeyException e) {
+            throw conflict(e, user);
+        }
+        if (updated == 0) {
+            log.error("User wih id = {} not found", user.getId());
+            throw new NotFoundException("Пользователь с ID = " + user.getId() + " не найден");
+        }
+        // friends change only through requests
+        user.setFriends(LongHashSet.copyOf(friendIds(user.getId())));
+        log.info("Updated user {}", user);
+        return user;
+    }
+
+    /**
+     * Likes and friendships of the user are removed by ON DELETE CASCADE.
+     */
+    @Override
+    public void deleteUser(User user) {
+        if (jdbc.update("DELETE FROM users WHERE id = ?", user.getId()) == 0) {
+            log.error("User wih id = {} not found", user.getId());
+            throw new NotFoundException("Пользователь с ID = " + user.getId() + " не найден");
+        }
+        log.info("Deleted user {}", user);
+    }
+
+    @Override
+    public User getUserById(long id) {
+        List<User> found = jdbc.query("SELECT " + USER_COLUMNS + " FROM users WHERE id = ?", this::mapUser, id);
+        if (found.isEmpty()) {
+            log.error("User wih id = {} not found", id);
+            throw new NotFoundException("Пользователь с ID = " + id + " не найден");
+        }
+        User user = found.getFirst();
+        user.getFriends().addAll(friendIds(id));
+        return user;
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return getUserByKey("email", email, "email");
+    }
+
+    @Override
+    public User getUserByLogin(String login) {
+        return getUserByKey("login", login, "логином");
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        Map<Long, User> users = new LinkedHashMap<>();
+        jdbc.query("SELECT " + USER_COLUMNS + " FROM users ORDER BY id", rs -> {
+            User user = mapUser(rs, 0);
+            users.put(user.getId(), user);
+        });
+        jdbc.query("SELECT user_id_1, user_id_2 FROM friends WHERE status = ?", rs -> {
+            long id1 = rs.getLong("user_id_1");
+            long id2 = rs.getLong("user_id_2");
+            users.get(id1).getFriends().add(id2);
+            users.get(id2).getFriends().add(id1);
+        }, FRIENDS);
+        return users.values();
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        long[] ids = jdbc.queryForList("SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?", Long.class,
+                afterId, limit).stream().mapToLong(Long::longValue).toArray();
+        return getUsersByIds(ids);
+    }
+
+    @Override
+    public long countUsers() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+
+    @Override
+    public long countFriends() {
+        return 2 * jdbc.queryForObject("SELECT COUNT(*) FROM friends WHERE status = ?", Long.class, FRIENDS);
+    }
+
+    @Override
+    public List<User> getUsersByIds(long[] ids) {
+        Map<Long, User> found = new HashMap<>();
+        for (int from = 0; from < ids.length; from += JdbcFilmStorage.BATCH_SIZE) {
+            List<Long> chunk = Arrays.stream(ids, from, Math.min(ids.length, from + JdbcFilmStorage.BATCH_SIZE))
+                    .boxed()
+                    .toList();
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", chunk).addValue("status", FRIENDS);
+            namedJdbc.query("SELECT " + USER_COLUMNS + " FROM users WHERE id IN (:ids)", params, rs -> {
+                User user = mapUser(rs, 0);
+                found.put(user.getId(), user);
+            });
+            // two halves like getFriendRequests: with OR the whole table is scanned, a pair of found users
+            // comes twice here and is added once
+            namedJdbc.query("SELECT user_id_1, user_id_2 FROM friends WHERE user_id_1 IN (:ids) AND status = :status "
+                    + "UNION ALL SELECT user_id_1, user_id_2 FROM friends WHERE user_id_2 IN (:ids) "
+                    + "AND status = :status", params, rs -> {
+                        long id1 = rs.getLong("user_id_1");
+                        long id2 = rs.getLong("user_id_2");
+                        if (found.containsKey(id1)) {
+                            found.get(id1).getFriends().add(id2);
+                        }
+                        if (found.containsKey(id2)) {
+                            found.get(id2).getFriends().add(id1);
+                        }
+                    });
+        }
+        List<User> result = new ArrayList<>(found.size());
+        for (long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The query from README, each half runs over an index: the primary key or friends_user_id_2.
+     */
+    @Override
+    public long[] getFriendRequests(long userId) {
+        if (jdbc.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Long.class, userId) == 0) {
+            log.error("User wih id = {} not found", userId);
+            throw new NotFoundException("Пользователь с ID = " + userId + " не найден");
+        }
+        return jdbc.queryForList("SELECT user_id_2 FROM friends WHERE user_id_1 = ? AND status = ? "
+                        + "UNION ALL SELECT user_id_1 FROM friends WHERE user_id_2 = ? AND status = ? ORDER BY 1",
+                Long.class, userId, REQ_U2, userId, REQ_U1).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Inserts a request of the user unless the pair has a row, otherwise confirms the friend's request if that is
+     * what the row holds.
+     */
+    @Override
+    public void addFriend(User user, User friend) {
+        long id1 = Math.min(user.getId(), friend.getId());
+        long id2 = Math.max(user.getId(), friend.getId());
+        try {
+            int inserted = jdbc.update("INSERT INTO friends (user_id_1, user_id_2, status) SELECT ?, ?, ? "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM friends WHERE user_id_1 = ? AND user_id_2 = ?)",
+                    id1, id2, requestStatus(user.getId(), friend.getId()), id1, id2);
+            if (inserted == 1) {
+                log.info("User with ID = {} sent a friend request to user with ID = {}", user.getId(), friend.getId());
+                return;
+            }
+        } catch (DuplicateKeyException e) {
+            // a concurrent request of the pair won, it may be the friend's one to confirm
+        } catch (DataIntegrityViolationException e) {
+            // one of the two was deleted after the service had read them
+            throw new NotFoundException("Пользователь с ID = " + user.getId() + " или с ID = " + friend.getId()
+                    + " не найден");
+        }
+        if (jdbc.update("UPDATE friends SET status = ? WHERE user_id_1 = ? AND user_id_2 = ? AND status = ?",
+                FRIENDS, id1, id2, requestStatus(friend.getId(), user.getId())) == 0) {
+            log.warn("User with ID = {} already has friend or request with ID = {}", user.getId(), friend.getId());
+            return;
+        }
+        user.getFriends().add(friend.getId());
+        friend.getFriends().add(user.getId());
+        log.info("Added friend with ID = {} to user with ID = {}", friend.getId(), user.getId());
+    }
+
+    /**
+     * Requests are collapsed per ordered pair first: a pair requested both ways becomes friends, one way is
+     * a request of its sender. Then, one multi-row statement per {@link JdbcFilmStorage#BATCH_SIZE} pairs each,
+     * pending requests that the batch confirms are updated and the pairs without a row are inserted.
+     * The insert itself skips users deleted in the meantime.
+     */
+    @Override
+    public void addFriends(Collection<Friendship> requests) {
+        Map<Friendship, String> pairs = new LinkedHashMap<>();
+        for (Friendship request : requests) {
+            if (request.getUserId() == request.getFriendId()) {
+                continue;
+            }
+            String status = requestStatus(request.getUserId(), request.getFriendId());
+            pairs.merge(new Friendship(Math.min(request.getUserId(), request.getFriendId()),
+                    Math.max(request.getUserId(), request.getFriendId())), status,
+                    (previous, next) -> previous.equals(next) ? previous : FRIENDS);
+        }
+        List<Map.Entry<Friendship, String>> rows = new ArrayList<>(pairs.entrySet());
+        int confirmed = 0;
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += JdbcFilmStorage.BATCH_SIZE) {
+            List<Map.Entry<Friendship, String>> chunk =
+                    rows.subList(from, Math.min(rows.size(), from + JdbcFilmStorage.BATCH_SIZE));
+            // a request confirms the other side's one, a pair requested both ways confirms either
+            List<Object> confirms = new ArrayList<>();
+            for (Map.Entry<Friendship, String> row : chunk) {
+                Friendship pair = row.getKey();
+                if (!row.getValue().equals(REQ_U1)) {
+                    confirms.addAll(List.of(pair.getUserId(), pair.getFriendId(), REQ_U1));
+                }
+                if (!row.getValue().equals(REQ_U2)) {
+                    confirms.addAll(List.of(pair.getUserId(), pair.getFriendId(), REQ_U2));
+                }
+            }
+            confirmed += jdbc.update("UPDATE friends SET status = '" + FRIENDS + "' "
+                    + "WHERE (user_id_1, user_id_2, status) IN (" + statusRows(confirms.size() / 3) + ")",
+                    confirms.toArray());
+            Object[] args = new Object[chunk.size() * 3];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[3 * i] = chunk.get(i).getKey().getUserId();
+                args[3 * i + 1] = chunk.get(i).getKey().getFriendId();
+                args[3 * i + 2] = chunk.get(i).getValue();
+            }
+            inserted += JdbcFilmStorage.insertIgnoringRaces(jdbc, "INSERT INTO friends (user_id_1, user_id_2, status) "
+                    + "SELECT v.id1, v.id2, v.status FROM (VALUES " + statusRows(chunk.size())
+                    + ") AS v (id1, id2, status) "
+                    + "WHERE EXISTS (SELECT 1 FROM users WHERE id = v.id1) "
+                    + "AND EXISTS (SELECT 1 FROM users WHERE id = v.id2) "
+                    + "AND NOT EXISTS (SELECT 1 FROM friends f WHERE f.user_id_1 = v.id1 AND f.user_id_2 = v.id2)",
+                    args);
+        }
+        log.info("Confirmed {} and inserted {} pairs of {} friend requests in a batch", confirmed, inserted,
+                requests.size());
+    }
+
+    @Override
+    public void deleteFriend(User user, User friend) {
+        long id1 = Math.min(user.getId(), friend.getId());
+        long id2 = Math.max(user.getId(), friend.getId());
+        if (jdbc.update("DELETE FROM friends WHERE user_id_1 = ? AND user_id_2 = ?", id1, id2) == 0) {
+            log.warn("User with ID = {} doesn't have friend or request with ID = {}", user.getId(), friend.getId());
+            return;
+        }
+        user.getFriends().remove(friend.getId());
+        friend.getFriends().remove(user.getId());
+        log.info("Deleted friend or request with ID = {} of user with ID = {}", friend.getId(), user.getId());
+    }
+
+    private List<Long> friendIds(long id) {
+        return jdbc.queryForList("SELECT user_id_2 FROM friends WHERE user_id_1 = ? AND status = ? "
+                + "UNION ALL SELECT user_id_1 FROM friends WHERE user_id_2 = ? AND status = ?",
+                Long.class, id, FRIENDS, id, FRIENDS);
+    }
+
+    private static String requestStatus(long from, long to) {
+        return from < to ? REQ_U1 : REQ_U2;
+    }
+
+    private static String statusRows(int rows) {
+        return String.join(", ", Collections.nCopies(rows,
+                "(CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(10)))"));
+    }
+
+    private User getUserByKey(String column, String key, String name) {
+        List<Long> found = jdbc.queryForList("SELECT id FROM users WHERE " + column + " = ?", Long.class, key);
+        if (found.isEmpty()) {
+            log.error("User with key {} not found", key);
+            throw new NotFoundException("Пользователь с " + name + " " + key + " не найден");
+        }
+        return getUserById(found.getFirst());
+    }
+
+    // the index named in the message tells which key is taken, the value is known only for a single user
+    private static ConflictException conflict(DuplicateKeyException e, User user) {
+        boolean email = String.valueOf(e.getMessage()).toUpperCase().contains("USERS_EMAIL");
+        String key = user == null ? "" : (email ? user.getEmail() : user.getLogin()) + " ";
+        log.warn("Duplicate user key: {}", e.getMessage());
+        return new ConflictException((email ? "Email " : "Логин ") + key + "уже занят");
+    }
+
+    private User mapUser(ResultSet rs, int rowNum) throws SQLException {
+        Date birthday = rs.getDate("birthday");
+        return User.builder()
+                .id(rs.getLong("id"))
+                .email(rs.getString("email"))
+                .login(rs.getString("login"))
+                .password(rs.getString("password"))
+                .name(rs.getString("name"))
+                .birthday(birthday == null ? null : birthday.toLocalDate())
+                .build();
+    }
+
+    private Date toDate(User user) {
+        return user.getBirthday() == null ? null : Date.valueOf(user.getBirthday());
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Receives mutations of the in-memory storages in the order they are applied.
+ * Record methods are called under the entity's stripe and return a log position,
+ * {@link #awaitDurable(long)} is called with it once the stripe is released.
+ * Default implementations ignore the mutation.
+ */
+public interface MutationLog {
+    MutationLog NONE = new MutationLog() {
+    };
+
+    default long filmSaved(Film film) {
+        return 0;
+    }
+
+    default long filmDeleted(long filmId) {
+        return 0;
+    }
+
+    default long liked(long filmId, long userId) {
+        return 0;
+    }
+
+    default long unliked(long filmId, long userId) {
+        return 0;
+    }
+
+    default long userSaved(User user) {
+        return 0;
+    }
+
+    default long userDeleted(long userId) {
+        return 0;
+    }
+
+    default long friendRequested(long userId, long friendId) {
+        return 0;
+    }
+
+    /**
+     * The users became friends: {@code userId} confirmed the request of {@code friendId}. Logs written before
+     * requests existed have these records alone, for friendships made in one step.
+     */
+    default long friendAdded(long userId, long friendId) {
+        return 0;
+    }
+
+    /**
+     * The friendship or request of the users, whichever they had, was removed.
+     */
+    default long friendDeleted(long userId, long friendId) {
+        return 0;
+    }
+
+    /**
+     * Returns once the record at {@code position} is as durable as the log promises.
+     */
+    default void awaitDurable(long position) {
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Films ordered by likes count (desc), then by id (asc).
+ * Updated on every like/unlike, so top-k is read in O(k) instead of sorting the whole catalog.
+ */
+public class PopularityIndex {
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Integer> counts = new ConcurrentHashMap<>();
+
+    public void update(long filmId, int likes) {
+        counts.compute(filmId, (id, old) -> {
+            // add new position first so readers never miss the film, duplicates are filtered in top();
+            // the skip list never blocks, so nothing parks while compute holds the bin monitor
+            ranking.add(new Entry(likes, id));
+            if (old != null && old != likes) {
+                ranking.remove(new Entry(old, id));
+            }
+            return likes;
+        });
+    }
+
+    public void remove(long filmId) {
+        counts.computeIfPresent(filmId, (id, old) -> {
+            ranking.remove(new Entry(old, id));
+            return null;
+        });
+    }
+
+    public List<Long> top(int count) {
+        List<Long> result = new ArrayList<>(Math.max(0, Math.min(count, counts.size())));
+        if (count <= 0) {
+            return result;
+        }
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : ranking) {
+            if (seen.add(entry.filmId())) {
+                result.add(entry.filmId());
+                if (result.size() == count) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    private record Entry(int likes, long filmId) {
+    }
+}
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory id sequence, ids start from 1.
+ */
+public class SequenceIdGenerator implements IdGenerator {
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    @Override
+    public void skipTo(long id) {
+        sequence.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Reserves {@code size} consecutive ids and returns the first one.
+     */
+    public long reserve(int size) {
+        return sequence.getAndAdd(size) + 1;
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary copy of both storages: header, then films, users with their friends and pending friend requests,
+ * each entry prefixed by a 1 byte and each section closed by a 0. Version 1 has no requests section.
+ * Written to a temporary file and renamed, so a snapshot is either whole or absent.
+ */
+final class SnapshotFile {
+    private static final int MAGIC = 0x464C4D53;
+    private static final int VERSION = 2;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * @param firstSegment first write-ahead log segment to replay on top of this snapshot
+     */
+    static void write(Path file, long firstSegment, Iterable<Film> films, Iterable<User> users,
+                      Iterable<Friendship> requests) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(firstSegment);
+            for (Film film : films) {
+                out.writeByte(1);
+                BinaryRecords.writeFilm(out, film);
+            }
+            out.writeByte(0);
+            for (User user : users) {
+                out.writeByte(1);
+                BinaryRecords.writeUser(out, user);
+            }
+            out.writeByte(0);
+            for (Friendship request : requests) {
+                out.writeByte(1);
+                out.writeLong(request.getUserId());
+                out.writeLong(request.getFriendId());
+            }
+            out.writeByte(0);
+            out.flush();
+            stream.getChannel().force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // the rename is durable once the directory is: before the log segments it replaces are deleted
+        try (FileChannel dir = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        }
+    }
+
+    /**
+     * @return first write-ahead log segment to replay on top of the snapshot
+     */
+    static long read(Path file, Consumer<Film> films, Consumer<User> users, Consumer<Friendship> requests)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int version = in.getInt() == MAGIC ? in.getInt() : 0;
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Not a snapshot of a supported version: " + file);
+            }
+            long firstSegment = in.getLong();
+            while (in.get() != 0) {
+                films.accept(BinaryRecords.readFilm(in));
+            }
+            while (in.get() != 0) {
+                users.accept(BinaryRecords.readUser(in));
+            }
+            while (version > 1 && in.get() != 0) {
+                requests.accept(new Friendship(in.getLong(), in.getLong()));
+            }
+            return firstSegment;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by entity ids.
+ * Several ids are always locked in stripe order, so two threads locking the same pair can't deadlock.
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+
+    public StripedLock(int size) {
+        int pow2 = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        stripes = new ReentrantLock[pow2];
+        for (int i = 0; i < pow2; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Unlocker lock(long... ids) {
+        int[] sorted = switch (ids.length) {
+            // one or two ids on every like and friend change, skip the general sort there
+            case 1 -> new int[] {stripeIndex(ids[0])};
+            case 2 -> {
+                int first = stripeIndex(ids[0]);
+                int second = stripeIndex(ids[1]);
+                yield first == second ? new int[] {first}
+                        : new int[] {Math.min(first, second), Math.max(first, second)};
+            }
+            default -> {
+                int[] indexes = new int[ids.length];
+                for (int i = 0; i < ids.length; i++) {
+                    indexes[i] = stripeIndex(ids[i]);
+                }
+                yield Arrays.stream(indexes).sorted().distinct().toArray();
+            }
+        };
+        for (int index : sorted) {
+            stripes[index].lock();
+        }
+        return new Unlocker(sorted);
+    }
+
+    private int stripeIndex(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (stripes.length - 1);
+    }
+
+    public class Unlocker implements AutoCloseable {
+        private final int[] locked;
+
+        private Unlocker(int[] locked) {
+            this.locked = locked;
+        }
+
+        @Override
+        public void close() {
+            for (int i = locked.length - 1; i >= 0; i--) {
+                stripes[locked[i]].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Likes of recent time buckets per film, for "popular in the last N hours".
+ * A like in bucket b counts as 2^-((now - b) / halfLife), so within a window newer likes weigh more.
+ * <p>
+ * Each film liked within {@code maxWindow} has a ring of per-bucket counters: a like or unlike is O(1),
+ * plus clearing expired buckets once per bucket. Films are ranked by log2 of their decayed likes over the
+ * whole ring, in bucket units since the epoch; this orders films the same way at any moment and only
+ * overestimates a window's score, so top-k walks the ranking until the bound drops below the k-th exact score.
+ * Rings left without likes in the last {@code maxWindow} are dropped by {@link #prune()}, which {@link #start()}
+ * runs once per bucket in the background, off the like path.
+ */
+public class TrendingIndex {
+    public static final Duration DEFAULT_BUCKET = Duration.ofHours(1);
+    public static final Duration DEFAULT_MAX_WINDOW = Duration.ofDays(7);
+    public static final Duration DEFAULT_HALF_LIFE = Duration.ofHours(24);
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::rank).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    private final Clock clock;
+    private final long bucketMillis;
+    private final int buckets;
+    private final double halfLifeBuckets;
+    // weights[i] = 2^(-i / halfLifeBuckets), weight of a bucket i buckets old
+    private final double[] weights;
+
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Ring> rings = new ConcurrentHashMap<>();
+    private final StripedLock locks = new StripedLock(64);
+    private ScheduledExecutorService pruner;
+
+    public TrendingIndex() {
+        this(Clock.systemUTC(), DEFAULT_BUCKET, DEFAULT_MAX_WINDOW, DEFAULT_HALF_LIFE);
+    }
+
+    public TrendingIndex(Clock clock, Duration bucket, Duration maxWindow, Duration halfLife) {
+        if (bucket.toMillis() <= 0 || maxWindow.compareTo(bucket) < 0 || halfLife.toMillis() <= 0) {
+            throw new IllegalArgumentException("Bucket and half-life must be positive, max window at least a bucket");
+        }
+        this.clock = clock;
+        this.bucketMillis = bucket.toMillis();
+        this.buckets = Math.toIntExact(ceilDiv(maxWindow.toMillis(), bucketMillis));
+        this.halfLifeBuckets = (double) halfLife.toMillis() / bucketMillis;
+        this.weights = new double[buckets];
+        for (int i = 0; i < buckets; i++) {
+            weights[i] = Math.pow(2, -i / halfLifeBuckets);
+        }
+    }
+
+    public void start() {
+        pruner = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("trending-prune").daemon()
+                .factory());
+        pruner.scheduleAtFixedRate(this::prune, bucketMillis, bucketMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (pruner != null) {
+            pruner.shutdownNow();
+        }
+    }
+
+    public Duration getMaxWindow() {
+        return Duration.ofMillis(bucketMillis * buckets);
+    }
+
+    public void liked(long filmId, int count) {
+        long now = currentBucket();
+        try (StripedLock.Unlocker ignored = locks.lock(filmId)) {
+            Ring ring = rings.computeIfAbsent(filmId, id -> new Ring(now));
+            double oldRank = ring.rank();
+            ring.advance(now);
+            ring.counts[slot(now)] += count;
+            ring.decayed += count;
+            rerank(filmId, oldRank, ring);
+        }
+    }
+
+    /**
+     * Counts {@code count} likes of a restored film as new ones, in place of what the film had.
+     * Like times aren't stored, so a film restored from a snapshot trends as if liked just now, the same way
+     * likes replayed from the log do.
+     */
+    public void restored(long filmId, int count) {
+        long now = currentBucket();
+        try (StripedLock.Unlocker ignored = locks.lock(filmId)) {
+            Ring old = rings.remove(filmId);
+            if (old != null) {
+                ranking.remove(new Entry(old.rank(), filmId));
+            }
+            if (count > 0) {
+                Ring ring = new Ring(now);
+                ring.counts[slot(now)] = count;
+                ring.decayed = count;
+                rings.put(filmId, ring);
+                ranking.add(new Entry(ring.rank(), filmId));
+            }
+        }
+    }
+
+    /**
+     * Like times aren't kept, so an unlike takes back the newest like still counted.
+     */
+    public void unliked(long filmId) {
+        long now = currentBucket();
+        try (StripedLock.Unlocker ignored = locks.lock(filmId)) {
+            Ring ring = rings.get(filmId);
+            if (ring == null) {
+                return;
+            }
+            double oldRank = ring.rank();
+            ring.advance(now);
+            for (int age = 0; age < buckets; age++) {
+                int slot = slot(now - age);
+                if (ring.counts[slot] > 0) {
+                    ring.counts[slot]--;
+                    ring.decayed -= weights[age];
+                    break;
+                }
+            }
+            if (ring.decayed < weights[buckets - 1] / 2) {
+                // rounding leftovers of an emptied ring
+                ring.decayed = 0;
+            }
+            rerank(filmId, oldRank, ring);
+        }
+    }
+
+    public void remove(long filmId) {
+        try (StripedLock.Unlocker ignored = locks.lock(filmId)) {
+            Ring ring = rings.remove(filmId);
+            if (ring != null) {
+                ranking.remove(new Entry(ring.rank(), filmId));
+            }
+        }
+    }
+
+    /**
+     * Ids of up to {@code count} films with the highest decayed likes within {@code window}, films without likes
+     * in the window are left out. Ties go to the lower id.
+     */
+    public List<Long> top(Duration window, int count) {
+        if (window.compareTo(getMaxWindow()) > 0) {
+            throw new ValidationException("Окно должно быть не больше " + getMaxWindow().toHours() + " ч");
+        }
+        if (count <= 0) {
+            return List.of();
+        }
+        long now = currentBucket();
+        int windowBuckets = (int) Math.max(1, ceilDiv(window.toMillis(), bucketMillis));
+        Comparator<Scored> worstFirst = Comparator.comparingDouble(Scored::score)
+                .thenComparing(Comparator.comparingLong(Scored::filmId).reversed());
+        PriorityQueue<Scored> best = new PriorityQueue<>(worstFirst);
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : ranking) {
+            double bound = Math.pow(2, entry.rank() - now / halfLifeBuckets);
+            // the bound is summed in another order than the score, leave room for rounding
+            if (best.size() == count && bound * (1 + 1e-9) < best.peek().score()) {
+                break;
+            }
+            if (!seen.add(entry.filmId())) {
+                continue;
+            }
+            double score = score(entry.filmId(), now, windowBuckets);
+            if (score > 0) {
+                best.add(new Scored(entry.filmId(), score));
+                if (best.size() > count) {
+                    best.poll();
+                }
+            }
+        }
+        List<Long> result = new ArrayList<>(best.size());
+        best.stream().sorted(worstFirst.reversed()).forEach(scored -> result.add(scored.filmId()));
+        return result;
+    }
+
+    /**
+     * Drops rings without likes in the last {@code maxWindow}, one film's stripe at a time.
+     */
+    public void prune() {
+        long now = currentBucket();
+        for (Long filmId : rings.keySet()) {
+            try (StripedLock.Unlocker ignored = locks.lock(filmId)) {
+                Ring ring = rings.get(filmId);
+                if (ring != null && now - ring.head >= buckets) {
+                    rings.remove(filmId);
+                    ranking.remove(new Entry(ring.rank(), filmId));
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return rings.size();
+    }
+
+    private double score(long filmId, long now, int windowBuckets) {
+        try (StripedLock.Unlocker ignored = locks.lock(filmId)) {
+            Ring ring = rings.get(filmId);
+            if (ring == null) {
+                return 0;
+            }
+            double score = 0;
+            for (long age = Math.max(0, now - ring.head); age < windowBuckets; age++) {
+                score += ring.counts[slot(now - age)] * weights[(int) age];
+            }
+            return score;
+        }
+    }
+
+    // called under the film's stripe
+    private void rerank(long filmId, double oldRank, Ring ring) {
+        double rank = ring.rank();
+        if (rank == oldRank) {
+            return;
+        }
+        // new position first so readers never miss the film, as in PopularityIndex
+        if (ring.decayed > 0) {
+            ranking.add(new Entry(rank, filmId));
+        } else {
+            rings.remove(filmId);
+        }
+        ranking.remove(new Entry(oldRank, filmId));
+    }
+
+    private long currentBucket() {
+        return clock.millis() / bucketMillis;
+    }
+
+    private int slot(long bucket) {
+        return Math.floorMod(bucket, buckets);
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private class Ring {
+        final int[] counts = new int[buckets];
+        // newest bucket written, counts of older buckets are relative to it
+        long head;
+        // sum of counts[b] * 2^(-(head - b) / halfLife)
+        double decayed;
+
+        Ring(long head) {
+            this.head = head;
+        }
+
+        double rank() {
+            return head / halfLifeBuckets + Math.log(decayed) / Math.log(2);
+        }
+
+        // clears buckets that fell out of the ring, then recounts decayed exactly so rounding doesn't add up
+        void advance(long now) {
+            if (now <= head) {
+                return;
+            }
+            if (now - head >= buckets) {
+                Arrays.fill(counts, 0);
+            } else {
+                for (long bucket = head + 1; bucket <= now; bucket++) {
+                    counts[slot(bucket)] = 0;
+                }
+            }
+            head = now;
+            decayed = 0;
+            for (int age = 0; age < buckets; age++) {
+                decayed += counts[slot(now - age)] * weights[age];
+            }
+        }
+    }
+
+    private record Entry(double rank, long filmId) {
+    }
+
+    private record Scored(long filmId, double score) {
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse side of Film.likes: ids of films liked by each user.
+ * Sets are changed under a per-user stripe rather than inside ConcurrentHashMap.compute:
+ * compute holds a monitor, and a virtual thread waiting for the set's lock there would pin its carrier.
+ */
+public class UserLikesIndex {
+    private final Map<Long, LongHashSet> likedFilms = new ConcurrentHashMap<>();
+    private final StripedLock locks = new StripedLock(64);
+
+    public void add(long userId, long filmId) {
+        try (StripedLock.Unlocker ignored = locks.lock(userId)) {
+            likedFilms.computeIfAbsent(userId, id -> new LongHashSet()).add(filmId);
+        }
+    }
+
+    public void remove(long userId, long filmId) {
+        try (StripedLock.Unlocker ignored = locks.lock(userId)) {
+            LongHashSet films = likedFilms.get(userId);
+            if (films != null && films.remove(filmId) && films.isEmpty()) {
+                likedFilms.remove(userId);
+            }
+        }
+    }
+
+    public long[] filmsOf(long userId) {
+        LongHashSet films = likedFilms.get(userId);
+        return films == null ? new long[0] : films.toLongArray();
+    }
+}
@@ -1,17 +1,75 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 
+/**
+ * Emails and logins are unique among users: adding or updating a user with a taken one throws
+ * {@link ru.yandex.practicum.filmorate.exception.ConflictException}.
+ * <p>
+ * Users become friends when one sends a friend request and the other confirms it by a request back.
+ * {@code User.friends} holds confirmed friends only and is set by the storage, whatever the user passed in has.
+ */
 public interface UserStorage {
     User addUser(User user);
 
+    /**
+     * Adds users in one batch, each gets a new id as in {@link #addUser}. If any email or login is taken,
+     * by another user or within the batch, none of the batch is added.
+     */
+    List<User> addUsers(List<User> users);
+
     User updateUser(User user);
 
     void deleteUser(User user);
 
     User getUserById(long id);
 
+    User getUserByEmail(String email);
+
+    User getUserByLogin(String login);
+
+    /**
+     * Users with given ids in the same order, ids of missing users are skipped.
+     */
+    List<User> getUsersByIds(long[] ids);
+
     Collection<User> findAll();
+
+    /**
+     * Up to {@code limit} entities with id greater than {@code afterId}, ordered by id.
+     */
+    List<User> findPage(long afterId, int limit);
+
+    long countUsers();
+
+    /**
+     * Sizes of friend sets of all users together, each friendship counts twice.
+     */
+    long countFriends();
+
+    /**
+     * Ids of users whose friend requests to the user are pending, ordered.
+     */
+    long[] getFriendRequests(long userId);
+
+    /**
+     * Sends a friend request from the user to the friend, or confirms the friend's request to the user.
+     * A repeated request or an existing friendship is left as it is.
+     */
+    void addFriend(User user, User friend);
+
+    /**
+     * Applies requests as {@link #addFriend} in one pass, in order. Requests of users deleted in the meantime
+     * are skipped.
+     */
+    void addFriends(Collection<Friendship> requests);
+
+    /**
+     * Removes the friendship or the pending request of the users, whichever direction it was sent in.
+     */
+    void deleteFriend(User user, User friend);
 }
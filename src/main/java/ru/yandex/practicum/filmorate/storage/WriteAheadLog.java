@@ -0,0 +1,422 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of storage mutations in memory-mapped segment files wal-N.log.
+ * Record: int length, int CRC32C, then the body (type byte and payload); a zero length ends the segment.
+ * Replay stops at the first torn record of a segment, which is where a crash left it.
+ * Until {@link #open()} appends are dropped, so storages can be restored through their usual methods.
+ */
+@Slf4j
+public class WriteAheadLog implements MutationLog, Closeable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte FILM_SAVED = 1;
+    private static final byte FILM_DELETED = 2;
+    private static final byte LIKED = 3;
+    private static final byte UNLIKED = 4;
+    private static final byte USER_SAVED = 5;
+    private static final byte USER_DELETED = 6;
+    private static final byte FRIEND_ADDED = 7;
+    private static final byte FRIEND_DELETED = 8;
+    private static final byte FRIEND_REQUESTED = 9;
+
+    private final Path dir;
+    private final Durability durability;
+    private final Duration flushInterval;
+    private final int segmentSize;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // guarded by appendLock; positions count bytes appended since open(), 0 means nothing was written
+    private Segment segment;
+    private long written;
+
+    // taken before appendLock when both are needed
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushed = flushLock.newCondition();
+    // guarded by flushLock
+    private long durable;
+
+    private volatile boolean open;
+    private Thread flusher;
+
+    public WriteAheadLog(Path dir, Durability durability, Duration flushInterval, int segmentSize) {
+        this.dir = dir;
+        this.durability = durability;
+        this.flushInterval = flushInterval;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Starts a new segment after the existing ones and begins accepting records.
+     */
+    public void open() throws IOException {
+        Files.createDirectories(dir);
+        List<Long> existing = segments();
+        appendLock.lock();
+        try {
+            segment = Segment.create(dir, existing.isEmpty() ? 1 : existing.getLast() + 1, segmentSize, 0);
+        } finally {
+            appendLock.unlock();
+        }
+        open = true;
+        if (durability != Durability.SYNC) {
+            flusher = Thread.ofPlatform().name("wal-flusher").daemon().start(this::flushPeriodically);
+        }
+        log.info("Write-ahead log opened in {}, durability {}", dir, durability);
+    }
+
+    /**
+     * Closes the current segment unless it is empty, later records go to the next one.
+     *
+     * @return number of the segment that receives the next record
+     */
+    public long rotate() {
+        appendLock.lock();
+        try {
+            if (segment.offset > 0) {
+                roll(0);
+            }
+            return segment.number;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes segments replaced by a snapshot.
+     */
+    public void deleteSegmentsBefore(long number) throws IOException {
+        for (long existing : segments()) {
+            if (existing < number) {
+                Files.deleteIfExists(segmentPath(dir, existing));
+            }
+        }
+    }
+
+    /**
+     * Feeds records of segments starting from {@code fromSegment} to {@code target} in log order.
+     *
+     * @return number of records replayed
+     */
+    public long replay(long fromSegment, MutationLog target) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        long records = 0;
+        for (long number : segments()) {
+            if (number < fromSegment) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segmentPath(dir, number), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (buffer.remaining() >= HEADER_SIZE) {
+                    int length = buffer.getInt();
+                    int checksum = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining()) {
+                        break;
+                    }
+                    ByteBuffer body = buffer.slice(buffer.position(), length);
+                    if (checksum(body) != checksum) {
+                        log.warn("Torn record in segment {} at {}, the rest of the segment is skipped",
+                                number, buffer.position() - HEADER_SIZE);
+                        break;
+                    }
+                    buffer.position(buffer.position() + length);
+                    apply(body, target);
+                    records++;
+                }
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public long filmSaved(Film film) {
+        return append(FILM_SAVED, out -> BinaryRecords.writeFilm(out, film));
+    }
+
+    @Override
+    public long filmDeleted(long filmId) {
+        return append(ByteBuffer.allocate(9).put(FILM_DELETED).putLong(filmId).array());
+    }
+
+    @Override
+    public long liked(long filmId, long userId) {
+        return append(pair(LIKED, filmId, userId));
+    }
+
+    @Override
+    public long unliked(long filmId, long userId) {
+        return append(pair(UNLIKED, filmId, userId));
+    }
+
+    @Override
+    public long userSaved(User user) {
+        return append(USER_SAVED, out -> BinaryRecords.writeUser(out, user));
+    }
+
+    @Override
+    public long userDeleted(long userId) {
+        return append(ByteBuffer.allocate(9).put(USER_DELETED).putLong(userId).array());
+    }
+
+    @Override
+    public long friendRequested(long userId, long friendId) {
+        return append(pair(FRIEND_REQUESTED, userId, friendId));
+    }
+
+    @Override
+    public long friendAdded(long userId, long friendId) {
+        return append(pair(FRIEND_ADDED, userId, friendId));
+    }
+
+    @Override
+    public long friendDeleted(long userId, long friendId) {
+        return append(pair(FRIEND_DELETED, userId, friendId));
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+        if (position == 0 || durability == Durability.ASYNC) {
+            return;
+        }
+        if (durability == Durability.SYNC) {
+            flush(position);
+            return;
+        }
+        flushLock.lock();
+        try {
+            while (durable < position && open) {
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+        }
+        flush(Long.MAX_VALUE);
+        appendLock.lock();
+        try {
+            closeSegment();
+        } finally {
+            appendLock.unlock();
+        }
+        flushLock.lock();
+        try {
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private long append(byte type, RecordWriter writer) {
+        if (!open) {
+            return 0;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return append(bytes.toByteArray());
+    }
+
+    private long append(byte[] body) {
+        if (!open) {
+            return 0;
+        }
+        int checksum = checksum(ByteBuffer.wrap(body));
+        int size = HEADER_SIZE + body.length;
+        appendLock.lock();
+        try {
+            if (segment == null) {
+                return 0;
+            }
+            if (segment.buffer.capacity() - segment.offset < size) {
+                roll(size);
+            }
+            MappedByteBuffer buffer = segment.buffer;
+            int offset = segment.offset;
+            buffer.putInt(offset + 4, checksum);
+            buffer.put(offset + HEADER_SIZE, body);
+            buffer.putInt(offset, body.length);
+            segment.offset += size;
+            written += size;
+            return written;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // called under appendLock; the old segment is forced here, so flush() only deals with the current one
+    private void roll(int recordSize) {
+        long next = segment.number + 1;
+        long base = written;
+        closeSegment();
+        try {
+            segment = Segment.create(dir, next, Math.max(segmentSize, recordSize), base);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        segment.buffer.force(0, segment.offset);
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("Can't close write-ahead log segment {}", segment.number, e);
+        }
+        segment = null;
+    }
+
+    private void flush(long position) {
+        flushLock.lock();
+        try {
+            if (durable >= position) {
+                return;
+            }
+            Segment target;
+            long upTo;
+            int end;
+            appendLock.lock();
+            try {
+                target = segment;
+                upTo = written;
+                end = target == null ? 0 : target.offset;
+            } finally {
+                appendLock.unlock();
+            }
+            if (upTo <= durable) {
+                return;
+            }
+            if (target != null) {
+                int from = (int) Math.max(0, durable - target.base);
+                target.buffer.force(from, end - from);
+            }
+            durable = upTo;
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPeriodically() {
+        long intervalNanos = flushInterval.toNanos();
+        while (open) {
+            LockSupport.parkNanos(intervalNanos);
+            try {
+                flush(Long.MAX_VALUE);
+            } catch (RuntimeException e) {
+                log.error("Write-ahead log flush failed", e);
+            }
+        }
+    }
+
+    private static void apply(ByteBuffer body, MutationLog target) {
+        byte type = body.get();
+        switch (type) {
+            case FILM_SAVED -> target.filmSaved(BinaryRecords.readFilm(body));
+            case FILM_DELETED -> target.filmDeleted(body.getLong());
+            case LIKED -> target.liked(body.getLong(), body.getLong());
+            case UNLIKED -> target.unliked(body.getLong(), body.getLong());
+            case USER_SAVED -> target.userSaved(BinaryRecords.readUser(body));
+            case USER_DELETED -> target.userDeleted(body.getLong());
+            case FRIEND_ADDED -> target.friendAdded(body.getLong(), body.getLong());
+            case FRIEND_DELETED -> target.friendDeleted(body.getLong(), body.getLong());
+            case FRIEND_REQUESTED -> target.friendRequested(body.getLong(), body.getLong());
+            default -> throw new IllegalStateException("Unknown write-ahead log record type " + type);
+        }
+    }
+
+    private static byte[] pair(byte type, long first, long second) {
+        return ByteBuffer.allocate(17).put(type).putLong(first).putLong(second).array();
+    }
+
+    private static int checksum(ByteBuffer body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name, SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length(), 10))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path segmentPath(Path dir, long number) {
+        return dir.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static final class Segment {
+        private final long number;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // log position of the segment's first byte
+        private final long base;
+        private int offset;
+
+        private Segment(long number, FileChannel channel, MappedByteBuffer buffer, long base) {
+            this.number = number;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.base = base;
+        }
+
+        private static Segment create(Path dir, long number, int size, long base) throws IOException {
+            FileChannel channel = FileChannel.open(segmentPath(dir, number),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(number, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), base);
+        }
+    }
+}
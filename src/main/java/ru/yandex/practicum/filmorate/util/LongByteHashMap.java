@@ -0,0 +1,229 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe map from primitive longs to non-zero bytes, laid out like {@link LongHashSet}: open addressing with
+ * linear probing over a long[] of keys and a byte[] of values, about 12-24 bytes per entry.
+ * A value of 0 stands for a missing key and can't be stored.
+ * <p>
+ * Keys are spread by hash over {@link #SEGMENTS} segments, each a table of its own behind its own lock, so writes
+ * of different keys mostly don't wait for each other and a resize copies one segment only. Reads are optimistic
+ * and fall back to the segment's read lock.
+ */
+public final class LongByteHashMap {
+    static final int SEGMENTS = 16;
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 4;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public LongByteHashMap() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Value of the key, 0 if there is none.
+     */
+    public byte get(long key) {
+        return segment(key).get(key);
+    }
+
+    /**
+     * @return previous value of the key, 0 if there was none
+     */
+    public byte put(long key, byte value) {
+        if (value == 0) {
+            throw new IllegalArgumentException("0 stands for a missing value");
+        }
+        return segment(key).put(key, value);
+    }
+
+    /**
+     * @return removed value, 0 if the key wasn't there
+     */
+    public byte remove(long key) {
+        return segment(key).remove(key);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    // the top bits of the hash pick the segment, the low ones the slot in it
+    private Segment segment(long key) {
+        return segments[(int) (hash(key) >>> SEGMENT_SHIFT)];
+    }
+
+    private static long hash(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = hash(key);
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        // 0 marks a free slot, key 0 itself keeps its value in zeroValue
+        private long[] keys = new long[MIN_CAPACITY];
+        private byte[] values = new byte[MIN_CAPACITY];
+        private byte zeroValue;
+        private int used;
+        private volatile int size;
+
+        byte get(long key) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                byte value = find(key);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return find(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        byte put(long key, byte value) {
+            long stamp = lock.writeLock();
+            try {
+                return insert(key, value);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        byte remove(long key) {
+            long stamp = lock.writeLock();
+            try {
+                return delete(key);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private byte find(long key) {
+            if (key == EMPTY) {
+                return zeroValue;
+            }
+            long[] currentKeys = keys;
+            byte[] currentValues = values;
+            int mask = currentKeys.length - 1;
+            int i = slot(key, mask);
+            // bounded, so an optimistic read of a table being modified can't spin forever
+            for (int probes = 0; probes < currentKeys.length; probes++) {
+                long k = currentKeys[i];
+                if (k == key) {
+                    return i < currentValues.length ? currentValues[i] : 0;
+                }
+                if (k == EMPTY) {
+                    return 0;
+                }
+                i = (i + 1) & mask;
+            }
+            return 0;
+        }
+
+        private byte insert(long key, byte value) {
+            if (key == EMPTY) {
+                byte previous = zeroValue;
+                zeroValue = value;
+                if (previous == 0) {
+                    size++;
+                }
+                return previous;
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key) {
+                    byte previous = values[i];
+                    values[i] = value;
+                    return previous;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            used++;
+            size++;
+            if (used > keys.length * LOAD_FACTOR) {
+                rehash(keys.length * 2);
+            }
+            return 0;
+        }
+
+        private byte delete(long key) {
+            if (key == EMPTY) {
+                byte previous = zeroValue;
+                zeroValue = 0;
+                if (previous != 0) {
+                    size--;
+                }
+                return previous;
+            }
+            int mask = keys.length - 1;
+            int hole = slot(key, mask);
+            while (keys[hole] != key) {
+                if (keys[hole] == EMPTY) {
+                    return 0;
+                }
+                hole = (hole + 1) & mask;
+            }
+            byte previous = values[hole];
+            // backward shift, as in LongHashSet
+            int i = hole;
+            while (true) {
+                i = (i + 1) & mask;
+                long k = keys[i];
+                if (k == EMPTY) {
+                    break;
+                }
+                int home = slot(k, mask);
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    keys[hole] = k;
+                    values[hole] = values[i];
+                    hole = i;
+                }
+            }
+            keys[hole] = EMPTY;
+            values[hole] = 0;
+            used--;
+            size--;
+            return previous;
+        }
+
+        private void rehash(int capacity) {
+            long[] resizedKeys = new long[capacity];
+            byte[] resizedValues = new byte[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < keys.length; j++) {
+                if (keys[j] != EMPTY) {
+                    int i = slot(keys[j], mask);
+                    while (resizedKeys[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    resizedKeys[i] = keys[j];
+                    resizedValues[i] = values[j];
+                }
+            }
+            // values first: an optimistic reader that sees the new keys must not index past the old values
+            values = resizedValues;
+            keys = resizedKeys;
+        }
+    }
+}
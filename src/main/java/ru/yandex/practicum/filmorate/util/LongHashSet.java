@@ -0,0 +1,296 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Thread-safe set of primitive longs: open addressing with linear probing over a single long[].
+ * Takes about 11-21 bytes per id instead of ~50 for a boxed Long in a hash set node.
+ * Lookups use optimistic reads, iteration goes over a snapshot and never throws ConcurrentModificationException.
+ */
+public final class LongHashSet extends AbstractSet<Long> {
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 4;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final StampedLock lock = new StampedLock();
+    // 0 marks a free slot, id 0 itself is kept in hasZero
+    private long[] table;
+    private boolean hasZero;
+    private int used;
+    private volatile int size;
+
+    public LongHashSet() {
+        this(0);
+    }
+
+    public LongHashSet(int expectedSize) {
+        table = new long[capacityFor(expectedSize)];
+    }
+
+    public static LongHashSet copyOf(Collection<Long> ids) {
+        if (ids == null) {
+            return new LongHashSet();
+        }
+        if (ids instanceof LongHashSet other) {
+            long[] values = other.toLongArray();
+            LongHashSet copy = new LongHashSet(values.length);
+            for (long id : values) {
+                copy.insert(id);
+            }
+            return copy;
+        }
+        LongHashSet copy = new LongHashSet(ids.size());
+        for (Long id : ids) {
+            copy.insert(id);
+        }
+        return copy;
+    }
+
+    public boolean add(long id) {
+        long stamp = lock.writeLock();
+        try {
+            return insert(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(long id) {
+        long stamp = lock.writeLock();
+        try {
+            return delete(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean contains(long id) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            boolean found = find(id);
+            if (lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return find(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Snapshot of the ids in no particular order.
+     */
+    public long[] toLongArray() {
+        long stamp = lock.readLock();
+        try {
+            long[] result = new long[size];
+            int i = 0;
+            if (hasZero) {
+                result[i++] = 0;
+            }
+            for (long id : table) {
+                if (id != EMPTY) {
+                    result[i++] = id;
+                }
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void forEachLong(LongConsumer action) {
+        for (long id : toLongArray()) {
+            action.accept(id);
+        }
+    }
+
+    @Override
+    public boolean add(Long id) {
+        return add(id.longValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long id && remove(id.longValue());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long id && contains(id.longValue());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = new long[MIN_CAPACITY];
+            hasZero = false;
+            used = 0;
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        long[] snapshot = toLongArray();
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.length;
+            }
+
+            @Override
+            public Long next() {
+                if (next >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (next == 0) {
+                    throw new IllegalStateException();
+                }
+                LongHashSet.this.remove(snapshot[next - 1]);
+            }
+        };
+    }
+
+    private boolean find(long id) {
+        if (id == EMPTY) {
+            return hasZero;
+        }
+        long[] current = table;
+        int mask = current.length - 1;
+        int i = slot(id, mask);
+        // bounded, so an optimistic read of a table being modified can't spin forever
+        for (int probes = 0; probes < current.length; probes++) {
+            long value = current[i];
+            if (value == id) {
+                return true;
+            }
+            if (value == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    private boolean insert(long id) {
+        if (id == EMPTY) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int i = slot(id, mask);
+        while (table[i] != EMPTY) {
+            if (table[i] == id) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = id;
+        used++;
+        size++;
+        if (used > table.length * LOAD_FACTOR) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    private boolean delete(long id) {
+        if (id == EMPTY) {
+            if (!hasZero) {
+                return false;
+            }
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int mask = table.length - 1;
+        int hole = slot(id, mask);
+        while (table[hole] != id) {
+            if (table[hole] == EMPTY) {
+                return false;
+            }
+            hole = (hole + 1) & mask;
+        }
+        // backward shift: move following entries of the cluster into the hole unless they'd leave their home slot
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            long value = table[i];
+            if (value == EMPTY) {
+                break;
+            }
+            int home = slot(value, mask);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                table[hole] = value;
+                hole = i;
+            }
+        }
+        table[hole] = EMPTY;
+        used--;
+        size--;
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        long[] resized = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int i = slot(value, mask);
+                while (resized[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                resized[i] = value;
+            }
+        }
+        table = resized;
+    }
+
+    private static int slot(long id, int mask) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toLongArray());
+    }
+}
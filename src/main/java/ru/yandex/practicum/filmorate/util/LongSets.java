@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Read-only operations over sets of ids.
+ */
+public final class LongSets {
+    private LongSets() {
+    }
+
+    /**
+     * Sorted ids present in both sets. Neither set is modified.
+     * The smaller set is copied and its ids are probed against the larger one,
+     * so the cost is O(min(a, b)) lookups plus sorting of the result.
+     * Sets may be changed concurrently if they support weakly consistent iteration.
+     */
+    public static long[] intersect(Set<Long> a, Set<Long> b) {
+        Set<Long> smaller = a.size() <= b.size() ? a : b;
+        Set<Long> larger = smaller == a ? b : a;
+        long[] candidates = toArray(smaller);
+        int found = 0;
+        if (larger instanceof LongHashSet primitive) {
+            for (long id : candidates) {
+                if (primitive.contains(id)) {
+                    candidates[found++] = id;
+                }
+            }
+        } else {
+            for (long id : candidates) {
+                if (larger.contains(id)) {
+                    candidates[found++] = id;
+                }
+            }
+        }
+        long[] result = Arrays.copyOf(candidates, found);
+        Arrays.sort(result);
+        return result;
+    }
+
+    public static long[] toSortedArray(Collection<Long> ids) {
+        long[] result = toArray(ids);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Up to {@code max} of the ids: all of them, or every (size / max)-th in iteration order when there are more.
+     * Iteration order of a LongHashSet follows id hashes, so a sample isn't biased to old or new ids.
+     */
+    public static long[] sample(Collection<Long> ids, int max) {
+        return sample(toArray(ids), max);
+    }
+
+    /**
+     * Up to {@code max} of the ids as {@link #sample(Collection, int)} picks them; the array itself when it fits.
+     */
+    public static long[] sample(long[] all, int max) {
+        if (all.length <= max) {
+            return all;
+        }
+        long[] result = new long[max];
+        for (int i = 0; i < max; i++) {
+            result[i] = all[(int) ((long) i * all.length / max)];
+        }
+        return result;
+    }
+
+    private static long[] toArray(Collection<Long> ids) {
+        if (ids instanceof LongHashSet primitive) {
+            return primitive.toLongArray();
+        }
+        // size may change during iteration of a concurrent set
+        long[] result = new long[ids.size()];
+        int i = 0;
+        for (Long id : ids) {
+            if (i == result.length) {
+                result = Arrays.copyOf(result, result.length * 2 + 1);
+            }
+            result[i++] = id;
+        }
+        return i == result.length ? result : Arrays.copyOf(result, i);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Second-degree contacts of a user in a graph given as primitive adjacency arrays: friends of friends,
+ * or users who liked the same films.
+ */
+public final class SecondDegree {
+    /**
+     * From this many second-degree ids on they are sorted on the fork-join pool.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static final Comparator<Candidate> WORST_FIRST = Comparator.comparingInt(Candidate::shared)
+            .thenComparing(Comparator.comparingLong(Candidate::id).reversed());
+
+    private SecondDegree() {
+    }
+
+    /**
+     * Up to {@code count} users that are friends of the user's friends but neither the user nor their friend,
+     * by the number of mutual friends (desc), then by id. {@code adjacency} holds friend ids of the user's friends,
+     * one array per friend. For users with the same liked films pass the likers of each film and an empty set.
+     * <p>
+     * All ids are put in one array and sorted, so equal ids form runs whose length is the number of mutual friends;
+     * no map of counters is built. The cost is sorting the sum of the adjacency sizes.
+     */
+    public static List<Candidate> rank(long userId, Set<Long> friends, long[][] adjacency, int count) {
+        int total = 0;
+        for (long[] ids : adjacency) {
+            total = Math.addExact(total, ids.length);
+        }
+        long[] all = new long[total];
+        int at = 0;
+        for (long[] ids : adjacency) {
+            System.arraycopy(ids, 0, all, at, ids.length);
+            at += ids.length;
+        }
+        if (total >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(all);
+        } else {
+            Arrays.sort(all);
+        }
+
+        PriorityQueue<Candidate> best = new PriorityQueue<>(WORST_FIRST);
+        LongHashSet direct = friends instanceof LongHashSet primitive ? primitive : LongHashSet.copyOf(friends);
+        for (int start = 0, end; start < total && count > 0; start = end) {
+            long id = all[start];
+            end = start + 1;
+            while (end < total && all[end] == id) {
+                end++;
+            }
+            int mutual = end - start;
+            if (id == userId || direct.contains(id)) {
+                continue;
+            }
+            if (best.size() < count) {
+                best.add(new Candidate(id, mutual));
+            } else if (mutual > best.peek().shared()) {
+                // ids come in ascending order, so an equal count never displaces a lower id
+                best.poll();
+                best.add(new Candidate(id, mutual));
+            }
+        }
+        List<Candidate> result = new ArrayList<>(best);
+        result.sort(WORST_FIRST.reversed());
+        return result;
+    }
+
+    /**
+     * @param shared number of adjacency arrays the id is in: mutual friends, or films liked by both users
+     */
+    public record Candidate(long id, int shared) {
+    }
+}
@@ -0,0 +1,46 @@
+-- the increment is the number of ids a storage takes at once, see JdbcFilmStorage.sequenceIds
+CREATE SEQUENCE IF NOT EXISTS film_ids START WITH 1 INCREMENT BY 100;
+CREATE SEQUENCE IF NOT EXISTS user_ids START WITH 1 INCREMENT BY 100;
+
+CREATE TABLE IF NOT EXISTS films (
+    id BIGINT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(200),
+    release_date DATE,
+    duration INTEGER
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT PRIMARY KEY,
+    email VARCHAR(255),
+    login VARCHAR(255),
+    password VARCHAR(255),
+    name VARCHAR(255),
+    birthday DATE
+);
+
+-- NULLs are not compared, so users without an email or login don't collide
+CREATE UNIQUE INDEX IF NOT EXISTS users_email ON users (email);
+CREATE UNIQUE INDEX IF NOT EXISTS users_login ON users (login);
+
+CREATE TABLE IF NOT EXISTS likes (
+    film_id BIGINT NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    liked_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL,
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS likes_user_id ON likes (user_id);
+-- trending films read only the likes of the window
+CREATE INDEX IF NOT EXISTS likes_liked_at ON likes (liked_at);
+
+-- user_id_1 < user_id_2 always, see README
+CREATE TABLE IF NOT EXISTS friends (
+    user_id_1 BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    user_id_2 BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    status VARCHAR(10) NOT NULL CHECK (status IN ('REQ_U1', 'REQ_U2', 'FRIENDS')),
+    PRIMARY KEY (user_id_1, user_id_2),
+    CHECK (user_id_1 < user_id_2)
+);
+
+CREATE INDEX IF NOT EXISTS friends_user_id_2 ON friends (user_id_2);
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.controller.FilmHandler;
+import ru.yandex.practicum.filmorate.controller.ReactiveBodies;
+import ru.yandex.practicum.filmorate.controller.ReactiveRoutes;
+import ru.yandex.practicum.filmorate.controller.UserHandler;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.BlockingReactiveFilmStorage;
+import ru.yandex.practicum.filmorate.storage.BlockingReactiveUserStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.ReactiveFilmStorage;
+import ru.yandex.practicum.filmorate.storage.ReactiveUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+/**
+ * The /films and /users routes on WebFlux, served by Netty at filmorate.reactive.port over the same services and
+ * storages as the servlet controllers.
+ * <p>
+ * Reads of the in-memory storage don't block and run on the Netty event loop; reads of the JDBC storage, and all
+ * writes, which may wait on the database or on the write-ahead log, run on the bounded elastic scheduler.
+ */
+@Configuration
+@EnableConfigurationProperties(ReactiveProperties.class)
+@ConditionalOnProperty(name = "filmorate.reactive.enabled", havingValue = "true")
+public class ReactiveConfig {
+
+    /**
+     * The storage beans resolve to the caching ones when filmorate.cache.enabled, as the services' do.
+     */
+    @Bean
+    public ReactiveFilmStorage reactiveFilmStorage(FilmStorage filmStorage,
+                                                   @Value("${filmorate.storage.type:memory}") String storageType) {
+        return new BlockingReactiveFilmStorage(filmStorage, reads(storageType));
+    }
+
+    @Bean
+    public ReactiveUserStorage reactiveUserStorage(UserStorage userStorage,
+                                                   @Value("${filmorate.storage.type:memory}") String storageType) {
+        return new BlockingReactiveUserStorage(userStorage, reads(storageType));
+    }
+
+    @Bean
+    public ReactiveWebServer reactiveWebServer(ReactiveProperties properties, ReactiveFilmStorage films,
+                                               ReactiveUserStorage users, FilmService filmService,
+                                               UserService userService, ContentVersions versions,
+                                               Validator validator, ObjectMapper objectMapper) {
+        ReactiveBodies bodies = new ReactiveBodies(validator);
+        Scheduler writes = Schedulers.boundedElastic();
+        // the application's mapper, so dates and fields are written as the servlet side writes them
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        return new ReactiveWebServer(properties.getPort(), RouterFunctions.toHttpHandler(ReactiveRoutes.of(
+                new FilmHandler(films, filmService, versions, bodies, writes),
+                new UserHandler(users, userService, versions, bodies, writes)), strategies));
+    }
+
+    private static Scheduler reads(String storageType) {
+        return storageType.equals("memory") ? Schedulers.immediate() : Schedulers.boundedElastic();
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * The WebFlux server of the reactive profile, see filmorate.reactive.* in application.properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "filmorate.reactive")
+public class ReactiveProperties {
+    /**
+     * Serve /films and /users on Netty next to Tomcat.
+     */
+    private boolean enabled;
+
+    /**
+     * Port of the Netty server, zero for any free one.
+     */
+    private int port = 8081;
+}
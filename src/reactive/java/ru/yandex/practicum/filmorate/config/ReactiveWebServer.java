@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+
+/**
+ * Netty serving the WebFlux routes, started and stopped with the application context next to Tomcat.
+ */
+@Slf4j
+public class ReactiveWebServer implements SmartLifecycle {
+    private final WebServer server;
+    private volatile boolean running;
+
+    ReactiveWebServer(int port, HttpHandler handler) {
+        this.server = new NettyReactiveWebServerFactory(port).getWebServer(handler);
+    }
+
+    @Override
+    public void start() {
+        server.start();
+        running = true;
+        log.info("Reactive routes served on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        server.stop();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.ReactiveFilmStorage;
+
+import java.util.concurrent.Callable;
+
+/**
+ * WebFlux handlers of the /films routes of {@link FilmController}: reads from {@link ReactiveFilmStorage} with
+ * the same ETags, writes through {@link FilmService} on the write scheduler.
+ */
+public class FilmHandler {
+    private final ReactiveFilmStorage films;
+    private final FilmService filmService;
+    private final ContentVersions versions;
+    private final ReactiveBodies bodies;
+    private final Scheduler writes;
+
+    public FilmHandler(ReactiveFilmStorage films, FilmService filmService, ContentVersions versions,
+                       ReactiveBodies bodies, Scheduler writes) {
+        this.films = films;
+        this.filmService = filmService;
+        this.versions = versions;
+        this.bodies = bodies;
+        this.writes = writes;
+    }
+
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        if (request.queryParam("limit").isPresent()) {
+            int limit = ReactiveBodies.intParam(request, "limit", 0);
+            ReactiveBodies.checkLimit(limit, FilmService.MAX_PAGE_SIZE);
+            return bodies.stream(request, films.findPage(ReactiveBodies.longParam(request, "after", 0), limit),
+                    Film.class);
+        }
+        String etag = versions.films();
+        return request.checkNotModified(etag)
+                .switchIfEmpty(Mono.defer(() -> bodies.stream(request, etag, films.findAll(), Film.class)));
+    }
+
+    public Mono<ServerResponse> getFilm(ServerRequest request) {
+        long id = ReactiveBodies.pathId(request, "id");
+        String etag = versions.film(id);
+        return request.checkNotModified(etag)
+                .switchIfEmpty(Mono.defer(() -> films.getFilmById(id)
+                        .flatMap(film -> ServerResponse.ok().eTag(etag).bodyValue(film))));
+    }
+
+    public Mono<ServerResponse> getPopular(ServerRequest request) {
+        int count = ReactiveBodies.intParam(request, "count", 10);
+        String etag = versions.films();
+        return request.checkNotModified(etag)
+                .switchIfEmpty(Mono.defer(() -> bodies.stream(request, etag, films.getMostLiked(count),
+                        Film.class)));
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return bodies.valid(request, Film.class)
+                .flatMap(film -> write(() -> filmService.addFilm(film)))
+                .flatMap(film -> ServerResponse.ok().bodyValue(film));
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        return bodies.valid(request, Film.class)
+                .flatMap(film -> write(() -> filmService.updateFilm(film)))
+                .flatMap(film -> ServerResponse.ok().bodyValue(film));
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        return bodies.valid(request, Film.class)
+                .flatMap(film -> write(() -> {
+                    filmService.deleteFilm(film);
+                    return film;
+                }))
+                .then(ServerResponse.ok().build());
+    }
+
+    public Mono<ServerResponse> like(ServerRequest request) {
+        long id = ReactiveBodies.pathId(request, "id");
+        long userId = ReactiveBodies.pathId(request, "userId");
+        return write(() -> {
+            filmService.like(id, userId);
+            return id;
+        }).then(ServerResponse.ok().build());
+    }
+
+    public Mono<ServerResponse> unLike(ServerRequest request) {
+        long id = ReactiveBodies.pathId(request, "id");
+        long userId = ReactiveBodies.pathId(request, "userId");
+        return write(() -> {
+            filmService.unLike(id, userId);
+            return id;
+        }).then(ServerResponse.ok().build());
+    }
+
+    private <T> Mono<T> write(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(writes);
+    }
+}
@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.ErrorResponse;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Request bodies, parameters and responses of the WebFlux handlers, and errors answered the way
+ * {@link ExceptionController} answers them.
+ */
+@Slf4j
+public class ReactiveBodies {
+    private final Validator validator;
+
+    public ReactiveBodies(Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * The body, checked as {@code @Valid} checks it.
+     */
+    public <T> Mono<T> valid(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new ValidationException("Тело запроса не передано")))
+                .flatMap(body -> {
+                    Set<ConstraintViolation<T>> violations = validator.validate(body);
+                    return violations.isEmpty()
+                            ? Mono.just(body)
+                            : Mono.<T>error(new ConstraintViolationException(violations));
+                });
+    }
+
+    public <T> Mono<ServerResponse> stream(ServerRequest request, Flux<T> items, Class<T> type) {
+        return ServerResponse.ok().contentType(streamType(request)).body(items, type);
+    }
+
+    public <T> Mono<ServerResponse> stream(ServerRequest request, String etag, Flux<T> items, Class<T> type) {
+        return ServerResponse.ok().eTag(etag).contentType(streamType(request)).body(items, type);
+    }
+
+    /**
+     * NDJSON, written and flushed an item at a time, for a client that accepts it; a JSON array otherwise.
+     */
+    private static MediaType streamType(ServerRequest request) {
+        return request.headers().accept().stream()
+                .anyMatch(type -> type.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON))
+                ? MediaType.APPLICATION_NDJSON
+                : MediaType.APPLICATION_JSON;
+    }
+
+    static long pathId(ServerRequest request, String name) {
+        return Long.parseLong(request.pathVariable(name));
+    }
+
+    static int intParam(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name).map(Integer::parseInt).orElse(defaultValue);
+    }
+
+    static long longParam(ServerRequest request, String name, long defaultValue) {
+        return request.queryParam(name).map(Long::parseLong).orElse(defaultValue);
+    }
+
+    static void checkLimit(int limit, int max) {
+        if (limit < 1 || limit > max) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + max);
+        }
+    }
+
+    static Mono<ServerResponse> error(Throwable e) {
+        if (e instanceof ConstraintViolationException violations) {
+            return ServerResponse.badRequest().bodyValue(violations.getConstraintViolations().stream()
+                    .map(v -> new ErrorResponse(v.getPropertyPath().toString(), v.getMessage()))
+                    .collect(Collectors.toSet()));
+        }
+        if (e instanceof ValidationException || e instanceof ServerWebInputException) {
+            return ServerResponse.badRequest().bodyValue(new ErrorResponse("Ошибка валидации", e.getMessage()));
+        }
+        if (e instanceof DataIntegrityViolationException violation) {
+            return ServerResponse.badRequest().bodyValue(new ErrorResponse("Ошибка валидации",
+                    violation.getMostSpecificCause().getMessage()));
+        }
+        if (e instanceof NotFoundException) {
+            return ServerResponse.status(HttpStatus.NOT_FOUND)
+                    .bodyValue(new ErrorResponse("Объект не найден", e.getMessage()));
+        }
+        if (e instanceof ConflictException) {
+            return ServerResponse.status(HttpStatus.CONFLICT)
+                    .bodyValue(new ErrorResponse("Конфликт данных", e.getMessage()));
+        }
+        log.warn("Reactive handler failed", e);
+        return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .bodyValue(new ErrorResponse("Произошло исключение", e.getMessage()));
+    }
+}
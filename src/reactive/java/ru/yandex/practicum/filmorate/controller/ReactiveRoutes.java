@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * The /films and /users routes of the servlet controllers, mapped to the WebFlux handlers. Imports, exports,
+ * batches, search and recommendations are left to the servlet side.
+ */
+public final class ReactiveRoutes {
+    private ReactiveRoutes() {
+    }
+
+    public static RouterFunction<ServerResponse> of(FilmHandler films, UserHandler users) {
+        return RouterFunctions.route()
+                .path("/films", builder -> builder
+                        .GET("", films::findAll)
+                        .POST("", films::create)
+                        .PUT("", films::update)
+                        .DELETE("", films::delete)
+                        // before /{id}, the first matching route wins
+                        .GET("/popular", films::getPopular)
+                        .GET("/{id}", films::getFilm)
+                        .PUT("/{id}/like/{userId}", films::like)
+                        .DELETE("/{id}/like/{userId}", films::unLike))
+                .path("/users", builder -> builder
+                        .GET("", users::findAll)
+                        .POST("", users::create)
+                        .PUT("", users::update)
+                        .DELETE("", users::delete)
+                        .GET("/by-login/{login}", users::getByLogin)
+                        .PUT("/{userId}/friends/{friendId}", users::addFriend)
+                        .DELETE("/{userId}/friends/{friendId}", users::deleteFriend)
+                        .GET("/{userId}/friends/requests", users::getFriendRequests)
+                        .GET("/{userId}/friends", users::getFriends)
+                        .GET("/{id}/friends/common/{otherId}", users::getCommonFriends))
+                // deferred, so a handler failing before it returns is answered like a failed Mono
+                .filter((request, next) -> Mono.defer(() -> next.handle(request))
+                        .onErrorResume(ReactiveBodies::error))
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ContentVersions;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.ReactiveUserStorage;
+import ru.yandex.practicum.filmorate.util.LongSets;
+
+import java.util.concurrent.Callable;
+
+/**
+ * WebFlux handlers of the /users routes of {@link UserController}: reads from {@link ReactiveUserStorage} with
+ * the same ETags, writes through {@link UserService} on the write scheduler.
+ */
+public class UserHandler {
+    private final ReactiveUserStorage users;
+    private final UserService userService;
+    private final ContentVersions versions;
+    private final ReactiveBodies bodies;
+    private final Scheduler writes;
+
+    public UserHandler(ReactiveUserStorage users, UserService userService, ContentVersions versions,
+                       ReactiveBodies bodies, Scheduler writes) {
+        this.users = users;
+        this.userService = userService;
+        this.versions = versions;
+        this.bodies = bodies;
+        this.writes = writes;
+    }
+
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        if (request.queryParam("limit").isPresent()) {
+            int limit = ReactiveBodies.intParam(request, "limit", 0);
+            ReactiveBodies.checkLimit(limit, UserService.MAX_PAGE_SIZE);
+            return bodies.stream(request, users.findPage(ReactiveBodies.longParam(request, "after", 0), limit),
+                    User.class);
+        }
+        return bodies.stream(request, users.findAll(), User.class);
+    }
+
+    public Mono<ServerResponse> getByLogin(ServerRequest request) {
+        return users.getUserByLogin(request.pathVariable("login"))
+                .flatMap(user -> ServerResponse.ok().bodyValue(user));
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return bodies.valid(request, User.class)
+                .flatMap(user -> write(() -> userService.addUser(user)))
+                .flatMap(user -> ServerResponse.ok().bodyValue(user));
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        return bodies.valid(request, User.class)
+                .flatMap(user -> write(() -> userService.updateUser(user)))
+                .flatMap(user -> ServerResponse.ok().bodyValue(user));
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        return bodies.valid(request, User.class)
+                .flatMap(user -> write(() -> {
+                    userService.deleteUser(user);
+                    return user;
+                }))
+                .then(ServerResponse.ok().build());
+    }
+
+    public Mono<ServerResponse> addFriend(ServerRequest request) {
+        long userId = ReactiveBodies.pathId(request, "userId");
+        long friendId = ReactiveBodies.pathId(request, "friendId");
+        return write(() -> {
+            userService.addFriend(userId, friendId);
+            return userId;
+        }).then(ServerResponse.ok().build());
+    }
+
+    public Mono<ServerResponse> deleteFriend(ServerRequest request) {
+        long userId = ReactiveBodies.pathId(request, "userId");
+        long friendId = ReactiveBodies.pathId(request, "friendId");
+        return write(() -> {
+            userService.deleteFriend(userId, friendId);
+            return userId;
+        }).then(ServerResponse.ok().build());
+    }
+
+    public Mono<ServerResponse> getFriends(ServerRequest request) {
+        long userId = ReactiveBodies.pathId(request, "userId");
+        String etag = versions.friends(userId);
+        return request.checkNotModified(etag)
+                .switchIfEmpty(Mono.defer(() -> users.getUserById(userId)
+                        .flatMap(user -> bodies.stream(request, etag,
+                                users.getUsersByIds(LongSets.toSortedArray(user.getFriends())), User.class))));
+    }
+
+    public Mono<ServerResponse> getFriendRequests(ServerRequest request) {
+        long userId = ReactiveBodies.pathId(request, "userId");
+        return users.getFriendRequests(userId)
+                .flatMap(ids -> bodies.stream(request, users.getUsersByIds(ids), User.class));
+    }
+
+    public Mono<ServerResponse> getCommonFriends(ServerRequest request) {
+        long id = ReactiveBodies.pathId(request, "id");
+        long otherId = ReactiveBodies.pathId(request, "otherId");
+        return users.getUserById(id)
+                .zipWith(users.getUserById(otherId))
+                .flatMap(pair -> bodies.stream(request,
+                        users.getUsersByIds(LongSets.intersect(pair.getT1().getFriends(), pair.getT2().getFriends())),
+                        User.class));
+    }
+
+    private <T> Mono<T> write(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(writes);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Calls of a blocking storage made on a scheduler, the one the reactive storages are given.
+ */
+final class BlockingCalls {
+    private BlockingCalls() {
+    }
+
+    static <T> Mono<T> mono(Scheduler scheduler, Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    static <T> Flux<T> flux(Scheduler scheduler, Callable<List<T>> call) {
+        return mono(scheduler, call).flatMapIterable(Function.identity());
+    }
+
+    /**
+     * Pages of {@code pageSize} by keyset, each loaded after the previous one has been taken by the subscriber,
+     * so a slow client holds at most two pages instead of the whole table.
+     */
+    static <T> Flux<T> pages(Scheduler scheduler, int pageSize, LongFunction<List<T>> page, ToLongFunction<T> id) {
+        return mono(scheduler, () -> page.apply(0))
+                .expand(items -> items.size() < pageSize
+                        ? Mono.empty()
+                        : mono(scheduler, () -> page.apply(id.applyAsLong(items.get(items.size() - 1)))))
+                .concatMapIterable(Function.identity(), 1);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.Film;
+
+/**
+ * {@link ReactiveFilmStorage} over a {@link FilmStorage}, each call made on the given scheduler: an elastic one
+ * for the JDBC storage, which blocks on the database, the caller's thread for the in-memory one, which doesn't.
+ */
+public class BlockingReactiveFilmStorage implements ReactiveFilmStorage {
+    static final int PAGE_SIZE = 1000;
+
+    private final FilmStorage storage;
+    private final Scheduler scheduler;
+
+    public BlockingReactiveFilmStorage(FilmStorage storage, Scheduler scheduler) {
+        this.storage = storage;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Mono<Film> getFilmById(long id) {
+        return BlockingCalls.mono(scheduler, () -> storage.getFilmById(id));
+    }
+
+    @Override
+    public Flux<Film> findAll() {
+        return BlockingCalls.pages(scheduler, PAGE_SIZE, afterId -> storage.findPage(afterId, PAGE_SIZE),
+                Film::getId);
+    }
+
+    @Override
+    public Flux<Film> findPage(long afterId, int limit) {
+        return BlockingCalls.flux(scheduler, () -> storage.findPage(afterId, limit));
+    }
+
+    @Override
+    public Flux<Film> getMostLiked(int count) {
+        return BlockingCalls.flux(scheduler, () -> storage.getMostLiked(count));
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * {@link ReactiveUserStorage} over a {@link UserStorage}, each call made on the given scheduler as in
+ * {@link BlockingReactiveFilmStorage}.
+ */
+public class BlockingReactiveUserStorage implements ReactiveUserStorage {
+    static final int PAGE_SIZE = 1000;
+
+    private final UserStorage storage;
+    private final Scheduler scheduler;
+
+    public BlockingReactiveUserStorage(UserStorage storage, Scheduler scheduler) {
+        this.storage = storage;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Mono<User> getUserById(long id) {
+        return BlockingCalls.mono(scheduler, () -> storage.getUserById(id));
+    }
+
+    @Override
+    public Mono<User> getUserByLogin(String login) {
+        return BlockingCalls.mono(scheduler, () -> storage.getUserByLogin(login));
+    }
+
+    @Override
+    public Flux<User> getUsersByIds(long[] ids) {
+        return BlockingCalls.flux(scheduler, () -> storage.getUsersByIds(ids));
+    }
+
+    @Override
+    public Flux<User> findAll() {
+        return BlockingCalls.pages(scheduler, PAGE_SIZE, afterId -> storage.findPage(afterId, PAGE_SIZE),
+                User::getId);
+    }
+
+    @Override
+    public Flux<User> findPage(long afterId, int limit) {
+        return BlockingCalls.flux(scheduler, () -> storage.findPage(afterId, limit));
+    }
+
+    @Override
+    public Mono<long[]> getFriendRequests(long userId) {
+        return BlockingCalls.mono(scheduler, () -> storage.getFriendRequests(userId));
+    }
+}
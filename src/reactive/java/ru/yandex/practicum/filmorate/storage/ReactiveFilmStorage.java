@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+
+/**
+ * Reads of {@link FilmStorage} for the WebFlux handlers, as {@link Mono} and {@link Flux}. Writes go through
+ * FilmService, which keeps ETag versions, change events and caches in step with the storage.
+ */
+public interface ReactiveFilmStorage {
+    /**
+     * Fails with {@link ru.yandex.practicum.filmorate.exception.NotFoundException} as {@link FilmStorage} does.
+     */
+    Mono<Film> getFilmById(long id);
+
+    /**
+     * All films by id, loaded a page at a time as the subscriber asks for more.
+     */
+    Flux<Film> findAll();
+
+    /**
+     * Up to {@code limit} films with id greater than {@code afterId}, ordered by id.
+     */
+    Flux<Film> findPage(long afterId, int limit);
+
+    Flux<Film> getMostLiked(int count);
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Reads of {@link UserStorage} for the WebFlux handlers, as {@link Mono} and {@link Flux}. Writes go through
+ * UserService, which keeps ETag versions and change events in step with the storage.
+ */
+public interface ReactiveUserStorage {
+    /**
+     * Fails with {@link ru.yandex.practicum.filmorate.exception.NotFoundException} as {@link UserStorage} does.
+     */
+    Mono<User> getUserById(long id);
+
+    Mono<User> getUserByLogin(String login);
+
+    /**
+     * Users with given ids in the same order, ids of missing users are skipped.
+     */
+    Flux<User> getUsersByIds(long[] ids);
+
+    /**
+     * All users by id, loaded a page at a time as the subscriber asks for more.
+     */
+    Flux<User> findAll();
+
+    /**
+     * Up to {@code limit} users with id greater than {@code afterId}, ordered by id.
+     */
+    Flux<User> findPage(long afterId, int limit);
+
+    /**
+     * Ids of users whose friend requests to the user are pending, ordered.
+     */
+    Mono<long[]> getFriendRequests(long userId);
+}
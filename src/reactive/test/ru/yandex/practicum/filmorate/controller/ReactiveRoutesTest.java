@@ -0,0 +1,148 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.yandex.practicum.filmorate.config.ReactiveWebServer;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The whole application with both stacks up: Tomcat at a random port and the reactive server next to it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"filmorate.reactive.enabled=true", "filmorate.reactive.port=0"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReactiveRoutesTest {
+    @Autowired
+    private ReactiveWebServer server;
+
+    @LocalServerPort
+    private int servletPort;
+
+    private WebTestClient client;
+    private WebTestClient servlet;
+
+    @BeforeAll
+    void setUp() {
+        client = WebTestClient.bindToServer().baseUrl("http://localhost:" + server.getPort()).build();
+        servlet = WebTestClient.bindToServer().baseUrl("http://localhost:" + servletPort).build();
+    }
+
+    @Test
+    void bothStacksServeTheSameFilmAndETag() {
+        Film film = servlet.post().uri("/films")
+                .bodyValue(Film.builder().name("both").description("desc")
+                        .releaseDate(LocalDate.of(2001, 1, 1)).duration(90).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class).returnResult().getResponseBody();
+
+        String etag = servlet.get().uri("/films/{id}", film.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Film.class).getResponseHeaders().getETag();
+        Film reactive = client.get().uri("/films/{id}", film.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", etag)
+                .expectBody(Film.class).returnResult().getResponseBody();
+        assertThat(reactive).isEqualTo(film);
+        client.get().uri("/films/{id}", film.getId()).ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void filmsAreAddedReadAndStreamed() {
+        Film film = client.post().uri("/films")
+                .bodyValue(Film.builder().name("reactive").description("desc")
+                        .releaseDate(LocalDate.of(2001, 1, 1)).duration(90).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class).returnResult().getResponseBody();
+        assertThat(film.getId()).isPositive();
+
+        String etag = client.get().uri("/films/{id}", film.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo("reactive")
+                .returnResult().getResponseHeaders().getETag();
+        client.get().uri("/films/{id}", film.getId()).ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        List<Film> streamed = client.get().uri("/films").accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Film.class).getResponseBody().collectList().block();
+        assertThat(streamed).extracting(Film::getId).contains(film.getId());
+
+        client.post().uri("/films")
+                .bodyValue(Film.builder().name(" ").releaseDate(LocalDate.of(2001, 1, 1)).duration(-1).build())
+                .exchange()
+                .expectStatus().isBadRequest();
+        client.get().uri("/films/999999")
+                .exchange()
+                .expectStatus().isNotFound();
+        client.get().uri("/films?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void friendsAndLikesGoThroughServices() {
+        User user = addUser("reactive1");
+        User friend = addUser("reactive2");
+        Film film = client.post().uri("/films")
+                .bodyValue(Film.builder().name("popular").description("desc")
+                        .releaseDate(LocalDate.of(2001, 1, 1)).duration(90).build())
+                .exchange()
+                .expectBody(Film.class).returnResult().getResponseBody();
+
+        client.put().uri("/users/{id}/friends/{friendId}", user.getId(), friend.getId())
+                .exchange()
+                .expectStatus().isOk();
+        client.get().uri("/users/{id}/friends/requests", friend.getId())
+                .exchange()
+                .expectBodyList(User.class).hasSize(1);
+        client.put().uri("/users/{id}/friends/{friendId}", friend.getId(), user.getId())
+                .exchange()
+                .expectStatus().isOk();
+        client.get().uri("/users/{id}/friends", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].login").isEqualTo("reactive2");
+
+        for (User liker : List.of(user, friend)) {
+            client.put().uri("/films/{id}/like/{userId}", film.getId(), liker.getId())
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+        List<Film> popular = client.get().uri("/films/popular?count=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Film.class).returnResult().getResponseBody();
+        assertThat(popular).extracting(Film::getId).containsExactly(film.getId());
+    }
+
+    private User addUser(String login) {
+        return client.post().uri("/users")
+                .bodyValue(User.builder().name(login).email(login + "@gmail.com").login(login)
+                        .birthday(LocalDate.of(1990, 1, 1)).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class).returnResult().getResponseBody();
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class MetricsConfigTest {
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void timersAndGaugesArePublished() {
+        Film film = filmService.addFilm(Film.builder().name("film").description("desc")
+                .releaseDate(LocalDate.of(2000, 1, 1)).duration(100).build());
+        User user = userService.addUser(User.builder().birthday(LocalDate.of(1990, 1, 1))
+                .email("metrics@mail.ru").login("metrics").build());
+        filmService.like(film.getId(), user.getId());
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        String metrics = response.getBody();
+        Assertions.assertTrue(metrics.contains("filmorate_service_seconds_bucket{"
+                + "class=\"ru.yandex.practicum.filmorate.service.FilmService\",exception=\"none\",method=\"like\","));
+        Assertions.assertTrue(metrics.contains("filmorate_storage_seconds_count{"
+                + "class=\"ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage\",exception=\"none\","
+                + "method=\"like\",} 1.0"));
+        Assertions.assertTrue(metrics.contains("filmorate_films 1.0"));
+        Assertions.assertTrue(metrics.contains("filmorate_likes 1.0"));
+        Assertions.assertTrue(metrics.contains("filmorate_friends_average 0.0"));
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.List;
+
+class SampledRequestConditionTest {
+
+    @Test
+    void firstMatchingRuleWins() {
+        SampledRequestCondition condition = new SampledRequestCondition(properties(0.5,
+                rule("/films/*/like/*", List.of("PUT", "DELETE"), 0.01),
+                rule("/films/**", List.of(), 0.2)));
+
+        Assertions.assertEquals(0.01, condition.rateFor("PUT", "/films/1/like/2"));
+        Assertions.assertEquals(0.01, condition.rateFor("delete", "/films/1/like/2"));
+        Assertions.assertEquals(0.2, condition.rateFor("GET", "/films/1/like/2"));
+        Assertions.assertEquals(0.2, condition.rateFor("GET", "/films/popular"));
+        Assertions.assertEquals(0.5, condition.rateFor("GET", "/users"));
+    }
+
+    @Test
+    void zeroAndFullRatesAreExact() {
+        SampledRequestCondition condition = new SampledRequestCondition(properties(1.0,
+                rule("/films/*/like/*", List.of(), 0.0)));
+        HttpRequest like = request("PUT", "/films/1/like/2");
+        HttpRequest films = request("GET", "/films");
+
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertFalse(condition.test(like));
+            Assertions.assertTrue(condition.test(films));
+        }
+    }
+
+    @Test
+    void partialRateSamplesRoughlyThatShare() {
+        SampledRequestCondition condition = new SampledRequestCondition(properties(0.1));
+        HttpRequest films = request("GET", "/films");
+
+        int logged = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (condition.test(films)) {
+                logged++;
+            }
+        }
+        Assertions.assertTrue(logged > 9_000 && logged < 11_000, "logged " + logged);
+    }
+
+    private static RequestLoggingProperties properties(double defaultRate,
+                                                       RequestLoggingProperties.SamplingRule... rules) {
+        RequestLoggingProperties properties = new RequestLoggingProperties();
+        properties.setDefaultRate(defaultRate);
+        properties.setSampling(List.of(rules));
+        return properties;
+    }
+
+    private static RequestLoggingProperties.SamplingRule rule(String path, List<String> methods, double rate) {
+        RequestLoggingProperties.SamplingRule rule = new RequestLoggingProperties.SamplingRule();
+        rule.setPath(path);
+        rule.setMethods(methods);
+        rule.setRate(rate);
+        return rule;
+    }
+
+    private static HttpRequest request(String method, String path) {
+        HttpRequest request = Mockito.mock(HttpRequest.class);
+        Mockito.when(request.getMethod()).thenReturn(method);
+        Mockito.when(request.getPath()).thenReturn(path);
+        return request;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {"filmorate.storage.type=jdbc", "filmorate.cache.enabled=true"})
+class StorageCacheConfigTest {
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void servicesGoThroughTheCache() {
+        Assertions.assertInstanceOf(CachingFilmStorage.class, filmStorage);
+        Assertions.assertInstanceOf(CachingUserStorage.class, userStorage);
+
+        Film film = filmService.addFilm(Film.builder().name("film").description("desc")
+                .releaseDate(LocalDate.of(2000, 1, 1)).duration(100).build());
+        User user = userService.addUser(User.builder().birthday(LocalDate.of(1990, 1, 1))
+                .email("cached@mail.ru").login("cached").build());
+
+        filmService.like(film.getId(), user.getId());
+        Assertions.assertEquals(Set.of(user.getId()), filmService.getFilmById(film.getId()).getLikes());
+        Assertions.assertTrue(((CachingFilmStorage) filmStorage).stats().hitCount() > 0);
+        Assertions.assertTrue(registry.get("cache.gets").tag("cache", "films").tag("result", "hit")
+                .functionCounter().count() > 0);
+    }
+}
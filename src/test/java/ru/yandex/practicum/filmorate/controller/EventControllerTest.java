@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EventControllerTest {
+    String baseUrl;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @BeforeAll
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/events";
+    }
+
+    @Test
+    void likesAndFriendshipsAreStreamed() throws Exception {
+        User user = userService.addUser(User.builder().name("events").birthday(LocalDate.of(1990, 1, 1))
+                .email("events@gmail.com").login("events").build());
+        User other = userService.addUser(User.builder().name("events other").birthday(LocalDate.of(1990, 1, 1))
+                .email("events-other@gmail.com").login("eventsOther").build());
+        Film film = filmService.addFilm(Film.builder().name("events").description("desc")
+                .releaseDate(LocalDate.of(2001, 1, 1)).duration(90).build());
+
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                        URI.create(baseUrl + "?topics=popular,user:" + user.getId()))
+                .header("Accept", "text/event-stream")
+                .build(), HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> body = response.body()) {
+            Assertions.assertEquals(200, response.statusCode());
+            Assertions.assertTrue(response.headers().firstValue("Content-Type").orElseThrow()
+                    .startsWith("text/event-stream"));
+            Iterator<String> lines = body.iterator();
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                Assertions.assertTrue(nextEvent(lines).contains("event:subscribed"));
+
+                filmService.like(film.getId(), user.getId());
+                List<String> liked = nextEvent(lines);
+                Assertions.assertTrue(liked.contains("event:likes"));
+                Assertions.assertTrue(liked.contains("data:{\"topic\":\"popular\",\"type\":\"likes\",\"id\":"
+                        + film.getId() + "}"));
+
+                userService.addFriend(other.getId(), user.getId());
+                List<String> requested = nextEvent(lines);
+                Assertions.assertTrue(requested.contains("event:friends"));
+                Assertions.assertTrue(requested.contains("data:{\"topic\":\"user:" + user.getId()
+                        + "\",\"type\":\"friends\",\"id\":" + other.getId() + "}"));
+            });
+        }
+    }
+
+    @Test
+    void unknownTopicsAreRejected() {
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(baseUrl + "?topics=films", String.class).getStatusCode());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(baseUrl + "?topics=user:abc", String.class).getStatusCode());
+        Assertions.assertEquals(HttpStatus.NOT_FOUND,
+                restTemplate.getForEntity(baseUrl + "?topics=popular,user:999999", String.class).getStatusCode());
+    }
+
+    // lines of the next event, up to the blank line ending it
+    private static List<String> nextEvent(Iterator<String> lines) {
+        List<String> event = new ArrayList<>();
+        while (lines.hasNext()) {
+            String line = lines.next();
+            if (line.isEmpty()) {
+                return event;
+            }
+            event.add(line);
+        }
+        return event;
+    }
+}
@@ -20,6 +20,7 @@ import ru.yandex.practicum.filmorate.service.UserService;
 import java.net.URI;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -136,7 +137,7 @@ class FilmControllerTest {
         HttpEntity<Film> request = new HttpEntity<>(added, headers);
         Assertions.assertTrue(this.restTemplate.exchange(uri, HttpMethod.PUT, request, String.class)
                 .getStatusCode().is2xxSuccessful());
-        Assertions.assertEquals(added.getName(), this.controller.findAll()
+        Assertions.assertEquals(added.getName(), filmService.findAll()
                 .stream()
                 .filter(f -> f.getId() == id)
                 .findFirst().orElseThrow(() -> {
@@ -165,11 +166,11 @@ class FilmControllerTest {
     @Test
     void likeFilmIsOk() {
         User user1 = User.builder().name("User 1").birthday(LocalDate.now())
-                .email("user1@gmail.com").login("user1").friends(new HashSet<>()).build();
+                .email("like1@gmail.com").login("like1").friends(new HashSet<>()).build();
         User user2 = User.builder().name("User 2").birthday(LocalDate.now())
-                .email("user2@gmail.com").login("user2").friends(new HashSet<>()).build();
+                .email("like2@gmail.com").login("like2").friends(new HashSet<>()).build();
         User user3 = User.builder().name("Name").birthday(LocalDate.now())
-                .email("user3@gmail.com").login("user3").friends(new HashSet<>()).build();
+                .email("like3@gmail.com").login("like3").friends(new HashSet<>()).build();
 
         userService.addUser(user1);
         userService.addUser(user2);
@@ -209,9 +210,9 @@ class FilmControllerTest {
     @Test
     void unlikeFilmIsOk() {
         User user1 = User.builder().name("User 1").birthday(LocalDate.now())
-                .email("user1@gmail.com").login("user1").friends(new HashSet<>()).build();
+                .email("unlike1@gmail.com").login("unlike1").friends(new HashSet<>()).build();
         User user2 = User.builder().name("User 2").birthday(LocalDate.now())
-                .email("user2@gmail.com").login("user2").friends(new HashSet<>()).build();
+                .email("unlike2@gmail.com").login("unlike2").friends(new HashSet<>()).build();
 
         userService.addUser(user1);
         userService.addUser(user2);
@@ -249,7 +250,7 @@ class FilmControllerTest {
     @Test
     void likeAndUnlikeUnexistingFilmIsNotOk() {
         User user1 = User.builder().name("User 1").birthday(LocalDate.now())
-                .email("user1@gmail.com").login("user1").friends(new HashSet<>()).build();
+                .email("nofilm1@gmail.com").login("nofilm1").friends(new HashSet<>()).build();
 
         userService.addUser(user1);
 
@@ -295,7 +296,7 @@ class FilmControllerTest {
 
         for (int i = 0; i < 12; i++) {
             User user = User.builder().name("User " + i).birthday(LocalDate.now())
-                    .email("user" + i + "@gmail.com").login("user" + i).friends(new HashSet<>()).build();
+                    .email("popular" + i + "@gmail.com").login("popular" + i).friends(new HashSet<>()).build();
             userService.addUser(user);
 
             Film film = Film.builder().name("name" + i).description("desc").releaseDate(LocalDate.now()).duration(1).build();
@@ -338,4 +339,245 @@ class FilmControllerTest {
         Assertions.assertEquals(10, root2.size());
         System.out.println(response.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    void trendingIsRankedWithinTheWindow() throws Exception {
+        Film film = filmService.addFilm(Film.builder().name("trending").description("desc")
+                .releaseDate(LocalDate.now()).duration(1).build());
+        User user = userService.addUser(User.builder().name("trending").birthday(LocalDate.now())
+                .email("trending@gmail.com").login("trending").build());
+        filmService.like(film.getId(), user.getId());
+
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/popular?window=24h&count=100",
+                String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Set<Long> ids = new HashSet<>();
+        new ObjectMapper().readTree(response.getBody()).forEach(node -> ids.add(node.get("id").asLong()));
+        Assertions.assertTrue(ids.contains(film.getId()));
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(baseUrl + "/popular?window=day", String.class).getStatusCode());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(baseUrl + "/popular?window=0h", String.class).getStatusCode());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(baseUrl + "/popular?window=-1h", String.class).getStatusCode());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(baseUrl + "/popular?window=30d", String.class).getStatusCode());
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(baseUrl + "/popular?window=24h&count=0", String.class).getStatusCode());
+    }
+
+    @Test
+    void searchFindsWordsAndPrefixesInNameAndDescription() throws Exception {
+        Film inName = filmService.addFilm(Film.builder().name("Зимородок над рекой").description("Фильм о птицах")
+                .releaseDate(LocalDate.now()).duration(1).build());
+        Film inDescription = filmService.addFilm(Film.builder().name("Река").description("Зимородки и цапли")
+                .releaseDate(LocalDate.now()).duration(1).build());
+
+        JsonNode found = new ObjectMapper().readTree(restTemplate.getForEntity(UriComponentsBuilder
+                .fromUriString(baseUrl + "/search?q={q}").encode().buildAndExpand("зимород").toUri(),
+                String.class).getBody());
+        Assertions.assertEquals(2, found.size());
+        Assertions.assertEquals(inName.getId(), found.get(0).get("id").asLong());
+        Assertions.assertEquals(inDescription.getId(), found.get(1).get("id").asLong());
+
+        found = new ObjectMapper().readTree(restTemplate.getForEntity(UriComponentsBuilder
+                .fromUriString(baseUrl + "/search?q={q}").encode().buildAndExpand("ЗИМОРОДОК, рек").toUri(),
+                String.class).getBody());
+        Assertions.assertEquals(1, found.size());
+        Assertions.assertEquals(inName.getId(), found.get(0).get("id").asLong());
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(baseUrl + "/search?q=!!!", String.class).getStatusCode());
+    }
+
+    @Test
+    void filmsArePagedByCursor() throws Exception {
+        long firstId = filmService.addFilm(Film.builder().name("page").description("desc")
+                .releaseDate(LocalDate.now()).duration(1).build()).getId();
+        for (int i = 0; i < 4; i++) {
+            filmService.addFilm(Film.builder().name("page" + i).description("desc")
+                    .releaseDate(LocalDate.now()).duration(1).build());
+        }
+
+        URI uri1 = UriComponentsBuilder
+                .fromUriString(baseUrl + "?after={after}&limit={limit}")
+                .encode()
+                .buildAndExpand(firstId, 3)
+                .toUri();
+        ResponseEntity<String> response = this.restTemplate.getForEntity(uri1, String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode page = new ObjectMapper().readTree(response.getBody());
+        Assertions.assertEquals(3, page.size());
+        Assertions.assertEquals(firstId + 1, page.get(0).get("id").asLong());
+        Assertions.assertEquals(firstId + 3, page.get(2).get("id").asLong());
+
+        URI uri2 = UriComponentsBuilder
+                .fromUriString(baseUrl + "?limit={limit}")
+                .encode()
+                .buildAndExpand(0)
+                .toUri();
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, this.restTemplate.getForEntity(uri2, String.class)
+                .getStatusCode());
+    }
+
+    @Test
+    void filmsAreStreamedAsNdjson() throws Exception {
+        filmService.addFilm(Film.builder().name("streamed").description("desc")
+                .releaseDate(LocalDate.now()).duration(1).build());
+
+        ResponseEntity<String> response = this.restTemplate.getForEntity(baseUrl + "/stream", String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+        String[] lines = response.getBody().split("\n");
+        Assertions.assertEquals(filmService.findAll().size(), lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        for (String line : lines) {
+            Assertions.assertTrue(mapper.readTree(line).has("likes"));
+        }
+    }
+
+    @Test
+    void likesAreAddedInBatch() throws Exception {
+        long userId = userService.addUser(User.builder().name("batch").birthday(LocalDate.now())
+                .email("batch@gmail.com").login("batch").build()).getId();
+        Film film = filmService.addFilm(Film.builder().name("batch").description("desc")
+                .releaseDate(LocalDate.now()).duration(1).build());
+
+        String body = "[{\"filmId\":" + film.getId() + ",\"userId\":" + userId + "},"
+                + "{\"filmId\":777,\"userId\":" + userId + "},"
+                + "{\"filmId\":" + film.getId() + ",\"userId\":777}]";
+        ResponseEntity<String> response = this.restTemplate.exchange(baseUrl + "/likes", HttpMethod.PUT,
+                new HttpEntity<>(body, headers), String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode results = new ObjectMapper().readTree(response.getBody());
+        Assertions.assertEquals(3, results.size());
+        Assertions.assertEquals(200, results.get(0).get("status").asInt());
+        Assertions.assertFalse(results.get(0).has("error"));
+        Assertions.assertEquals(404, results.get(1).get("status").asInt());
+        Assertions.assertEquals("Фильм с ID = 777 не найден", results.get(1).get("error").asText());
+        Assertions.assertEquals(404, results.get(2).get("status").asInt());
+        Assertions.assertEquals(777, results.get(2).get("item").get("userId").asLong());
+        Assertions.assertEquals(Set.of(userId), filmService.getFilmById(film.getId()).getLikes());
+    }
+
+    @Test
+    void filmsAreImportedFromCsv() throws Exception {
+        String body = "name,description,releaseDate,duration,id\n"
+                + "imported1,desc,2000-01-01,90,777\n"
+                + "imported2,\"desc, with comma\",2001-02-03,100,\n"
+                + ",desc,2000-01-01,90,\n"
+                + "imported3,desc,not a date,90,\n"
+                + "imported4,desc,2002-01-01,120,\n";
+        HttpHeaders csv = new HttpHeaders();
+        csv.setContentType(MediaType.parseMediaType("text/csv"));
+        int before = filmService.findAll().size();
+
+        ResponseEntity<String> response = this.restTemplate.postForEntity(baseUrl + "/import",
+                new HttpEntity<>(body, csv), String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode report = new ObjectMapper().readTree(response.getBody());
+        Assertions.assertEquals(3, report.get("imported").asLong());
+        Assertions.assertEquals(2, report.get("rejected").asLong());
+        Assertions.assertEquals(4, report.get("errors").get(0).get("line").asLong());
+        Assertions.assertTrue(report.get("errors").get(0).get("message").asText().startsWith("name: "));
+        Assertions.assertEquals(5, report.get("errors").get(1).get("line").asLong());
+        Assertions.assertEquals(before + 3, filmService.findAll().size());
+        Assertions.assertTrue(filmService.findAll().stream()
+                .anyMatch(f -> f.getDescription().equals("desc, with comma")));
+    }
+
+    @Test
+    void nullNdjsonRecordIsRejectedAlone() throws Exception {
+        String body = "{\"name\":\"beforeNull\",\"description\":\"desc\",\"releaseDate\":\"2000-01-01\","
+                + "\"duration\":90}\n"
+                + "null\n"
+                + "{\"name\":\"afterNull\",\"description\":\"desc\",\"releaseDate\":\"2000-01-01\","
+                + "\"duration\":90}\n";
+        HttpHeaders ndjson = new HttpHeaders();
+        ndjson.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+
+        ResponseEntity<String> response = this.restTemplate.postForEntity(baseUrl + "/import",
+                new HttpEntity<>(body, ndjson), String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode report = new ObjectMapper().readTree(response.getBody());
+        Assertions.assertEquals(2, report.get("imported").asLong());
+        Assertions.assertEquals(1, report.get("rejected").asLong());
+        Assertions.assertEquals(2, report.get("errors").get(0).get("line").asLong());
+        Assertions.assertTrue(filmService.findAll().stream().anyMatch(f -> f.getName().equals("afterNull")));
+    }
+
+    @Test
+    void filmsAreExportedAsCsv() throws Exception {
+        filmService.addFilm(Film.builder().name("exported, \"quoted\"").description("desc")
+                .releaseDate(LocalDate.of(1999, 12, 31)).duration(5).build());
+
+        ResponseEntity<String> response = this.restTemplate.getForEntity(baseUrl + "/stream?format=csv",
+                String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals("text/csv;charset=UTF-8", response.getHeaders().getContentType().toString());
+        String[] lines = response.getBody().split("\n");
+        Assertions.assertEquals("id,name,description,releaseDate,duration", lines[0]);
+        Assertions.assertEquals(filmService.findAll().size() + 1, lines.length);
+        Assertions.assertTrue(response.getBody().contains(",\"exported, \"\"quoted\"\"\",desc,1999-12-31,5\n"));
+    }
+
+    @Test
+    void readsAreNotModifiedUntilFilmsChange() {
+        Film film = filmService.addFilm(Film.builder().name("etag").description("desc")
+                .releaseDate(LocalDate.of(2001, 1, 1)).duration(90).build());
+        User user = userService.addUser(User.builder().name("etag").birthday(LocalDate.of(1990, 1, 1))
+                .email("etag@gmail.com").login("etag").build());
+
+        String filmUrl = baseUrl + "/" + film.getId();
+        String filmTag = assertNotModifiedOnRepeat(filmUrl);
+        String allTag = assertNotModifiedOnRepeat(baseUrl);
+        // a count no other test asks for, its body isn't cached yet
+        assertNotModifiedOnRepeat(baseUrl + "/popular?count=7");
+
+        filmService.like(film.getId(), user.getId());
+        ResponseEntity<String> changed = getIfNoneMatch(filmUrl, filmTag);
+        Assertions.assertEquals(HttpStatus.OK, changed.getStatusCode());
+        Assertions.assertNotEquals(filmTag, changed.getHeaders().getETag());
+        Assertions.assertEquals(HttpStatus.OK, getIfNoneMatch(baseUrl, allTag).getStatusCode());
+
+        Assertions.assertEquals(HttpStatus.NOT_FOUND,
+                this.restTemplate.getForEntity(baseUrl + "/999999", String.class).getStatusCode());
+    }
+
+    @Test
+    void filmSeenAsMissingIsNotModifiedOnceAdded() {
+        Film before = filmService.addFilm(Film.builder().name("before").description("desc")
+                .releaseDate(LocalDate.of(2001, 1, 1)).duration(90).build());
+        // ids of the memory storage go one by one
+        String url = baseUrl + "/" + (before.getId() + 1);
+        ResponseEntity<String> missing = this.restTemplate.getForEntity(url, String.class);
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+
+        Film added = filmService.addFilm(Film.builder().name("after").description("desc")
+                .releaseDate(LocalDate.of(2001, 1, 1)).duration(90).build());
+        Assertions.assertEquals(before.getId() + 1, added.getId());
+        String etag = missing.getHeaders().getETag();
+        Assertions.assertNotNull(etag);
+        ResponseEntity<String> found = getIfNoneMatch(url, etag);
+        Assertions.assertEquals(HttpStatus.OK, found.getStatusCode());
+        Assertions.assertTrue(found.getBody().contains("\"after\""));
+    }
+
+    private String assertNotModifiedOnRepeat(String url) {
+        ResponseEntity<String> response = this.restTemplate.getForEntity(url, String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        String etag = response.getHeaders().getETag();
+        Assertions.assertNotNull(etag);
+        ResponseEntity<String> repeated = getIfNoneMatch(url, etag);
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, repeated.getStatusCode());
+        Assertions.assertNull(repeated.getBody());
+        return etag;
+    }
+
+    private ResponseEntity<String> getIfNoneMatch(String url, String etag) {
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(etag);
+        return this.restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(conditional), String.class);
+    }
+}
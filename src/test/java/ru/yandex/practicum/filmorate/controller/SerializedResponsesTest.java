@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SerializedResponsesTest {
+
+    @Test
+    void bodyIsComputedOncePerEtagWithoutTtl() {
+        SerializedResponses<Integer> responses = new SerializedResponses<>(Duration.ZERO, 10);
+        AtomicInteger computed = new AtomicInteger();
+
+        byte[] first = responses.get(1, "v1", () -> new byte[]{(byte) computed.incrementAndGet()}).bytes();
+        Assertions.assertSame(first, responses.get(1, "v1", () -> new byte[]{(byte) computed.incrementAndGet()})
+                .bytes());
+        Assertions.assertEquals(1, computed.get());
+
+        SerializedResponses.Body changed = responses.get(1, "v2", () -> new byte[]{(byte) computed.incrementAndGet()});
+        Assertions.assertEquals("v2", changed.etag());
+        Assertions.assertArrayEquals(new byte[]{2}, changed.bytes());
+        responses.get(2, "v2", () -> new byte[]{(byte) computed.incrementAndGet()});
+        Assertions.assertEquals(3, computed.get());
+    }
+
+    @Test
+    void outdatedBodyIsServedWithinTtl() {
+        SerializedResponses<Integer> responses = new SerializedResponses<>(Duration.ofHours(1), 10);
+        responses.get(1, "v1", () -> new byte[]{1});
+
+        SerializedResponses.Body body = responses.get(1, "v2", () -> new byte[]{2});
+        Assertions.assertEquals("v1", body.etag());
+        Assertions.assertArrayEquals(new byte[]{1}, body.bytes());
+    }
+
+    @Test
+    void bodyIsComputedOutsideTheCacheAndTheLaterStartedOneIsKept() {
+        SerializedResponses<Integer> responses = new SerializedResponses<>(Duration.ZERO, 10);
+
+        // the inner request of the same key reads a newer ETag while the outer one computes its body
+        SerializedResponses.Body body = responses.get(1, "v1", () -> {
+            responses.get(1, "v2", () -> new byte[]{2});
+            return new byte[]{1};
+        });
+        Assertions.assertEquals("v2", body.etag());
+        Assertions.assertArrayEquals(new byte[]{2}, body.bytes());
+        Assertions.assertSame(body, responses.get(1, "v2", () -> new byte[]{3}));
+    }
+}
@@ -13,13 +13,18 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.*;
 import org.springframework.web.util.UriComponentsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.net.URI;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -36,6 +41,9 @@ class UserControllerTest {
     @Autowired
     private UserService service;
 
+    @Autowired
+    private FilmService filmService;
+
     @LocalServerPort
     private int port;
 
@@ -81,6 +89,25 @@ class UserControllerTest {
                 .findFirst().orElseThrow(() -> new IllegalArgumentException("User not found")).getName());
     }
 
+    @Test
+    void userIsFoundByLoginAndItsLoginAndEmailAreNotReused() {
+        User user = this.controller.create(User.builder().name("Unique").birthday(LocalDate.now())
+                .email("unique@gmail.com").login("unique").build());
+
+        ResponseEntity<User> found = this.restTemplate.getForEntity(baseUrl + "/by-login/unique", User.class);
+        Assertions.assertEquals(HttpStatus.OK, found.getStatusCode());
+        Assertions.assertEquals(user.getId(), Objects.requireNonNull(found.getBody()).getId());
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, this.restTemplate.getForEntity(baseUrl + "/by-login/nobody",
+                String.class).getStatusCode());
+
+        User sameLogin = User.builder().birthday(LocalDate.now()).email("unique2@gmail.com").login("unique").build();
+        Assertions.assertEquals(HttpStatus.CONFLICT, this.restTemplate.postForEntity(uri,
+                new HttpEntity<>(sameLogin, headers), String.class).getStatusCode());
+        User sameEmail = User.builder().birthday(LocalDate.now()).email("unique@gmail.com").login("unique2").build();
+        Assertions.assertEquals(HttpStatus.CONFLICT, this.restTemplate.postForEntity(uri,
+                new HttpEntity<>(sameEmail, headers), String.class).getStatusCode());
+    }
+
     @Test
     void userWithWrongEmailIsNotAdded() {
         User user = User.builder().birthday(LocalDate.now())
@@ -179,9 +206,16 @@ class UserControllerTest {
                 .toUri();
 
         this.restTemplate.put(uri1, new HttpEntity<>(headers));
+        Assertions.assertEquals(0, service.getFriends(1).size());
+        Assertions.assertEquals(List.of(1L), service.getFriendRequests(2).stream().map(User::getId).toList());
+        Assertions.assertEquals(0, service.getFriendRequests(1).size());
+
+        // a request back confirms the one received
+        service.addFriend(2, 1);
         Assertions.assertEquals(1, service.getFriends(1).size());
         Assertions.assertEquals(1, service.getFriends(2).size());
         Assertions.assertEquals(0, service.getFriends(3).size());
+        Assertions.assertEquals(0, service.getFriendRequests(2).size());
 
         URI uri2 = UriComponentsBuilder
                 .fromUriString(baseUrl + "/{id}/friends/{friendId}")
@@ -190,6 +224,7 @@ class UserControllerTest {
                 .toUri();
 
         this.restTemplate.put(uri2, new HttpEntity<>(headers));
+        service.addFriend(1, 3);
         Assertions.assertEquals(2, service.getFriends(1).size());
         Assertions.assertEquals(1, service.getFriends(2).size());
         Assertions.assertEquals(1, service.getFriends(3).size());
@@ -202,16 +237,25 @@ class UserControllerTest {
         HttpEntity<String> request = new HttpEntity<>("", headers);
         ResponseEntity<String> response = this.restTemplate.exchange(uri4, HttpMethod.PUT, request, String.class);
         Assertions.assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+
+        // past 32 bits, the in-memory storage can't pack the pair
+        URI uri5 = UriComponentsBuilder
+                .fromUriString(baseUrl + "/{id}/friends/{friendId}")
+                .encode()
+                .buildAndExpand("1", "4294967297")
+                .toUri();
+        response = this.restTemplate.exchange(uri5, HttpMethod.PUT, request, String.class);
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void deleteFriendTest() {
         User user1 = User.builder().name("User 1").birthday(LocalDate.now())
-                .email("user1@gmail.com").login("user1").friends(new HashSet<>()).build();
+                .email("unfriend1@gmail.com").login("unfriend1").friends(new HashSet<>()).build();
         User user2 = User.builder().name("User 2").birthday(LocalDate.now())
-                .email("user2@gmail.com").login("user2").friends(new HashSet<>()).build();
+                .email("unfriend2@gmail.com").login("unfriend2").friends(new HashSet<>()).build();
         User user3 = User.builder().name("Name").birthday(LocalDate.now())
-                .email("user3@gmail.com").login("user3").friends(new HashSet<>()).build();
+                .email("unfriend3@gmail.com").login("unfriend3").friends(new HashSet<>()).build();
 
         HttpEntity<User> request1 = new HttpEntity<>(user1, headers);
         HttpEntity<User> request2 = new HttpEntity<>(user2, headers);
@@ -228,7 +272,7 @@ class UserControllerTest {
                 .toUri();
 
         this.restTemplate.put(uri1, new HttpEntity<>(headers));
-
+        service.addFriend(2, 1);
 
         URI uri2 = UriComponentsBuilder
                 .fromUriString(baseUrl + "/{id}/friends/{friendId}")
@@ -237,6 +281,7 @@ class UserControllerTest {
                 .toUri();
 
         this.restTemplate.put(uri2, new HttpEntity<>(headers));
+        service.addFriend(1, 3);
 
         Assertions.assertEquals(2, service.getFriends(1).size());
 
@@ -310,6 +355,8 @@ class UserControllerTest {
                 .toUri();
 
         this.restTemplate.put(uri3, new HttpEntity<>(headers));
+        service.addFriend(u2.getId(), u1.getId());
+        service.addFriend(u1.getId(), u3.getId());
 
         URI uri4 = UriComponentsBuilder
                 .fromUriString(baseUrl + "/{id}/friends")
@@ -327,13 +374,13 @@ class UserControllerTest {
     void getCommonFriendsTest() throws Exception {
 
         User user1 = User.builder().name("User 124").birthday(LocalDate.now())
-                .email("user124@gmail.com").login("user124").friends(new HashSet<>()).build();
+                .email("common124@gmail.com").login("common124").friends(new HashSet<>()).build();
         User user2 = User.builder().name("User 246").birthday(LocalDate.now())
-                .email("user245@gmail.com").login("user246").friends(new HashSet<>()).build();
+                .email("common245@gmail.com").login("common246").friends(new HashSet<>()).build();
         User user3 = User.builder().name("Name 344").birthday(LocalDate.now())
-                .email("user344@gmail.com").login("user344").friends(new HashSet<>()).build();
+                .email("common344@gmail.com").login("common344").friends(new HashSet<>()).build();
         User user4 = User.builder().name("Name 56").birthday(LocalDate.now())
-                .email("user56@gmail.com").login("user56").friends(new HashSet<>()).build();
+                .email("common56@gmail.com").login("common56").friends(new HashSet<>()).build();
 
         HttpEntity<User> request1 = new HttpEntity<>(user1, headers);
         HttpEntity<User> request2 = new HttpEntity<>(user2, headers);
@@ -386,6 +433,10 @@ class UserControllerTest {
                 .toUri();
 
         this.restTemplate.put(uri5, new HttpEntity<>(headers));
+        service.addFriend(u2.getId(), u1.getId());
+        service.addFriend(u3.getId(), u1.getId());
+        service.addFriend(u4.getId(), u1.getId());
+        service.addFriend(u4.getId(), u2.getId());
 
         URI uri6 = UriComponentsBuilder
                 .fromUriString(baseUrl + "/{id}/friends/common/{otherId}")
@@ -396,6 +447,238 @@ class UserControllerTest {
         Assertions.assertTrue(response1.getStatusCode().is2xxSuccessful());
         System.out.println(response1.getBody());
         Assertions.assertTrue(Objects.requireNonNull(response1.getBody()).contains("{\"id\":" + u4.getId() + ","));
+        Assertions.assertEquals(3, service.getFriends(u1.getId()).size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void getLikedFilmsTest() throws Exception {
+        User user = service.addUser(User.builder().name("Liker").birthday(LocalDate.now())
+                .email("liker@gmail.com").login("liker").build());
+        Film film1 = filmService.addFilm(Film.builder().name("name1").description("desc")
+                .releaseDate(LocalDate.now()).duration(1).build());
+        Film film2 = filmService.addFilm(Film.builder().name("name2").description("desc")
+                .releaseDate(LocalDate.now()).duration(1).build());
+        filmService.addFilm(Film.builder().name("name3").description("desc")
+                .releaseDate(LocalDate.now()).duration(1).build());
+        filmService.like(film1.getId(), user.getId());
+        filmService.like(film2.getId(), user.getId());
+
+        URI uri1 = UriComponentsBuilder
+                .fromUriString(baseUrl + "/{id}/likes")
+                .encode()
+                .buildAndExpand(user.getId())
+                .toUri();
+        HttpEntity<String> request = new HttpEntity<>("", headers);
+        ResponseEntity<String> response = this.restTemplate.exchange(uri1, HttpMethod.GET, request, String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals(2, new ObjectMapper().readTree(response.getBody()).size());
+
+        URI uri2 = UriComponentsBuilder
+                .fromUriString(baseUrl + "/{id}/likes")
+                .encode()
+                .buildAndExpand(777)
+                .toUri();
+        response = this.restTemplate.exchange(uri2, HttpMethod.GET, request, String.class);
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void friendsAreAddedInBatch() throws Exception {
+        long id1 = service.addUser(User.builder().name("batch1").birthday(LocalDate.now())
+                .email("batch1@gmail.com").login("batch1").build()).getId();
+        long id2 = service.addUser(User.builder().name("batch2").birthday(LocalDate.now())
+                .email("batch2@gmail.com").login("batch2").build()).getId();
+        long id3 = service.addUser(User.builder().name("batch3").birthday(LocalDate.now())
+                .email("batch3@gmail.com").login("batch3").build()).getId();
+
+        // 1 and 2 confirm each other within the batch, 3 only sends a request to 1
+        String body = "[{\"userId\":" + id1 + ",\"friendId\":" + id2 + "},"
+                + "{\"userId\":" + id3 + ",\"friendId\":" + id1 + "},"
+                + "{\"userId\":" + id2 + ",\"friendId\":" + id2 + "},"
+                + "{\"userId\":" + id2 + ",\"friendId\":777},"
+                + "{\"userId\":" + id2 + ",\"friendId\":" + id1 + "}]";
+        ResponseEntity<String> response = this.restTemplate.exchange(baseUrl + "/friends", HttpMethod.PUT,
+                new HttpEntity<>(body, headers), String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode results = new ObjectMapper().readTree(response.getBody());
+        Assertions.assertEquals(200, results.get(0).get("status").asInt());
+        Assertions.assertEquals(200, results.get(1).get("status").asInt());
+        Assertions.assertEquals(400, results.get(2).get("status").asInt());
+        Assertions.assertEquals(404, results.get(3).get("status").asInt());
+        Assertions.assertEquals(200, results.get(4).get("status").asInt());
+        Assertions.assertEquals(Set.of(id2), service.getUserByID(id1).getFriends());
+        Assertions.assertEquals(Set.of(id1), service.getUserByID(id2).getFriends());
+        Assertions.assertEquals(List.of(id3),
+                service.getFriendRequests(id1).stream().map(User::getId).toList());
+
+        String tooLarge = "[" + String.join(",", Collections.nCopies(UserService.MAX_BATCH_SIZE + 1,
+                "{\"userId\":" + id1 + ",\"friendId\":" + id2 + "}")) + "]";
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, this.restTemplate.exchange(baseUrl + "/friends",
+                HttpMethod.PUT, new HttpEntity<>(tooLarge, headers), String.class).getStatusCode());
+
+        // other tests count friends of the first users
+        service.deleteFriend(id1, id2);
+        service.deleteFriend(id1, id3);
+    }
+
+    @Test
+    void usersAreImportedFromNdjson() throws Exception {
+        String body = "{\"email\":\"import1@gmail.com\",\"login\":\"import1\",\"birthday\":\"1990-01-01\","
+                + "\"friends\":[1,2]}\n"
+                + "\n"
+                + "{\"email\":\"not an email\",\"login\":\"import2\",\"birthday\":\"1990-01-01\"}\n"
+                + "{\"email\":\"import3@gmail.com\",\n"
+                + "{\"email\":\"import4@gmail.com\",\"login\":\"import4\",\"name\":\"Four\","
+                + "\"birthday\":\"1990-01-01\"}\n"
+                + "{\"email\":\"import5@gmail.com\",\"login\":\"import1\",\"birthday\":\"1990-01-01\"}\n";
+        HttpHeaders ndjson = new HttpHeaders();
+        ndjson.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+
+        ResponseEntity<String> response = this.restTemplate.postForEntity(baseUrl + "/import",
+                new HttpEntity<>(body, ndjson), String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode report = new ObjectMapper().readTree(response.getBody());
+        Assertions.assertEquals(2, report.get("imported").asLong());
+        Assertions.assertEquals(3, report.get("rejected").asLong());
+        Assertions.assertEquals(3, report.get("errors").get(0).get("line").asLong());
+        Assertions.assertTrue(report.get("errors").get(0).get("message").asText().startsWith("email: "));
+        Assertions.assertEquals(4, report.get("errors").get(1).get("line").asLong());
+        Assertions.assertEquals(6, report.get("errors").get(2).get("line").asLong());
+        Assertions.assertEquals("Логин import1 уже занят", report.get("errors").get(2).get("message").asText());
+        User imported = service.findAll().stream().filter(u -> u.getLogin().equals("import1")).findFirst()
+                .orElseThrow();
+        Assertions.assertEquals("import1", imported.getName());
+        Assertions.assertTrue(imported.getFriends().isEmpty());
+    }
+
+    @Test
+    void recommendationsAreRankedByMutualFriends() throws Exception {
+        long[] ids = new long[5];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = service.addUser(User.builder().name("rec" + i).birthday(LocalDate.now())
+                    .email("rec" + i + "@gmail.com").login("rec" + i).build()).getId();
+        }
+        // 0 - 1, 0 - 2; 1 and 2 are both friends with 3, 2 is friends with 4
+        service.addFriend(ids[0], ids[1]);
+        service.addFriend(ids[0], ids[2]);
+        service.addFriend(ids[1], ids[3]);
+        service.addFriend(ids[2], ids[3]);
+        service.addFriend(ids[2], ids[4]);
+        service.addFriend(ids[1], ids[0]);
+        service.addFriend(ids[2], ids[0]);
+        service.addFriend(ids[3], ids[1]);
+        service.addFriend(ids[3], ids[2]);
+        service.addFriend(ids[4], ids[2]);
+
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/" + ids[0] + "/recommendations",
+                String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode root = new ObjectMapper().readTree(response.getBody());
+        Assertions.assertEquals(2, root.size());
+        Assertions.assertEquals(ids[3], root.get(0).get("user").get("id").asLong());
+        Assertions.assertEquals(2, root.get(0).get("mutualFriends").asInt());
+        Assertions.assertEquals(ids[4], root.get(1).get("user").get("id").asLong());
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(baseUrl + "/" + ids[0]
+                + "/recommendations?count=0", String.class).getStatusCode());
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(baseUrl + "/-1/recommendations",
+                String.class).getStatusCode());
+    }
+
+    @Test
+    void recommendedFilmsComeFromUsersWithSimilarLikes() throws Exception {
+        long[] users = new long[3];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = service.addUser(User.builder().name("cf" + i).birthday(LocalDate.now())
+                    .email("cf" + i + "@gmail.com").login("cf" + i).build()).getId();
+        }
+        long[] films = new long[5];
+        for (int i = 0; i < films.length; i++) {
+            films[i] = filmService.addFilm(Film.builder().name("cf" + i).description("desc")
+                    .releaseDate(LocalDate.now()).duration(1).build()).getId();
+        }
+        // 0 likes 0, 1; user 1 shares both and likes 2, user 2 shares one and likes 3
+        filmService.like(films[0], users[0]);
+        filmService.like(films[1], users[0]);
+        filmService.like(films[0], users[1]);
+        filmService.like(films[1], users[1]);
+        filmService.like(films[2], users[1]);
+        filmService.like(films[1], users[2]);
+        filmService.like(films[3], users[2]);
+        filmService.like(films[4], users[2]);
+
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/" + users[0]
+                + "/recommended-films?count=2", String.class);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode root = new ObjectMapper().readTree(response.getBody());
+        Assertions.assertEquals(2, root.size());
+        Assertions.assertEquals(films[2], root.get(0).get("id").asLong());
+        Assertions.assertEquals(films[3], root.get(1).get("id").asLong());
+
+        // a like of the user drops the cached neighbours and the film itself
+        filmService.like(films[2], users[0]);
+        root = new ObjectMapper().readTree(restTemplate.getForEntity(baseUrl + "/" + users[0]
+                + "/recommended-films", String.class).getBody());
+        Assertions.assertEquals(2, root.size());
+        Assertions.assertEquals(films[3], root.get(0).get("id").asLong());
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, restTemplate.getForEntity(baseUrl + "/" + users[0]
+                + "/recommended-films?count=0", String.class).getStatusCode());
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(baseUrl + "/-1/recommended-films",
+                String.class).getStatusCode());
+    }
+
+    @Test
+    void friendsAreNotModifiedUntilTheyChange() {
+        long userId = service.addUser(User.builder().name("etag").birthday(LocalDate.of(1990, 1, 1))
+                .email("etag-user@gmail.com").login("etagUser").build()).getId();
+        User friend = service.addUser(User.builder().name("friend").birthday(LocalDate.of(1990, 1, 1))
+                .email("etag-friend@gmail.com").login("etagFriend").build());
+        String url = baseUrl + "/" + userId + "/friends";
+
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        String etag = response.getHeaders().getETag();
+        Assertions.assertNotNull(etag);
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, getIfNoneMatch(url, etag).getStatusCode());
+
+        service.addFriend(userId, friend.getId());
+        service.addFriend(friend.getId(), userId);
+        response = getIfNoneMatch(url, etag);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertTrue(response.getBody().contains("\"etagFriend\""));
+        etag = response.getHeaders().getETag();
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, getIfNoneMatch(url, etag).getStatusCode());
+
+        // a friend's name shows in the list too
+        friend.setName("renamed");
+        service.updateUser(friend);
+        response = getIfNoneMatch(url, etag);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertTrue(response.getBody().contains("\"renamed\""));
+    }
+
+    @Test
+    void friendsOfUserSeenAsMissingAreNotModifiedOnceAdded() {
+        long before = service.addUser(User.builder().name("before").birthday(LocalDate.of(1990, 1, 1))
+                .email("etag-before@gmail.com").login("etagBefore").build()).getId();
+        // ids of the memory storage go one by one
+        String url = baseUrl + "/" + (before + 1) + "/friends";
+        ResponseEntity<String> missing = restTemplate.getForEntity(url, String.class);
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+
+        long added = service.addUser(User.builder().name("after").birthday(LocalDate.of(1990, 1, 1))
+                .email("etag-after@gmail.com").login("etagAfter").build()).getId();
+        Assertions.assertEquals(before + 1, added);
+        String etag = missing.getHeaders().getETag();
+        Assertions.assertNotNull(etag);
+        ResponseEntity<String> found = getIfNoneMatch(url, etag);
+        Assertions.assertEquals(HttpStatus.OK, found.getStatusCode());
+        Assertions.assertEquals("[]", found.getBody());
+    }
+
+    private ResponseEntity<String> getIfNoneMatch(String url, String etag) {
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(etag);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(conditional), String.class);
+    }
+}
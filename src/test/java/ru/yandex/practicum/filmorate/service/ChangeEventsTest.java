@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.ChangeEvent;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class ChangeEventsTest {
+    private final ChangeEvents events = new ChangeEvents();
+
+    @Test
+    void subscriberGetsEventsOfItsTopicsOnly() throws Exception {
+        BlockingQueue<ChangeEvent> received = new LinkedBlockingQueue<>();
+        events.subscribe(Set.of("popular", "user:1"), 10, (batch, dropped) -> received.addAll(batch));
+
+        events.likesChanged(5);
+        events.friendsChanged(2, 3);
+        events.friendsChanged(1, 2);
+
+        Assertions.assertEquals(new ChangeEvent("popular", "likes", 5), received.poll(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(new ChangeEvent("user:1", "friends", 2), received.poll(5, TimeUnit.SECONDS));
+        Assertions.assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void slowSubscriberGetsCoalescedEventsAndDropCount() throws Exception {
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<List<ChangeEvent>> batches = new LinkedBlockingQueue<>();
+        BlockingQueue<Long> drops = new LinkedBlockingQueue<>();
+        events.subscribe(Set.of("popular"), 3, (batch, dropped) -> {
+            firstBatch.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(batch);
+            drops.add(dropped);
+        });
+
+        events.likesChanged(1);
+        Assertions.assertTrue(firstBatch.await(5, TimeUnit.SECONDS));
+        // the subscriber is busy with the first batch, the rest waits in its buffer
+        for (long filmId : new long[]{2, 3, 2, 2, 4, 5, 6, 3}) {
+            events.likesChanged(filmId);
+        }
+        release.countDown();
+
+        Assertions.assertEquals(List.of(new ChangeEvent("popular", "likes", 1)), batches.poll(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, drops.poll(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of(new ChangeEvent("popular", "likes", 2), new ChangeEvent("popular", "likes", 3),
+                new ChangeEvent("popular", "likes", 4)), batches.poll(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, drops.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void closedOrFailingSubscriptionGetsNoMoreEvents() throws Exception {
+        BlockingQueue<ChangeEvent> received = new LinkedBlockingQueue<>();
+        ChangeEvents.Subscription closed = events.subscribe(Set.of("popular"), 10,
+                (batch, dropped) -> received.addAll(batch));
+        closed.close();
+        events.subscribe(Set.of("popular"), 10, (batch, dropped) -> {
+            received.addAll(batch);
+            throw new IOException("Broken pipe");
+        });
+
+        events.likesChanged(1);
+        Assertions.assertEquals(new ChangeEvent("popular", "likes", 1), received.poll(5, TimeUnit.SECONDS));
+        events.likesChanged(2);
+        Assertions.assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class UserServiceTest {
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final ContentVersions versions = new ContentVersions();
+    private final ChangeEvents events = new ChangeEvents();
+    private final FilmService filmService = new FilmService(filmStorage, userStorage, new SimilarUsers(filmStorage),
+            versions, events);
+    private final UserService userService = new UserService(userStorage, filmService, versions, events);
+
+    @Test
+    void likesRacingWithDeletionDoNotOutliveTheUser() throws Exception {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            films.add(filmService.addFilm(Film.builder().name("film" + i).description("desc")
+                    .releaseDate(LocalDate.of(2000, 1, 1)).duration(90).build()));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 20; round++) {
+                User user = userService.addUser(User.builder().name("user").email("user" + round + "@mail.ru")
+                        .login("user" + round).birthday(LocalDate.of(1990, 1, 1)).build());
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> likers = new ArrayList<>();
+                for (int t = 0; t < 3; t++) {
+                    int offset = t;
+                    likers.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            for (int i = offset; ; i = (i + 1) % films.size()) {
+                                filmService.like(films.get(i).getId(), user.getId());
+                            }
+                        } catch (NotFoundException e) {
+                            return null;
+                        }
+                    }));
+                }
+                start.countDown();
+                userService.deleteUser(user);
+                for (Future<?> liker : likers) {
+                    liker.get();
+                }
+                Assertions.assertEquals(List.of(), filmStorage.getLikedFilms(user.getId()));
+                Assertions.assertTrue(filmStorage.findAll().stream()
+                        .noneMatch(film -> film.getLikes().contains(user.getId())));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+// the jdbc storages hand out a fresh object on every read, so a stale cache entry shows up in assertions
+@JdbcTest(properties = "filmorate.storage.type=jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class})
+class CachingStorageTest {
+    @Autowired
+    private JdbcFilmStorage jdbcFilmStorage;
+
+    @Autowired
+    private JdbcUserStorage jdbcUserStorage;
+
+    private CachingFilmStorage filmStorage;
+    private CachingUserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new CachingFilmStorage(jdbcFilmStorage, cache(100));
+        userStorage = new CachingUserStorage(jdbcUserStorage, cache(100));
+    }
+
+    @Test
+    void repeatedReadsHitTheCache() {
+        long id = jdbcFilmStorage.addFilm(film(1)).getId();
+
+        Film first = filmStorage.getFilmById(id);
+        Assertions.assertSame(first, filmStorage.getFilmById(id));
+        Assertions.assertSame(first, filmStorage.getFilmById(id));
+        Assertions.assertEquals(1, filmStorage.stats().missCount());
+        Assertions.assertEquals(2, filmStorage.stats().hitCount());
+    }
+
+    @Test
+    void missingFilmIsNotCached() {
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.getFilmById(1000));
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.getFilmById(1000));
+        Assertions.assertEquals(2, filmStorage.stats().missCount());
+        Assertions.assertEquals(0, filmStorage.estimatedSize());
+    }
+
+    @Test
+    void writesInvalidateFilm() {
+        Film film = filmStorage.addFilm(film(1));
+        User user = userStorage.addUser(user(1));
+
+        filmStorage.like(filmStorage.getFilmById(film.getId()), user.getId());
+        Assertions.assertEquals(Set.of(user.getId()), filmStorage.getFilmById(film.getId()).getLikes());
+
+        Film update = film(2);
+        update.setId(film.getId());
+        filmStorage.updateFilm(update);
+        Assertions.assertEquals("film2", filmStorage.getFilmById(film.getId()).getName());
+
+        filmStorage.like(update, user.getId());
+        filmStorage.getFilmById(film.getId());
+        filmStorage.removeUserLikes(user.getId());
+        Assertions.assertTrue(filmStorage.getFilmById(film.getId()).getLikes().isEmpty());
+
+        filmStorage.deleteFilm(update);
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.getFilmById(film.getId()));
+    }
+
+    @Test
+    void friendshipChangesInvalidateBothUsers() {
+        User user1 = userStorage.addUser(user(1));
+        User user2 = userStorage.addUser(user(2));
+        User user3 = userStorage.addUser(user(3));
+
+        userStorage.addFriend(userStorage.getUserById(user1.getId()), userStorage.getUserById(user2.getId()));
+        userStorage.addFriend(userStorage.getUserById(user3.getId()), userStorage.getUserById(user2.getId()));
+        Assertions.assertTrue(userStorage.getUserById(user1.getId()).getFriends().isEmpty());
+        userStorage.addFriend(userStorage.getUserById(user2.getId()), userStorage.getUserById(user1.getId()));
+        userStorage.addFriend(userStorage.getUserById(user2.getId()), userStorage.getUserById(user3.getId()));
+        Assertions.assertEquals(Set.of(user2.getId()), userStorage.getUserById(user1.getId()).getFriends());
+        Assertions.assertEquals(Set.of(user1.getId(), user3.getId()),
+                userStorage.getUserById(user2.getId()).getFriends());
+
+        userStorage.deleteUser(user2);
+        Assertions.assertTrue(userStorage.getUserById(user1.getId()).getFriends().isEmpty());
+        Assertions.assertTrue(userStorage.getUserById(user3.getId()).getFriends().isEmpty());
+        Assertions.assertThrows(NotFoundException.class, () -> userStorage.getUserById(user2.getId()));
+    }
+
+    @Test
+    void usersByIdsKeepOrderAndLoadOnlyMissing() {
+        User user1 = jdbcUserStorage.addUser(user(1));
+        User user2 = jdbcUserStorage.addUser(user(2));
+        User user3 = jdbcUserStorage.addUser(user(3));
+        User cached = userStorage.getUserById(user2.getId());
+
+        List<User> found = userStorage.getUsersByIds(new long[] {user3.getId(), 1000, user2.getId(), user1.getId()});
+        Assertions.assertEquals(List.of(user3.getId(), user2.getId(), user1.getId()),
+                found.stream().map(User::getId).toList());
+        Assertions.assertSame(cached, found.get(1));
+        Assertions.assertEquals(3, userStorage.estimatedSize());
+    }
+
+    @Test
+    void sizeBoundEvicts() {
+        CachingFilmStorage small = new CachingFilmStorage(jdbcFilmStorage, cache(2));
+        for (int i = 0; i < 10; i++) {
+            small.getFilmById(jdbcFilmStorage.addFilm(film(i)).getId());
+        }
+        Assertions.assertTrue(small.estimatedSize() <= 2);
+        Assertions.assertTrue(small.stats().evictionCount() >= 8);
+    }
+
+    // loads and maintenance run on the calling thread, which also keeps them inside the test transaction
+    private static <V> AsyncCache<Long, V> cache(long maximumSize) {
+        return Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .buildAsync();
+    }
+
+    private static Film film(int i) {
+        return Film.builder().name("film" + i).description("desc")
+                .releaseDate(LocalDate.of(2000, 1, 1)).duration(100).build();
+    }
+
+    private static User user(int i) {
+        return User.builder().birthday(LocalDate.of(1990, 1, 1))
+                .email("user" + i + "@mail.ru").login("user" + i).build();
+    }
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class FilmSearchIndexTest {
+    private static final String[] VOCABULARY = {"кот", "коты", "котёл", "котлета", "cat", "catalog", "dog",
+            "dogma", "ёж", "ежевика", "a", "ab", "abc", "1984", "2001"};
+
+    private final FilmSearchIndex index = new FilmSearchIndex();
+
+    @Test
+    void textIsSplitIntoLowerCaseWordsOfAnyScript() {
+        Assertions.assertArrayEquals(new String[] {"ежик", "в", "тумане", "hedgehog", "in", "the", "fog", "1975"},
+                FilmSearchIndex.terms("Ёжик в тумане / Hedgehog in the Fog (1975), ёжик"));
+        Assertions.assertArrayEquals(new String[0], FilmSearchIndex.terms(" -- "));
+        Assertions.assertArrayEquals(new String[0], FilmSearchIndex.terms(null));
+    }
+
+    @Test
+    void nameOutweighsDescriptionAndExactOutweighsPrefix() {
+        index.index(1, "Котлета", "Про кота", 0);
+        index.index(2, "Кот", "Про котлету", 0);
+        index.index(3, "Собака", "Кот и пёс", 0);
+
+        Assertions.assertEquals(List.of(2L, 1L, 3L), search("кот"));
+        Assertions.assertEquals(List.of(1L, 2L), search("котлет"));
+        Assertions.assertEquals(List.of(3L), search("кот пес"));
+    }
+
+    @Test
+    void likesBreakCloseRelevance() {
+        index.index(1, "Кот", "", 0);
+        index.index(2, "Кот", "", 0);
+        Assertions.assertEquals(List.of(1L, 2L), search("кот"));
+
+        index.likes(2, 10);
+        Assertions.assertEquals(List.of(2L, 1L), search("кот"));
+        Assertions.assertEquals(List.of(2L), index.search("кот", 1));
+        // a description match needs e^8 times the likes to outrank a name match
+        index.index(3, "Пёс", "Кот", 2000);
+        Assertions.assertEquals(List.of(2L, 1L, 3L), search("кот"));
+        index.likes(2, 0);
+        Assertions.assertEquals(List.of(1L, 2L, 3L), search("кот"));
+    }
+
+    @Test
+    void shortWordsMatchOnlyWholeTerms() {
+        index.index(1, "A Beautiful Mind", "", 0);
+        index.index(2, "Alien", "", 0);
+        index.index(3, "Al", "", 0);
+
+        Assertions.assertEquals(List.of(1L), search("a"));
+        Assertions.assertEquals(List.of(3L), search("al"));
+        Assertions.assertEquals(List.of(2L), search("ali"));
+    }
+
+    @Test
+    void updateAndRemoveTakeOldTermsOut() {
+        index.index(1, "Старое название", "описание", 0);
+        index.index(1, "Новое название", "описание", 5);
+
+        Assertions.assertEquals(List.of(), search("старое"));
+        Assertions.assertEquals(List.of(1L), search("новое название"));
+
+        index.remove(1);
+        Assertions.assertEquals(List.of(), search("описание"));
+        Assertions.assertEquals(0, index.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 7, 42, 2024})
+    void searchMatchesFullScan(long seed) {
+        Random random = new Random(seed);
+        Map<Long, String[]> films = new HashMap<>();
+        Map<Long, Integer> likes = new HashMap<>();
+        for (int step = 0; step < 5000; step++) {
+            long filmId = random.nextInt(300);
+            int op = random.nextInt(10);
+            if (op == 0) {
+                index.remove(filmId);
+                films.remove(filmId);
+                likes.remove(filmId);
+            } else if (op < 5 && films.containsKey(filmId)) {
+                // mostly small counts, now and then one crossing several tiers
+                int count = random.nextInt(4) == 0 ? random.nextInt(5000) : random.nextInt(8);
+                index.likes(filmId, count);
+                likes.put(filmId, count);
+            } else {
+                String[] text = {words(random), words(random)};
+                int count = likes.getOrDefault(filmId, 0);
+                index.index(filmId, text[0], text[1], count);
+                films.put(filmId, text);
+                likes.put(filmId, count);
+            }
+            if (step % 50 == 0) {
+                String query = words(random);
+                Map<Long, Double> scores = fullScan(films, likes, query);
+                List<Double> expected = scores.values().stream().sorted(Comparator.reverseOrder()).limit(20).toList();
+                // films tied with the last one may be any of them, so scores are compared
+                Assertions.assertEquals(expected, index.search(query, 20).stream().map(scores::get).toList(), query);
+            }
+        }
+    }
+
+    private List<Long> search(String query) {
+        return index.search(query, 10);
+    }
+
+    private static String words(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(3); i >= 0; i--) {
+            String word = VOCABULARY[random.nextInt(VOCABULARY.length)];
+            // prefixes of words, as typed
+            text.append(word, 0, 1 + random.nextInt(word.length())).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static Map<Long, Double> fullScan(Map<Long, String[]> films, Map<Long, Integer> likes, String query) {
+        String[] words = FilmSearchIndex.words(query);
+        Map<Long, Double> scores = new HashMap<>();
+        films.forEach((id, text) -> {
+            double relevance = FilmSearchIndex.relevance(FilmSearchIndex.terms(text[0]),
+                    FilmSearchIndex.terms(text[1]), words);
+            if (relevance > 0) {
+                scores.put(id, FilmSearchIndex.score(relevance, likes.get(id)));
+            }
+        });
+        return scores;
+    }
+}
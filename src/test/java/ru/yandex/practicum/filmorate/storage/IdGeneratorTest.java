@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class IdGeneratorTest {
+
+    @Test
+    void sequenceIdsAreUniqueUnderConcurrency() throws Exception {
+        assertUnique(new SequenceIdGenerator());
+    }
+
+    @Test
+    void blockIdsAreUniqueUnderConcurrency() throws Exception {
+        SequenceIdGenerator backend = new SequenceIdGenerator();
+        assertUnique(new BlockIdGenerator(backend::reserve, 7));
+    }
+
+    @Test
+    void blockIsReservedOncePerBlockSize() {
+        List<Integer> reserved = new ArrayList<>();
+        SequenceIdGenerator backend = new SequenceIdGenerator();
+        IdGenerator ids = new BlockIdGenerator(size -> {
+            reserved.add(size);
+            return backend.reserve(size);
+        }, 10);
+        for (int i = 1; i <= 25; i++) {
+            Assertions.assertEquals(i, ids.nextId());
+        }
+        Assertions.assertEquals(List.of(10, 10, 10), reserved);
+    }
+
+    @Test
+    void skippedIdsAreNotHandedOut() {
+        SequenceIdGenerator sequence = new SequenceIdGenerator();
+        sequence.skipTo(5);
+        Assertions.assertEquals(6, sequence.nextId());
+
+        SequenceIdGenerator backend = new SequenceIdGenerator();
+        IdGenerator blocks = new BlockIdGenerator(backend::reserve, 10);
+        Assertions.assertEquals(1, blocks.nextId());
+        // inside the current block
+        blocks.skipTo(4);
+        Assertions.assertEquals(5, blocks.nextId());
+        // blocks reserved later, the ones wholly below are dropped
+        blocks.skipTo(27);
+        Assertions.assertEquals(28, blocks.nextId());
+        Assertions.assertEquals(29, blocks.nextId());
+        // going back changes nothing
+        blocks.skipTo(3);
+        Assertions.assertEquals(30, blocks.nextId());
+        Assertions.assertEquals(31, blocks.nextId());
+    }
+
+    private void assertUnique(IdGenerator ids) throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Assertions.assertTrue(seen.add(ids.nextId()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        Assertions.assertEquals(threads * perThread, seen.size());
+    }
+}
@@ -0,0 +1,168 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+class InMemoryFilmStorageTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 7, 42, 2024, 31337})
+    void mostLikedMatchesFullSort(long seed) {
+        Random random = new Random(seed);
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        List<Film> added = new ArrayList<>();
+
+        for (int step = 0; step < 3000; step++) {
+            int op = random.nextInt(10);
+            if (op == 0 || added.isEmpty()) {
+                added.add(storage.addFilm(Film.builder().name("film" + step).description("desc")
+                        .releaseDate(LocalDate.now()).duration(1).build()));
+            } else if (op == 1 && added.size() > 1) {
+                storage.deleteFilm(added.remove(random.nextInt(added.size())));
+            } else if (op == 2) {
+                storage.removeUserLikes(random.nextInt(50));
+            } else if (op == 3) {
+                List<Like> likes = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    likes.add(new Like(added.get(random.nextInt(added.size())).getId(), random.nextInt(50)));
+                }
+                storage.addLikes(likes);
+            } else if (op < 7) {
+                storage.like(added.get(random.nextInt(added.size())), random.nextInt(50));
+            } else {
+                storage.unLike(added.get(random.nextInt(added.size())), random.nextInt(50));
+            }
+
+            if (step % 100 == 0) {
+                int count = random.nextInt(added.size() + 5);
+                Assertions.assertEquals(fullSort(storage, count), storage.getMostLiked(count));
+            }
+        }
+        Assertions.assertEquals(fullSort(storage, added.size()), storage.getMostLiked(added.size()));
+        for (long userId = 0; userId < 50; userId++) {
+            long user = userId;
+            Assertions.assertEquals(storage.findAll().stream().filter(f -> f.getLikes().contains(user))
+                            .map(Film::getId).collect(Collectors.toSet()),
+                    storage.getLikedFilms(userId).stream().map(Film::getId).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void removeUserLikesTouchesOnlyLikedFilms() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            films.add(storage.addFilm(Film.builder().name("film" + i).description("desc")
+                    .releaseDate(LocalDate.now()).duration(1).build()));
+        }
+        storage.like(films.get(1), 1);
+        storage.like(films.get(3), 1);
+        storage.like(films.get(3), 2);
+
+        storage.removeUserLikes(1);
+        Assertions.assertTrue(storage.getLikedFilms(1).isEmpty());
+        Assertions.assertEquals(0, films.get(1).getLikesCount());
+        Assertions.assertEquals(List.of(2L), List.copyOf(films.get(3).getLikes()));
+        Assertions.assertEquals(List.of(films.get(3)), storage.getLikedFilms(2));
+    }
+
+    @Test
+    void likesThatChangeNothingAreNotLogged() {
+        List<String> logged = new ArrayList<>();
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(new SequenceIdGenerator(), new MutationLog() {
+            @Override
+            public long liked(long filmId, long userId) {
+                logged.add("liked " + userId);
+                return logged.size();
+            }
+
+            @Override
+            public long unliked(long filmId, long userId) {
+                logged.add("unliked " + userId);
+                return logged.size();
+            }
+        });
+        Film film = storage.addFilm(Film.builder().name("film").description("desc")
+                .releaseDate(LocalDate.now()).duration(1).build());
+
+        storage.like(film, 1);
+        storage.like(film, 1);
+        storage.unLike(film, 2);
+        storage.removeUserLikes(2);
+        storage.unLike(film, 1);
+        storage.unLike(film, 1);
+        storage.removeUserLikes(1);
+        Assertions.assertEquals(List.of("liked 1", "unliked 1"), logged);
+    }
+
+    @Test
+    void concurrentLikesAreNotLost() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            films.add(storage.addFilm(Film.builder().name("film" + i).description("desc")
+                    .releaseDate(LocalDate.now()).duration(1).build()));
+        }
+        int threads = 8;
+        int usersPerThread = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long firstUser = (long) t * usersPerThread;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (long userId = firstUser; userId < firstUser + usersPerThread; userId++) {
+                    for (Film film : films) {
+                        storage.like(film, userId);
+                    }
+                }
+                return null;
+            }));
+        }
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        Future<?> reader = executor.submit(() -> {
+            start.await();
+            while (writers.stream().anyMatch(w -> !w.isDone())) {
+                mapper.writeValueAsBytes(storage.findAll());
+                storage.getMostLiked(5);
+            }
+            return null;
+        });
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        reader.get();
+        executor.shutdown();
+
+        for (Film film : films) {
+            Assertions.assertEquals(threads * usersPerThread, storage.getFilmById(film.getId()).getLikesCount());
+        }
+        Assertions.assertEquals(fullSort(storage, films.size()), storage.getMostLiked(films.size()));
+    }
+
+    private List<Film> fullSort(FilmStorage storage, int count) {
+        return storage.findAll().stream()
+                .sorted(Comparator.comparingInt(Film::getLikesCount).reversed()
+                        .thenComparingLong(Film::getId))
+                .limit(count)
+                .toList();
+    }
+}
@@ -0,0 +1,256 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class InMemoryUserStorageTest {
+
+    @Test
+    void concurrentFriendshipsAreSymmetricAndNotLost() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        List<User> users = addUsers(storage, 60);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = offset; i < users.size(); i += threads) {
+                    for (int j = 0; j < users.size(); j++) {
+                        if (i != j) {
+                            storage.addFriend(users.get(i), users.get(j));
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (User user : users) {
+            Assertions.assertEquals(users.size() - 1, storage.getUserById(user.getId()).getFriends().size());
+        }
+        Assertions.assertEquals((long) users.size() * (users.size() - 1), storage.countFriends());
+    }
+
+    @Test
+    void concurrentDeleteLeavesNoDanglingFriends() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        List<User> users = addUsers(storage, 100);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 2000; i++) {
+                    User user = users.get(random.nextInt(users.size()));
+                    User friend = users.get(random.nextInt(users.size()));
+                    try {
+                        if (user != friend) {
+                            storage.addFriend(user, friend);
+                        }
+                    } catch (NotFoundException ignore) {
+                        // user was deleted concurrently
+                    }
+                }
+                return null;
+            }));
+        }
+        futures.add(executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < users.size(); i += 2) {
+                storage.deleteUser(users.get(i));
+            }
+            return null;
+        }));
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(users.size() / 2, storage.findAll().size());
+        Assertions.assertEquals(storage.findAll().stream().mapToLong(user -> user.getFriends().size()).sum(),
+                storage.countFriends());
+        for (User user : storage.findAll()) {
+            for (long friendId : user.getFriends()) {
+                User friend = storage.getUserById(friendId);
+                Assertions.assertTrue(friend.hasFriend(user.getId()));
+            }
+            for (long requesterId : storage.getFriendRequests(user.getId())) {
+                Assertions.assertFalse(user.hasFriend(requesterId));
+                storage.getUserById(requesterId);
+            }
+        }
+    }
+
+    @Test
+    void requestIsConfirmedByRequestBack() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        List<User> users = addUsers(storage, 3);
+        User user1 = users.get(0);
+        User user2 = users.get(1);
+        User user3 = users.get(2);
+
+        storage.addFriend(user2, user1);
+        storage.addFriend(user3, user1);
+        storage.addFriend(user2, user1);
+        Assertions.assertArrayEquals(new long[]{user2.getId(), user3.getId()},
+                storage.getFriendRequests(user1.getId()));
+        Assertions.assertEquals(0, storage.getFriendRequests(user2.getId()).length);
+        Assertions.assertTrue(storage.getUserById(user1.getId()).getFriends().isEmpty());
+        Assertions.assertEquals(0, storage.countFriends());
+
+        storage.addFriend(user1, user2);
+        Assertions.assertArrayEquals(new long[]{user3.getId()}, storage.getFriendRequests(user1.getId()));
+        Assertions.assertTrue(storage.getUserById(user1.getId()).hasFriend(user2.getId()));
+        Assertions.assertTrue(storage.getUserById(user2.getId()).hasFriend(user1.getId()));
+        Assertions.assertEquals(2, storage.countFriends());
+
+        // declining removes the request, deleting the sender removes the friendship
+        storage.deleteFriend(user1, user3);
+        Assertions.assertEquals(0, storage.getFriendRequests(user1.getId()).length);
+        storage.addFriend(user3, user1);
+        storage.deleteUser(user3);
+        storage.deleteUser(user2);
+        Assertions.assertEquals(0, storage.getFriendRequests(user1.getId()).length);
+        Assertions.assertTrue(storage.getUserById(user1.getId()).getFriends().isEmpty());
+        Assertions.assertEquals(0, storage.countFriends());
+    }
+
+    @Test
+    void friendsAreNotTakenFromUserBody() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        List<User> users = addUsers(storage, 2);
+        User user = storage.addUser(User.builder().email("x@mail.ru").login("x")
+                .friends(Set.of(users.get(0).getId())).build());
+        Assertions.assertTrue(user.getFriends().isEmpty());
+
+        storage.addFriend(users.get(0), users.get(1));
+        storage.addFriend(users.get(1), users.get(0));
+        storage.updateUser(User.builder().id(users.get(0).getId()).email("y@mail.ru").login("y").build());
+        Assertions.assertEquals(Set.of(users.get(1).getId()), storage.getUserById(users.get(0).getId()).getFriends());
+    }
+
+    @Test
+    void emailAndLoginIndexesFollowUpdatesAndDeletes() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        User user = storage.addUser(User.builder().email("old@mail.ru").login("old").build());
+        Assertions.assertThrows(ConflictException.class,
+                () -> storage.addUser(User.builder().email("old@mail.ru").login("other").build()));
+        Assertions.assertThrows(ConflictException.class,
+                () -> storage.addUser(User.builder().email("other@mail.ru").login("old").build()));
+        // the failed attempts took nothing
+        storage.addUser(User.builder().email("other@mail.ru").login("other").build());
+
+        storage.updateUser(User.builder().id(user.getId()).email("new@mail.ru").login("old").build());
+        Assertions.assertEquals(user.getId(), storage.getUserByEmail("new@mail.ru").getId());
+        Assertions.assertEquals(user.getId(), storage.getUserByLogin("old").getId());
+        Assertions.assertThrows(NotFoundException.class, () -> storage.getUserByEmail("old@mail.ru"));
+        Assertions.assertThrows(ConflictException.class, () -> storage.updateUser(User.builder().id(user.getId())
+                .email("new@mail.ru").login("other").build()));
+        Assertions.assertEquals("old", storage.getUserByEmail("new@mail.ru").getLogin());
+
+        storage.deleteUser(user);
+        Assertions.assertThrows(NotFoundException.class, () -> storage.getUserByLogin("old"));
+        storage.addUser(User.builder().email("new@mail.ru").login("old").build());
+    }
+
+    @Test
+    void batchWithTakenKeyAddsNothing() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        storage.addUser(User.builder().email("taken@mail.ru").login("taken").build());
+
+        Assertions.assertThrows(ConflictException.class, () -> storage.addUsers(List.of(
+                User.builder().email("a@mail.ru").login("a").build(),
+                User.builder().email("b@mail.ru").login("taken").build())));
+        Assertions.assertThrows(ConflictException.class, () -> storage.addUsers(List.of(
+                User.builder().email("a@mail.ru").login("a").build(),
+                User.builder().email("a@mail.ru").login("b").build())));
+        Assertions.assertEquals(1, storage.countUsers());
+        Assertions.assertThrows(NotFoundException.class, () -> storage.getUserByLogin("a"));
+    }
+
+    @Test
+    void concurrentUsersWithSameLoginAddOnlyOne() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                int added = 0;
+                for (int i = 0; i < 200; i++) {
+                    try {
+                        storage.addUser(User.builder().email(thread + "." + i + "@mail.ru").login("user" + i)
+                                .build());
+                        added++;
+                    } catch (ConflictException e) {
+                        // another thread got the login
+                    }
+                }
+                return added;
+            }));
+        }
+        start.countDown();
+        int added = 0;
+        for (Future<Integer> future : futures) {
+            added += future.get();
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(200, added);
+        Assertions.assertEquals(200, storage.countUsers());
+        for (int i = 0; i < 200; i++) {
+            Assertions.assertEquals("user" + i, storage.getUserByLogin("user" + i).getLogin());
+        }
+    }
+
+    @Test
+    void usersWhoseIdsDontFitInFriendKeysAreRefused() {
+        SequenceIdGenerator ids = new SequenceIdGenerator();
+        ids.skipTo(0xFFFF_FFFEL);
+        InMemoryUserStorage storage = new InMemoryUserStorage(ids);
+        User last = addUsers(storage, 1).getFirst();
+        Assertions.assertEquals(0xFFFF_FFFFL, last.getId());
+
+        Assertions.assertThrows(ValidationException.class, () -> addUsers(storage, 1));
+        Assertions.assertThrows(NotFoundException.class, () -> storage.getUserById(1L << 32));
+        Assertions.assertEquals(1, storage.countUsers());
+    }
+
+    private List<User> addUsers(UserStorage storage, int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(storage.addUser(User.builder().name("User " + i).birthday(LocalDate.now())
+                    .email("user" + i + "@gmail.com").login("user" + i).build()));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,250 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@JdbcTest(properties = "filmorate.storage.type=jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class})
+class JdbcFilmStorageTest {
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+
+    @Autowired
+    private JdbcUserStorage userStorage;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void filmIsAddedUpdatedAndDeleted() {
+        Film film = filmStorage.addFilm(film("name"));
+        Assertions.assertEquals("name", filmStorage.getFilmById(film.getId()).getName());
+
+        film.setName("new name");
+        filmStorage.updateFilm(film);
+        Assertions.assertEquals("new name", filmStorage.getFilmById(film.getId()).getName());
+        Assertions.assertEquals(1, filmStorage.findAll().size());
+
+        filmStorage.deleteFilm(film);
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.getFilmById(film.getId()));
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.updateFilm(film));
+    }
+
+    @Test
+    void likesAreStoredOnce() {
+        User user = userStorage.addUser(user(1));
+        Film film = filmStorage.addFilm(film("name"));
+
+        filmStorage.like(film, user.getId());
+        filmStorage.like(film, user.getId());
+        Assertions.assertEquals(Set.of(user.getId()), filmStorage.getFilmById(film.getId()).getLikes());
+
+        filmStorage.unLike(film, user.getId());
+        filmStorage.unLike(film, user.getId());
+        Assertions.assertEquals(0, filmStorage.getFilmById(film.getId()).getLikesCount());
+    }
+
+    @Test
+    void likeOfDeletedUserIsNotFound() {
+        User user = userStorage.addUser(user(1));
+        Film film = filmStorage.addFilm(film("name"));
+        userStorage.deleteUser(user);
+
+        Assertions.assertThrows(NotFoundException.class, () -> filmStorage.like(film, user.getId()));
+        Assertions.assertEquals(0, filmStorage.getFilmById(film.getId()).getLikesCount());
+    }
+
+    @Test
+    void idsAreTakenInBlocksOfTheSequenceIncrement() {
+        long before = jdbc.queryForObject("SELECT NEXT VALUE FOR film_ids", Long.class);
+        // whatever is left of the current block, 100 films take exactly one more
+        for (int i = 0; i < 100; i++) {
+            filmStorage.addFilm(film("film" + i));
+        }
+        Assertions.assertEquals(before + 200, jdbc.queryForObject("SELECT NEXT VALUE FOR film_ids", Long.class));
+    }
+
+    @Test
+    void batchOfLikesSkipsExistingDuplicateAndMissing() {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 700; i++) {
+            userIds.add(userStorage.addUser(user(i)).getId());
+        }
+        Film film1 = filmStorage.addFilm(film("film1"));
+        Film film2 = filmStorage.addFilm(film("film2"));
+        filmStorage.like(film1, userIds.getFirst());
+
+        List<Like> likes = new ArrayList<>();
+        for (long userId : userIds) {
+            likes.add(new Like(film1.getId(), userId));
+        }
+        likes.add(new Like(film2.getId(), userIds.getFirst()));
+        likes.add(new Like(film2.getId(), userIds.getFirst()));
+        likes.add(new Like(film2.getId() + 1000, userIds.getFirst()));
+        likes.add(new Like(film2.getId(), userIds.getLast() + 1000));
+        filmStorage.addLikes(likes);
+
+        Assertions.assertEquals(Set.copyOf(userIds), filmStorage.getFilmById(film1.getId()).getLikes());
+        Assertions.assertEquals(Set.of(userIds.getFirst()), filmStorage.getFilmById(film2.getId()).getLikes());
+        Assertions.assertEquals(List.of(film2.getId(), film1.getId()), filmStorage.getFilmsByIds(
+                new long[] {film2.getId(), film2.getId() + 1000, film1.getId()}).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void likesFromAddedFilmAreBatchInserted() {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            userIds.add(userStorage.addUser(user(i)).getId());
+        }
+        Film film = film("name");
+        film.setLikes(Set.copyOf(userIds));
+        filmStorage.addFilm(film);
+        Assertions.assertEquals(userIds.size(), filmStorage.getFilmById(film.getId()).getLikesCount());
+    }
+
+    @Test
+    void filmsAreAddedInBatch() {
+        User user = userStorage.addUser(user(1));
+        List<Film> batch = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            batch.add(film("film" + i));
+        }
+        batch.getFirst().setLikes(Set.of(user.getId()));
+
+        List<Film> added = filmStorage.addFilms(batch);
+        Assertions.assertEquals(1200, filmStorage.findAll().size());
+        Assertions.assertEquals("film1199", filmStorage.getFilmById(added.getLast().getId()).getName());
+        Assertions.assertEquals(Set.of(user.getId()), filmStorage.getFilmById(added.getFirst().getId()).getLikes());
+        Assertions.assertTrue(added.getFirst().getId() < added.getLast().getId());
+    }
+
+    @Test
+    void mostLikedIsOrderedByLikesThenId() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(userStorage.addUser(user(i)));
+        }
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            films.add(filmStorage.addFilm(film("film" + i)));
+        }
+        for (int i = 0; i < 3; i++) {
+            filmStorage.like(films.get(2), users.get(i).getId());
+        }
+        filmStorage.like(films.get(3), users.get(0).getId());
+
+        List<Film> popular = filmStorage.getMostLiked(3);
+        Assertions.assertEquals(List.of(films.get(2).getId(), films.get(3).getId(), films.get(0).getId()),
+                popular.stream().map(Film::getId).toList());
+        Assertions.assertEquals(3, popular.getFirst().getLikesCount());
+        Assertions.assertEquals(4, filmStorage.getMostLiked(10).size());
+    }
+
+    @Test
+    void trendingCountsOnlyLikesOfTheWindow() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(userStorage.addUser(user(i)));
+        }
+        Film old = filmStorage.addFilm(film("old"));
+        Film recent = filmStorage.addFilm(film("recent"));
+        filmStorage.addFilm(film("not liked"));
+        for (User user : users) {
+            filmStorage.like(old, user.getId());
+        }
+        jdbc.update("UPDATE likes SET liked_at = DATEADD('HOUR', -30, LOCALTIMESTAMP) WHERE film_id = ?",
+                old.getId());
+        filmStorage.like(recent, users.getFirst().getId());
+
+        Assertions.assertEquals(List.of(recent.getId()), filmStorage.getTrending(Duration.ofHours(24), 10).stream()
+                .map(Film::getId).toList());
+        Assertions.assertEquals(List.of(old.getId(), recent.getId()),
+                filmStorage.getTrending(Duration.ofHours(48), 10).stream().map(Film::getId).toList());
+
+        // three likes of 30 hours ago weigh about 1.2 with a 24 hour half-life, one new like weighs 1
+        Assertions.assertEquals(List.of(old.getId()), filmStorage.getTrending(Duration.ofHours(48), 1).stream()
+                .map(Film::getId).toList());
+
+        // likes kept by an update keep their time
+        filmStorage.updateFilm(old);
+        Assertions.assertEquals(List.of(recent.getId()), filmStorage.getTrending(Duration.ofHours(24), 10).stream()
+                .map(Film::getId).toList());
+    }
+
+    @Test
+    void likedFilmIdsAreGroupedByUser() {
+        User first = userStorage.addUser(user(1));
+        User second = userStorage.addUser(user(2));
+        User idle = userStorage.addUser(user(3));
+        Film a = filmStorage.addFilm(film("a"));
+        Film b = filmStorage.addFilm(film("b"));
+        filmStorage.like(b, first.getId());
+        filmStorage.like(a, first.getId());
+        filmStorage.like(b, second.getId());
+
+        Map<Long, long[]> liked = filmStorage.getLikedFilmIds(new long[]{first.getId(), second.getId(), idle.getId()});
+        Assertions.assertEquals(Set.of(first.getId(), second.getId()), liked.keySet());
+        Assertions.assertArrayEquals(new long[]{a.getId(), b.getId()}, liked.get(first.getId()));
+        Assertions.assertArrayEquals(new long[]{b.getId()}, liked.get(second.getId()));
+    }
+
+    @Test
+    void searchRanksLikeTheIndex() {
+        User user = userStorage.addUser(user(1));
+        Film exact = filmStorage.addFilm(Film.builder().name("Ёлки").description("Новогодняя комедия")
+                .releaseDate(LocalDate.of(2010, 1, 1)).duration(90).build());
+        Film prefix = filmStorage.addFilm(Film.builder().name("Ёлки-палки").description("Про ёлочки")
+                .releaseDate(LocalDate.of(2010, 1, 1)).duration(90).build());
+        Film described = filmStorage.addFilm(Film.builder().name("Праздник").description("Ёлочная комедия")
+                .releaseDate(LocalDate.of(2010, 1, 1)).duration(90).build());
+        filmStorage.addFilm(film("Палки"));
+        filmStorage.like(described, user.getId());
+
+        Assertions.assertEquals(List.of(exact.getId(), prefix.getId()), filmStorage.search("елки", 10).stream()
+                .map(Film::getId).toList());
+        // equal matches, the like decides
+        Assertions.assertEquals(List.of(described.getId(), prefix.getId()), filmStorage.search("ёлоч", 10).stream()
+                .map(Film::getId).toList());
+        Assertions.assertEquals(List.of(described.getId(), exact.getId()), filmStorage.search("комедия", 10)
+                .stream().map(Film::getId).toList());
+        Assertions.assertEquals(List.of(), filmStorage.search("ёлки комедия палки", 10));
+    }
+
+    @Test
+    void likesAreDeletedWithUser() {
+        User user = userStorage.addUser(user(1));
+        Film film = filmStorage.addFilm(film("name"));
+        filmStorage.addFilm(film("not liked"));
+        filmStorage.like(film, user.getId());
+        Assertions.assertEquals(List.of(film.getId()),
+                filmStorage.getLikedFilms(user.getId()).stream().map(Film::getId).toList());
+
+        filmStorage.removeUserLikes(user.getId());
+        userStorage.deleteUser(user);
+        Assertions.assertEquals(0, filmStorage.getFilmById(film.getId()).getLikesCount());
+    }
+
+    private Film film(String name) {
+        return Film.builder().name(name).description("desc").releaseDate(LocalDate.of(2000, 1, 1)).duration(90).build();
+    }
+
+    private User user(int i) {
+        return User.builder().name("User " + i).birthday(LocalDate.of(1990, 1, 1))
+                .email("user" + i + "@gmail.com").login("user" + i).build();
+    }
+}
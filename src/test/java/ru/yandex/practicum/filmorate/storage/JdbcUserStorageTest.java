@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+@JdbcTest(properties = "filmorate.storage.type=jdbc")
+@Import(JdbcUserStorage.class)
+class JdbcUserStorageTest {
+    @Autowired
+    private JdbcUserStorage userStorage;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void userIsAddedWithLoginAsDefaultName() {
+        User user = userStorage.addUser(User.builder().birthday(LocalDate.of(1990, 1, 1))
+                .email("login@mail.ru").login("login").build());
+        Assertions.assertEquals("login", userStorage.getUserById(user.getId()).getName());
+        Assertions.assertThrows(NotFoundException.class, () -> userStorage.getUserById(user.getId() + 1000));
+    }
+
+    @Test
+    void emailAndLoginAreUnique() {
+        User user = userStorage.addUser(user(1));
+        Assertions.assertEquals(user.getId(), userStorage.getUserByLogin(user.getLogin()).getId());
+        Assertions.assertEquals(user.getId(), userStorage.getUserByEmail(user.getEmail()).getId());
+        Assertions.assertThrows(NotFoundException.class, () -> userStorage.getUserByLogin("nobody"));
+
+        ConflictException conflict = Assertions.assertThrows(ConflictException.class,
+                () -> userStorage.addUser(User.builder().email(user.getEmail()).login("other").build()));
+        Assertions.assertTrue(conflict.getMessage().startsWith("Email"));
+        conflict = Assertions.assertThrows(ConflictException.class,
+                () -> userStorage.addUsers(List.of(user(2), User.builder().email("x@mail.ru").login(user.getLogin())
+                        .build())));
+        Assertions.assertTrue(conflict.getMessage().startsWith("Логин"));
+        User other = userStorage.addUser(user(3));
+        Assertions.assertThrows(ConflictException.class, () -> userStorage.updateUser(User.builder()
+                .id(other.getId()).email(other.getEmail()).login(user.getLogin()).build()));
+    }
+
+    @Test
+    void friendshipIsStoredOnceAsOrderedPair() {
+        User user1 = userStorage.addUser(user(1));
+        User user2 = userStorage.addUser(user(2));
+
+        userStorage.addFriend(user2, user1);
+        Assertions.assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM friends WHERE user_id_1 = ? "
+                + "AND user_id_2 = ? AND status = 'REQ_U2'", Integer.class, user1.getId(), user2.getId()));
+        Assertions.assertArrayEquals(new long[]{user2.getId()}, userStorage.getFriendRequests(user1.getId()));
+        Assertions.assertEquals(0, userStorage.getFriendRequests(user2.getId()).length);
+        Assertions.assertTrue(userStorage.getUserById(user1.getId()).getFriends().isEmpty());
+
+        userStorage.addFriend(user1, user2);
+        Assertions.assertEquals(0, userStorage.getFriendRequests(user1.getId()).length);
+        Assertions.assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM friends WHERE user_id_1 = ? "
+                + "AND user_id_2 = ? AND status = 'FRIENDS'", Integer.class, user1.getId(), user2.getId()));
+        Assertions.assertEquals(Set.of(user2.getId()), userStorage.getUserById(user1.getId()).getFriends());
+        Assertions.assertEquals(Set.of(user1.getId()), userStorage.getUserById(user2.getId()).getFriends());
+
+        userStorage.deleteFriend(user1, user2);
+        Assertions.assertTrue(userStorage.getUserById(user1.getId()).getFriends().isEmpty());
+        Assertions.assertTrue(userStorage.getUserById(user2.getId()).getFriends().isEmpty());
+    }
+
+    @Test
+    void batchOfFriendshipsIsStoredAsOrderedPairs() {
+        User user1 = userStorage.addUser(user(1));
+        User user2 = userStorage.addUser(user(2));
+        User user3 = userStorage.addUser(user(3));
+        userStorage.addFriend(user1, user3);
+
+        userStorage.addFriends(List.of(new Friendship(user2.getId(), user1.getId()),
+                new Friendship(user1.getId(), user2.getId()),
+                new Friendship(user3.getId(), user1.getId()),
+                new Friendship(user3.getId(), user2.getId()),
+                new Friendship(user3.getId(), user3.getId() + 1000)));
+
+        // 1 and 2 confirm each other, 3 confirms the request of 1 and sends one to 2
+        Assertions.assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM friends", Integer.class));
+        Assertions.assertEquals(Set.of(user2.getId(), user3.getId()),
+                userStorage.getUserById(user1.getId()).getFriends());
+        Assertions.assertEquals(Set.of(user1.getId()), userStorage.getUserById(user3.getId()).getFriends());
+        Assertions.assertArrayEquals(new long[]{user3.getId()}, userStorage.getFriendRequests(user2.getId()));
+    }
+
+    @Test
+    void deletedUserDisappearsFromFriends() {
+        User user1 = userStorage.addUser(user(1));
+        User user2 = userStorage.addUser(user(2));
+        User user3 = userStorage.addUser(user(3));
+        userStorage.addFriend(user1, user2);
+        userStorage.addFriend(user2, user1);
+        userStorage.addFriend(user3, user2);
+
+        userStorage.deleteUser(user2);
+        Assertions.assertEquals(2, userStorage.findAll().size());
+        userStorage.findAll().forEach(user -> Assertions.assertTrue(user.getFriends().isEmpty()));
+    }
+
+    @Test
+    void requestToDeletedUserIsNotFound() {
+        User user1 = userStorage.addUser(user(1));
+        User user2 = userStorage.addUser(user(2));
+        userStorage.deleteUser(user2);
+
+        Assertions.assertThrows(NotFoundException.class, () -> userStorage.addFriend(user1, user2));
+        Assertions.assertTrue(userStorage.getUserById(user1.getId()).getFriends().isEmpty());
+    }
+
+    @Test
+    void usersAreLoadedByIdsInGivenOrder() {
+        User user1 = userStorage.addUser(user(1));
+        User user2 = userStorage.addUser(user(2));
+        User user3 = userStorage.addUser(user(3));
+        userStorage.addFriend(user1, user3);
+        userStorage.addFriend(user3, user1);
+
+        List<User> found = userStorage.getUsersByIds(new long[]{user3.getId(), user2.getId() + 1000, user1.getId()});
+        Assertions.assertEquals(List.of(user3.getId(), user1.getId()), found.stream().map(User::getId).toList());
+        Assertions.assertEquals(Set.of(user1.getId()), found.getFirst().getFriends());
+    }
+
+    private User user(int i) {
+        return User.builder().name("User " + i).birthday(LocalDate.of(1990, 1, 1))
+                .email("user" + i + "@gmail.com").login("user" + i).build();
+    }
+}
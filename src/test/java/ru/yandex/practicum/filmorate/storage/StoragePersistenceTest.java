@@ -0,0 +1,219 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+class StoragePersistenceTest {
+    @TempDir
+    private Path dir;
+
+    @ParameterizedTest
+    @EnumSource(Durability.class)
+    void logIsReplayedAfterRestart(Durability durability) throws IOException {
+        Node node = Node.start(dir, durability);
+        List<Film> films = addFilms(node, 5);
+        List<User> users = addUsers(node, 4);
+        node.films.like(films.get(0), users.get(0).getId());
+        node.films.like(films.get(0), users.get(1).getId());
+        node.films.like(films.get(2), users.get(1).getId());
+        node.films.unLike(films.get(0), users.get(0).getId());
+        node.films.deleteFilm(films.get(4));
+        node.films.updateFilm(Film.builder().id(films.get(1).getId()).name("renamed").description("desc")
+                .releaseDate(LocalDate.of(1999, 1, 1)).duration(10).build());
+        node.users.addFriend(users.get(0), users.get(1));
+        node.users.addFriend(users.get(1), users.get(0));
+        node.users.addFriend(users.get(0), users.get(2));
+        node.users.addFriend(users.get(2), users.get(3));
+        node.users.addFriend(users.get(3), users.get(2));
+        node.users.addFriend(users.get(2), users.get(1));
+        node.users.addFriend(users.get(3), users.get(0));
+        node.users.deleteFriend(users.get(0), users.get(2));
+        node.films.removeUserLikes(users.get(3).getId());
+        node.users.deleteUser(users.get(3));
+        Map<Long, String> before = state(node);
+        // no snapshot on the way down, everything comes from the log
+        node.wal.close();
+
+        Node restored = Node.start(dir, durability);
+        Assertions.assertEquals(before, state(restored));
+        Assertions.assertEquals(List.of(films.get(0).getId(), films.get(2).getId()),
+                restored.films.getLikedFilms(users.get(1).getId()).stream().map(Film::getId).sorted().toList());
+        Assertions.assertEquals(6, restored.films.addFilm(film(6)).getId());
+        Assertions.assertEquals(5, restored.users.addUser(user(5)).getId());
+    }
+
+    @Test
+    void snapshotReplacesOlderSegments() throws IOException {
+        Node node = Node.start(dir, Durability.GROUP);
+        List<Film> films = addFilms(node, 100);
+        List<User> users = addUsers(node, 50);
+        for (Film film : films) {
+            for (User user : users) {
+                node.films.like(film, user.getId());
+            }
+        }
+        node.users.addFriend(users.get(0), users.get(1));
+        node.users.addFriend(users.get(2), users.get(1));
+        node.users.addFriend(users.get(1), users.get(2));
+        node.persistence.snapshot();
+        Assertions.assertEquals(1, files("snapshot-").size());
+        Assertions.assertEquals(1, files("wal-").size());
+
+        node.films.unLike(films.get(0), users.get(0).getId());
+        node.users.addFriend(users.get(3), users.get(1));
+        node.users.addFriend(users.get(1), users.get(0));
+        Map<Long, String> before = state(node);
+        node.wal.close();
+
+        Node restored = Node.start(dir, Durability.GROUP);
+        Assertions.assertEquals(before, state(restored));
+        // likes from the snapshot trend as well as the ones replayed from the log
+        Assertions.assertEquals(100, restored.films.getTrending(Duration.ofHours(24), 1000).size());
+    }
+
+    @Test
+    void tornTailIsSkipped() throws IOException {
+        Node node = Node.start(dir, Durability.SYNC);
+        Film film = addFilms(node, 1).get(0);
+        node.films.like(film, 1);
+        Map<Long, String> before = state(node);
+        node.films.like(film, 2);
+        node.wal.close();
+
+        // corrupt the last byte of the last like: its user id
+        Path segment = files("wal-").getLast();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long end = file.length();
+            while (end > 0) {
+                file.seek(end - 1);
+                if (file.read() != 0) {
+                    break;
+                }
+                end--;
+            }
+            file.seek(end - 1);
+            file.write(7);
+        }
+
+        Assertions.assertEquals(before, state(Node.start(dir, Durability.SYNC)));
+    }
+
+    @Test
+    void snapshotTakenDuringWritesLosesNothing() throws Exception {
+        Node node = Node.start(dir, Durability.ASYNC);
+        List<Film> films = addFilms(node, 20);
+        List<User> users = addUsers(node, 20);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            writers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20_000; i++) {
+                    Film film = films.get(random.nextInt(films.size()));
+                    User user = users.get(random.nextInt(users.size()));
+                    User friend = users.get(random.nextInt(users.size()));
+                    switch (random.nextInt(4)) {
+                        case 0 -> node.films.like(film, user.getId());
+                        case 1 -> node.films.unLike(film, user.getId());
+                        case 2 -> node.users.addFriend(user, friend);
+                        default -> node.users.deleteFriend(user, friend);
+                    }
+                }
+                return null;
+            }));
+        }
+        while (writers.stream().anyMatch(w -> !w.isDone())) {
+            node.persistence.snapshot();
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+        Map<Long, String> before = state(node);
+        node.wal.close();
+
+        Assertions.assertEquals(before, state(Node.start(dir, Durability.ASYNC)));
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    private static List<Film> addFilms(Node node, int count) {
+        List<Film> films = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            films.add(node.films.addFilm(film(i)));
+        }
+        return films;
+    }
+
+    private static List<User> addUsers(Node node, int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            users.add(node.users.addUser(user(i)));
+        }
+        return users;
+    }
+
+    private static Film film(int i) {
+        return Film.builder().name("film" + i).description("desc").releaseDate(LocalDate.of(2000, 1, i % 28 + 1))
+                .duration(i).build();
+    }
+
+    private static User user(int i) {
+        return User.builder().email("user" + i + "@mail.ru").login("user" + i).birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    // films under positive keys, users under negative ones
+    private static Map<Long, String> state(Node node) {
+        Map<Long, String> state = new TreeMap<>();
+        for (Film film : node.films.findAll()) {
+            state.put(film.getId(), film.getName() + " " + film.getDescription() + " " + film.getReleaseDate() + " "
+                    + film.getDuration() + " " + film.getLikes().stream().sorted().toList());
+        }
+        for (User user : node.users.findAll()) {
+            state.put(-user.getId(), user.getLogin() + " " + user.getEmail() + " " + user.getName() + " "
+                    + user.getBirthday() + " " + user.getFriends().stream().sorted().toList() + " "
+                    + Arrays.toString(node.users.getFriendRequests(user.getId())));
+        }
+        return state;
+    }
+
+    private record Node(WriteAheadLog wal, InMemoryFilmStorage films, InMemoryUserStorage users,
+                        StoragePersistence persistence) {
+
+        static Node start(Path dir, Durability durability) throws IOException {
+            WriteAheadLog wal = new WriteAheadLog(dir, durability, Duration.ofMillis(1), 1 << 16);
+            InMemoryFilmStorage films = new InMemoryFilmStorage(new SequenceIdGenerator(), wal);
+            InMemoryUserStorage users = new InMemoryUserStorage(new SequenceIdGenerator(), wal);
+            StoragePersistence persistence = new StoragePersistence(dir, wal, films, users, Duration.ZERO);
+            persistence.start();
+            return new Node(wal, films, users, persistence);
+        }
+    }
+}
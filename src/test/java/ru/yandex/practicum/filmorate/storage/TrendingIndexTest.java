@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+class TrendingIndexTest {
+    private static final Duration HOUR = Duration.ofHours(1);
+    private static final int BUCKETS = 24;
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void windowLeavesOutOlderLikes() {
+        TrendingIndex index = new TrendingIndex(clock, HOUR, Duration.ofHours(BUCKETS), Duration.ofHours(6));
+        index.liked(1, 5);
+        clock.advance(Duration.ofHours(10));
+        index.liked(2, 1);
+
+        Assertions.assertEquals(List.of(2L), index.top(Duration.ofHours(3), 10));
+        // five likes of 10 hours ago weigh 5 * 2^(-10 / 6), about 1.6
+        Assertions.assertEquals(List.of(1L, 2L), index.top(Duration.ofHours(12), 10));
+        Assertions.assertEquals(List.of(1L), index.top(Duration.ofHours(12), 1));
+        Assertions.assertThrows(ValidationException.class, () -> index.top(Duration.ofHours(BUCKETS + 1), 10));
+    }
+
+    @Test
+    void unlikeTakesBackTheNewestLike() {
+        TrendingIndex index = new TrendingIndex(clock, HOUR, Duration.ofHours(BUCKETS), HOUR);
+        index.liked(1, 1);
+        clock.advance(Duration.ofHours(5));
+        index.liked(1, 1);
+        index.unliked(1);
+
+        Assertions.assertEquals(List.of(), index.top(Duration.ofHours(5), 10));
+        Assertions.assertEquals(List.of(1L), index.top(Duration.ofHours(6), 10));
+        index.unliked(1);
+        Assertions.assertEquals(List.of(), index.top(Duration.ofHours(BUCKETS), 10));
+        Assertions.assertEquals(0, index.size());
+    }
+
+    @Test
+    void filmsWithoutRecentLikesAreDropped() {
+        TrendingIndex index = new TrendingIndex(clock, HOUR, Duration.ofHours(BUCKETS), HOUR);
+        for (long filmId = 0; filmId < 100; filmId++) {
+            index.liked(filmId, 1);
+        }
+        clock.advance(Duration.ofHours(BUCKETS));
+        index.liked(1000, 1);
+        // a like doesn't prune, the background task does
+        Assertions.assertEquals(101, index.size());
+        index.prune();
+
+        Assertions.assertEquals(1, index.size());
+        Assertions.assertEquals(List.of(1000L), index.top(Duration.ofHours(BUCKETS), 10));
+    }
+
+    @Test
+    void restoredLikesReplaceWhatTheFilmHad() {
+        TrendingIndex index = new TrendingIndex(clock, HOUR, Duration.ofHours(BUCKETS), HOUR);
+        index.liked(1, 1);
+        index.liked(2, 3);
+        index.restored(1, 5);
+        index.restored(2, 0);
+
+        Assertions.assertEquals(List.of(1L), index.top(Duration.ofHours(1), 10));
+        Assertions.assertEquals(1, index.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 7, 42, 2024, 31337})
+    void topMatchesFullScan(long seed) {
+        Random random = new Random(seed);
+        // a one bucket half-life keeps weights powers of two, so sums are exact and ties are real ties
+        TrendingIndex index = new TrendingIndex(clock, HOUR, Duration.ofHours(BUCKETS), HOUR);
+        Map<Long, NavigableMap<Long, Integer>> likes = new HashMap<>();
+
+        for (int step = 0; step < 5000; step++) {
+            long filmId = random.nextInt(200);
+            int op = random.nextInt(20);
+            if (op == 0) {
+                clock.advance(Duration.ofMinutes(random.nextInt(180)));
+            } else if (op == 1) {
+                index.remove(filmId);
+                likes.remove(filmId);
+            } else if (op < 5) {
+                index.unliked(filmId);
+                NavigableMap<Long, Integer> buckets = likes.getOrDefault(filmId, new TreeMap<>())
+                        .tailMap(bucket() - BUCKETS, false);
+                if (!buckets.isEmpty()) {
+                    buckets.merge(buckets.lastKey(), -1, Integer::sum);
+                    buckets.values().remove(0);
+                }
+            } else {
+                int count = 1 + random.nextInt(3);
+                index.liked(filmId, count);
+                likes.computeIfAbsent(filmId, id -> new TreeMap<>()).merge(bucket(), count, Integer::sum);
+            }
+
+            if (step % 100 == 0) {
+                int window = 1 + random.nextInt(BUCKETS);
+                int count = random.nextInt(30);
+                Assertions.assertEquals(fullScan(likes, window, count),
+                        index.top(Duration.ofHours(window), count));
+            }
+        }
+    }
+
+    private List<Long> fullScan(Map<Long, NavigableMap<Long, Integer>> likes, int window, int count) {
+        long now = bucket();
+        Map<Long, Double> scores = new HashMap<>();
+        likes.forEach((filmId, buckets) -> {
+            double score = 0;
+            for (Map.Entry<Long, Integer> bucket : buckets.tailMap(now - window, false).entrySet()) {
+                score += bucket.getValue() * Math.pow(2, bucket.getKey() - now);
+            }
+            if (score > 0) {
+                scores.put(filmId, score);
+            }
+        });
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private long bucket() {
+        return clock.millis() / HOUR.toMillis();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Storages under contention from virtual threads: a thread that parks while holding a monitor
+ * (synchronized, ConcurrentHashMap.compute) pins its carrier and JFR reports jdk.VirtualThreadPinned.
+ */
+class VirtualThreadPinningTest {
+    private static final int TASKS = 2000;
+    private static final int OPERATIONS = 200;
+
+    @Test
+    void filmStorageDoesNotPinCarrierThreads() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            films.add(storage.addFilm(Film.builder().name("film" + i).description("desc")
+                    .releaseDate(LocalDate.now()).duration(1).build()));
+        }
+
+        List<RecordedEvent> pinned = recordPinning(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < OPERATIONS; i++) {
+                Film film = films.get(random.nextInt(films.size()));
+                long userId = random.nextInt(3);
+                switch (random.nextInt(5)) {
+                    case 0 -> storage.like(film, userId);
+                    case 1 -> storage.unLike(film, userId);
+                    case 2 -> storage.getLikedFilms(userId);
+                    case 3 -> storage.getTrending(Duration.ofHours(24), 10);
+                    default -> storage.getMostLiked(10);
+                }
+            }
+        });
+        Assertions.assertTrue(pinned.isEmpty(), () -> pinned.size() + " pinned, first: " + pinned.get(0));
+    }
+
+    @Test
+    void userStorageDoesNotPinCarrierThreads() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(storage.addUser(User.builder().name("user" + i).email("user" + i + "@mail.ru")
+                    .login("user" + i).birthday(LocalDate.now()).build()));
+        }
+
+        List<RecordedEvent> pinned = recordPinning(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < OPERATIONS; i++) {
+                User user = users.get(random.nextInt(users.size()));
+                User friend = users.get(random.nextInt(users.size()));
+                if (user == friend) {
+                    continue;
+                }
+                switch (random.nextInt(3)) {
+                    case 0 -> storage.addFriend(user, friend);
+                    case 1 -> storage.deleteFriend(user, friend);
+                    default -> storage.getUsersByIds(user.getFriends().stream().mapToLong(Long::longValue).toArray());
+                }
+            }
+        });
+        Assertions.assertTrue(pinned.isEmpty(), () -> pinned.size() + " pinned, first: " + pinned.get(0));
+    }
+
+    private static List<RecordedEvent> recordPinning(Runnable task) throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < TASKS; i++) {
+                    futures.add(executor.submit(task));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+            recording.stop();
+        }
+        return pinned;
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class LongByteHashMapTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void behavesLikeHashMap(long seed) {
+        Random random = new Random(seed);
+        LongByteHashMap map = new LongByteHashMap();
+        Map<Long, Byte> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(2000) - 100;
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.getOrDefault(key, (byte) 0), map.remove(key));
+                expected.remove(key);
+            } else {
+                byte value = (byte) (1 + random.nextInt(3));
+                Assertions.assertEquals(expected.getOrDefault(key, (byte) 0), map.put(key, value));
+                expected.put(key, value);
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+        }
+        for (long key = -100; key < 1900; key++) {
+            Assertions.assertEquals(expected.getOrDefault(key, (byte) 0), map.get(key));
+        }
+    }
+
+    @Test
+    void zeroIsNotAValue() {
+        LongByteHashMap map = new LongByteHashMap();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> map.put(1, (byte) 0));
+        Assertions.assertEquals(0, map.get(1));
+        Assertions.assertEquals(0, map.size());
+    }
+
+    @Test
+    void concurrentWritersOfDifferentKeysDontLoseAny() throws Exception {
+        LongByteHashMap map = new LongByteHashMap();
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long first = (long) t * perThread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (long key = first; key < first + perThread; key++) {
+                    map.put(key, (byte) 1);
+                    Assertions.assertEquals(1, map.get(key));
+                    if (key % 2 == 0) {
+                        Assertions.assertEquals(1, map.remove(key));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(threads * perThread / 2, map.size());
+        for (long key = 0; key < (long) threads * perThread; key++) {
+            Assertions.assertEquals(key % 2 == 0 ? 0 : 1, map.get(key));
+        }
+    }
+}
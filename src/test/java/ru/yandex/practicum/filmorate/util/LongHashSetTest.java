@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+class LongHashSetTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void behavesLikeHashSet(long seed) {
+        Random random = new Random(seed);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            long id = random.nextInt(2000) - 100;
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(id), set.remove(id));
+            } else {
+                Assertions.assertEquals(expected.add(id), set.add(id));
+            }
+            Assertions.assertEquals(expected.size(), set.size());
+        }
+        for (long id = -100; id < 1900; id++) {
+            Assertions.assertEquals(expected.contains(id), set.contains(id));
+        }
+        Assertions.assertEquals(expected, set);
+        Assertions.assertEquals(set, LongHashSet.copyOf(expected));
+    }
+
+    @Test
+    void jsonShapeIsArrayOfIds() throws Exception {
+        LongHashSet set = LongHashSet.copyOf(Set.of(3L, 1L, 2L));
+        ObjectMapper mapper = new ObjectMapper();
+        Assertions.assertEquals(Set.of(1L, 2L, 3L), mapper.readValue(mapper.writeValueAsString(set),
+                mapper.getTypeFactory().constructCollectionType(Set.class, Long.class)));
+    }
+
+    @Test
+    void bytesPerLike() {
+        int likes = 100_000;
+        Set<Long> hashSet = new HashSet<>();
+        Set<Long> concurrentSet = ConcurrentHashMap.newKeySet();
+        LongHashSet primitiveSet = new LongHashSet();
+        for (long userId = 1; userId <= likes; userId++) {
+            hashSet.add(userId * 7919);
+            concurrentSet.add(userId * 7919);
+            primitiveSet.add(userId * 7919);
+        }
+        double hashSetBytes = (double) GraphLayout.parseInstance(hashSet).totalSize() / likes;
+        double concurrentBytes = (double) GraphLayout.parseInstance(concurrentSet).totalSize() / likes;
+        double primitiveBytes = (double) GraphLayout.parseInstance(primitiveSet).totalSize() / likes;
+        System.out.printf("Bytes per like: HashSet %.1f, ConcurrentHashMap.newKeySet %.1f, LongHashSet %.1f%n",
+                hashSetBytes, concurrentBytes, primitiveBytes);
+
+        Assertions.assertTrue(primitiveBytes * 2.5 < hashSetBytes);
+        Assertions.assertTrue(primitiveBytes < 24);
+    }
+
+    @Test
+    void modelsKeepLongHashSetsFromBuilders() {
+        Film film = Film.builder().likes(new HashSet<>(Set.of(1L, 2L))).build();
+        User user = User.builder().friends(Set.of(3L)).build();
+
+        Assertions.assertInstanceOf(LongHashSet.class, film.getLikes());
+        Assertions.assertEquals(Set.of(1L, 2L), film.getLikes());
+        Assertions.assertInstanceOf(LongHashSet.class, user.getFriends());
+        Assertions.assertTrue(user.getFriends().contains(3L));
+        Assertions.assertInstanceOf(LongHashSet.class, Film.builder().build().getLikes());
+        Assertions.assertInstanceOf(LongHashSet.class, User.builder().build().getFriends());
+    }
+}
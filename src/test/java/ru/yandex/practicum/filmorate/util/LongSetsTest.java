@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class LongSetsTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 10, 1000})
+    void intersectMatchesRetainAllAndKeepsInput(int size) {
+        Random random = new Random(size);
+        Set<Long> a = new HashSet<>();
+        Set<Long> b = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            a.add((long) random.nextInt(size * 2 + 1));
+        }
+        for (int i = 0; i < size * 10; i++) {
+            b.add((long) random.nextInt(size * 2 + 1));
+        }
+        Set<Long> aCopy = Set.copyOf(a);
+        Set<Long> bCopy = Set.copyOf(b);
+
+        Set<Long> expected = new HashSet<>(a);
+        expected.retainAll(b);
+        long[] expectedSorted = expected.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        Assertions.assertArrayEquals(expectedSorted, LongSets.intersect(a, b));
+        Assertions.assertArrayEquals(expectedSorted, LongSets.intersect(b, a));
+        Assertions.assertEquals(aCopy, a);
+        Assertions.assertEquals(bCopy, b);
+    }
+
+    @Test
+    void sampleKeepsAllIdsUpToMaxAndSpreadsOverTheRest() {
+        List<Long> ids = List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+
+        Assertions.assertArrayEquals(new long[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, LongSets.sample(ids, 10));
+        Assertions.assertArrayEquals(new long[] {1, 3, 5, 7, 9}, LongSets.sample(ids, 5));
+        long[] sampled = LongSets.sample(ids, 3);
+        Assertions.assertEquals(3, Arrays.stream(sampled).distinct().count());
+        Assertions.assertArrayEquals(new long[] {1, 3, 5, 7, 9},
+                LongSets.sample(new long[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, 5));
+    }
+}
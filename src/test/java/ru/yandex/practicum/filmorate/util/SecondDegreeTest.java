@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+class SecondDegreeTest {
+
+    @Test
+    void skipsUserAndDirectFriends() {
+        // 1 is friends with 2 and 3; 2 and 3 are friends, and both are friends with 4; 3 is friends with 5
+        long[][] adjacency = {{1, 3, 4}, {1, 2, 4, 5}};
+
+        Assertions.assertEquals(List.of(new SecondDegree.Candidate(4, 2), new SecondDegree.Candidate(5, 1)),
+                SecondDegree.rank(1, Set.of(2L, 3L), adjacency, 10));
+        Assertions.assertEquals(List.of(new SecondDegree.Candidate(4, 2)),
+                SecondDegree.rank(1, Set.of(2L, 3L), adjacency, 1));
+        Assertions.assertEquals(List.of(), SecondDegree.rank(1, Set.of(), new long[0][], 10));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1000, 100_000})
+    void matchesCountingInAMap(int ids) {
+        Random random = new Random(ids);
+        long userId = 0;
+        LongHashSet friends = new LongHashSet();
+        long[][] adjacency = new long[50][];
+        for (int i = 0; i < adjacency.length; i++) {
+            friends.add(1 + random.nextInt(ids));
+            // up to 5000 ids per friend, so the larger graphs cross PARALLEL_THRESHOLD
+            adjacency[i] = random.longs(random.nextInt(5000), 0, ids).distinct().toArray();
+        }
+
+        Map<Long, Integer> counts = new HashMap<>();
+        for (long[] friendsOfFriend : adjacency) {
+            for (long id : friendsOfFriend) {
+                if (id != userId && !friends.contains(id)) {
+                    counts.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+        List<SecondDegree.Candidate> expected = counts.entrySet().stream()
+                .map(e -> new SecondDegree.Candidate(e.getKey(), e.getValue()))
+                .sorted(Comparator.comparingInt(SecondDegree.Candidate::shared).reversed()
+                        .thenComparingLong(SecondDegree.Candidate::id))
+                .limit(20)
+                .toList();
+        Assertions.assertEquals(expected, SecondDegree.rank(userId, friends, adjacency, 20));
+    }
+}